@@ -0,0 +1,111 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.example.batch.BatchProcessor;
+import org.example.batch.BatchServer;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.DfaTableFormat;
+import org.example.regex.RegexParser;
+import org.example.search.Prefilter;
+
+/**
+ * Command-line entry point for tokenizing or matching many lines at once.
+ *
+ * <pre>
+ * Batch tokenize [options] [file...]
+ * Batch match (--regex PATTERN | --dfa FILE) [options] [file...]
+ *
+ * options: --threads N   number of worker threads (default: available processors)
+ *          --serve PORT  serve requests on a loopback socket instead of reading files
+ * </pre>
+ *
+ * Without files, lines are read from standard input. Results go to standard output, one line per
+ * input line; throughput statistics go to standard error.
+ */
+public class Batch {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length == 0) {
+      usage();
+      return;
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    int port = -1;
+    String regex = null;
+    Path dfaFile = null;
+    List<Path> files = new ArrayList<>();
+    try {
+      for (int i = 1; i < args.length; i++) {
+        switch (args[i]) {
+          case "--threads" -> threads = Integer.parseInt(args[++i]);
+          case "--serve" -> port = Integer.parseInt(args[++i]);
+          case "--regex" -> regex = args[++i];
+          case "--dfa" -> dfaFile = Path.of(args[++i]);
+          default -> files.add(Path.of(args[i]));
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+      // A missing option value, a malformed number or an invalid path.
+      usage();
+      return;
+    }
+
+    Function<String, String> task;
+    if (args[0].equals("tokenize")) {
+      task = BatchProcessor.tokenizer();
+    } else if (args[0].equals("match") && regex != null) {
+      DFiniteAutomaton dfa = RegexParser.compile(regex);
+      task = BatchProcessor.matcher(dfa.freeze(), Prefilter.of(dfa));
+    } else if (args[0].equals("match") && dfaFile != null) {
+      task = BatchProcessor.matcher(DfaTableFormat.map(dfaFile));
+    } else {
+      usage();
+      return;
+    }
+
+    try (BatchProcessor processor = new BatchProcessor(task, threads)) {
+      if (port >= 0) {
+        try (BatchServer server = new BatchServer(processor, port)) {
+          System.err.println("Listening on 127.0.0.1:" + server.getPort());
+          Thread.currentThread().join();
+        }
+        return;
+      }
+      FileOutputStream stdout = new FileOutputStream(FileDescriptor.out);
+      BufferedWriter out =
+          new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8), BUFFER_SIZE);
+      if (files.isEmpty()) {
+        System.err.println(processor.process(reader(Channels.newChannel(System.in)), out));
+      }
+      for (Path file : files) {
+        try (FileChannel channel = FileChannel.open(file)) {
+          System.err.println(file + ": " + processor.process(reader(channel), out));
+        }
+      }
+    }
+  }
+
+  private static BufferedReader reader(ReadableByteChannel channel) {
+    return new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  private static void usage() {
+    System.err.println("Usage: Batch tokenize [options] [file...]");
+    System.err.println("       Batch match (--regex PATTERN | --dfa FILE) [options] [file...]");
+    System.err.println("Options: --threads N, --serve PORT");
+  }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import java.util.List;
+import org.example.fuzz.DifferentialFuzzer;
+
+/**
+ * Command-line entry point for differential fuzzing of the matching engines.
+ *
+ * <pre>
+ * Fuzz [--cases N] [--seed S] [--threads N]
+ * Fuzz --replay SEED
+ * </pre>
+ *
+ * The report, with per-engine throughput and any shrunk counterexamples, goes to standard output.
+ * The exit status is 1 if an engine disagreed with the reference.
+ */
+public class Fuzz {
+
+  public static void main(String[] args) throws InterruptedException {
+    int cases = 10_000;
+    long seed = System.nanoTime();
+    int threads = Runtime.getRuntime().availableProcessors();
+    Long replay = null;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--cases" -> cases = Integer.parseInt(args[++i]);
+          case "--seed" -> seed = Long.parseLong(args[++i]);
+          case "--threads" -> threads = Integer.parseInt(args[++i]);
+          case "--replay" -> replay = Long.parseLong(args[++i]);
+          default -> {
+            usage();
+            return;
+          }
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      usage();
+      return;
+    }
+
+    DifferentialFuzzer fuzzer = new DifferentialFuzzer();
+    if (replay != null) {
+      List<DifferentialFuzzer.Failure> failures = fuzzer.replay(replay);
+      failures.forEach(System.out::println);
+      System.out.println(failures.size() + " failures");
+      System.exit(failures.isEmpty() ? 0 : 1);
+    }
+    System.out.println("Seed " + seed + ", " + threads + " threads");
+    DifferentialFuzzer.Report report = fuzzer.run(seed, cases, threads);
+    System.out.print(report);
+    System.exit(report.isClean() ? 0 : 1);
+  }
+
+  private static void usage() {
+    System.err.println("Usage: Fuzz [--cases N] [--seed S] [--threads N]");
+    System.err.println("       Fuzz --replay SEED");
+  }
+}
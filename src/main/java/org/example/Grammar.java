@@ -4,6 +4,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import org.example.derivation.Derivation;
 import org.example.fa.impl.DFiniteAutomaton;
 
 /** Represents a context-free grammar. */
@@ -110,52 +111,42 @@ public class Grammar {
    * @return the generated string
    */
   public String generateStringWithProgression() {
-    StringBuilder word = new StringBuilder(String.valueOf(S));
-    StringBuilder progression = new StringBuilder(String.valueOf(S));
     final int MIN_STEPS = 10;
     final int MAX_STEPS = 15;
-    Random random = new Random();
+    Derivation derivation = derive(new Random(), MIN_STEPS, MAX_STEPS);
 
-    int step = 0;
-    while (step < MAX_STEPS && word.toString().matches(".*[SABC].*")) {
-      boolean replaced = false;
-      for (int i = 0; i < word.length(); i++) {
-        char currentChar = word.charAt(i);
-        if (Vn.contains(currentChar)) {
-          List<String> possibleProductions = productions.getOrDefault(currentChar, List.of());
+    System.out.println("Steps: " + derivation.getStepCount());
+    System.out.println("Progression: " + derivation.render());
+    return derivation.getWord();
+  }
 
-          String chosenProduction = null;
-          if (step <= MIN_STEPS) {
-            for (String production : possibleProductions) {
-              if (production.matches(".*[SABC].*")) {
-                chosenProduction = production;
-                break;
+  /**
+   * Derives a random string by expanding the leftmost nonterminal. Until more than {@code minSteps}
+   * steps have been taken, productions that keep a nonterminal are preferred so the string does not
+   * end too early.
+   *
+   * @param random the source of the production choices
+   * @param minSteps the last step, counted from 0, that prefers recursive productions
+   * @param maxSteps the maximum number of steps
+   * @return the recorded derivation
+   */
+  public Derivation derive(Random random, int minSteps, int maxSteps) {
+    return Derivation.leftmost(
+        S,
+        productions,
+        symbol -> Vn.contains((char) symbol),
+        (nonterminal, step) -> {
+          List<String> options = productions.getOrDefault(nonterminal, List.of());
+          if (step <= minSteps) {
+            for (int i = 0; i < options.size(); i++) {
+              if (options.get(i).chars().anyMatch(symbol -> Vn.contains((char) symbol))) {
+                return i;
               }
             }
           }
-          if (chosenProduction == null) {
-            chosenProduction = possibleProductions.get(random.nextInt(possibleProductions.size()));
-          }
-
-          if (!chosenProduction.isEmpty()) {
-            word.replace(i, i + 1, chosenProduction);
-            progression.append(" -> ").append(word);
-            replaced = true;
-            break;
-          }
-        }
-      }
-
-      if (!replaced) {
-        if (step >= MIN_STEPS) break;
-      } else {
-        step++;
-      }
-    }
-
-    System.out.println("Steps: " + step);
-    System.out.println("Progression: " + progression);
-    return word.toString();
+          return options.isEmpty() ? -1 : random.nextInt(options.size());
+        },
+        maxSteps);
   }
 
   /**
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Scanner;
 import org.example.lexer.Lexer;
 import org.example.lexer.Token;
+import org.example.parser.CompiledExpression;
+import org.example.parser.ExpressionParser;
 
 public class Main {
     public static void main(String[] args) {
@@ -17,6 +19,22 @@ public class Main {
 
         tokens.forEach(System.out::println);
 
+        // Any input that lexes is tokenized; only arithmetic expressions are also evaluated.
+        try {
+            CompiledExpression expression = new ExpressionParser(tokens).parse();
+            System.out.println(expression);
+
+            double[] slots = new double[expression.getVariables().size()];
+            for (String variable : expression.getVariables()) {
+                System.out.println("Enter a value for " + variable + ":");
+                slots[expression.slotOf(variable)] = Double.parseDouble(scanner.nextLine());
+            }
+            System.out.println("Result: " + expression.evaluate(slots));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException from a non-numeric variable value.
+            System.out.println("Cannot evaluate: " + e.getMessage());
+        }
+
         scanner.close();
     }
 }
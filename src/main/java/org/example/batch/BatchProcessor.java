@@ -0,0 +1,206 @@
+package org.example.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.example.fa.CompiledDfa;
+import org.example.lexer.Lexer;
+import org.example.search.Prefilter;
+
+/**
+ * Applies a line-by-line task to newline-delimited input on a pool of worker threads and writes one
+ * result line per input line, in input order.
+ *
+ * <p>Lines are handed to the workers in chunks. At most a fixed number of chunks are in flight, so
+ * memory stays bounded however long the input is. When the reader has no more input ready, all
+ * pending results are written and the output is flushed, which keeps interactive clients
+ * responsive. A line whose task throws produces {@code error: <message>} instead of a result.
+ */
+public final class BatchProcessor implements AutoCloseable {
+
+  /** The number of lines handed to a worker at once. */
+  public static final int CHUNK_SIZE = 1024;
+
+  private final Function<String, String> task;
+  private final ExecutorService workers;
+  private final int maxPending;
+
+  /**
+   * Summary of a processing run.
+   *
+   * @param lines the number of lines processed
+   * @param chars the number of characters read, excluding line terminators
+   * @param errors the number of lines whose task failed
+   * @param nanos the wall-clock time of the run
+   */
+  public record Stats(long lines, long chars, long errors, long nanos) {
+
+    /**
+     * Returns the throughput in lines per second.
+     *
+     * @return the lines per second
+     */
+    public double linesPerSecond() {
+      return nanos == 0 ? 0 : lines * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the throughput in millions of characters per second.
+     *
+     * @return the characters per second, in millions
+     */
+    public double megacharsPerSecond() {
+      return nanos == 0 ? 0 : chars * 1e3 / nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d lines, %d chars, %d errors in %.1f ms (%.0f lines/s, %.2f Mchars/s)",
+          lines, chars, errors, nanos / 1e6, linesPerSecond(), megacharsPerSecond());
+    }
+  }
+
+  /**
+   * Creates a processor.
+   *
+   * @param task the function applied to each line; it must be safe to call from several threads
+   * @param threads the number of worker threads
+   */
+  public BatchProcessor(Function<String, String> task, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be positive: " + threads);
+    }
+    this.task = task;
+    this.maxPending = 4 * threads;
+    this.workers =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "batch-worker");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Returns a task that tokenizes each line with the expression {@link Lexer}.
+   *
+   * @return a task producing the tokens of a line separated by spaces
+   */
+  public static Function<String, String> tokenizer() {
+    return line ->
+        new Lexer(line).tokenize().stream().map(Object::toString).collect(Collectors.joining(" "));
+  }
+
+  /**
+   * Returns a task that matches each whole line against a compiled DFA.
+   *
+   * @param dfa the automaton, which must be safe to share between threads
+   * @return a task producing {@code true} or {@code false}
+   */
+  public static Function<String, String> matcher(CompiledDfa dfa) {
+    return line -> String.valueOf(dfa.matches(line));
+  }
+
+  /**
+   * Returns a task that matches each whole line against a compiled DFA, skipping the automaton for
+   * lines the prefilter rules out.
+   *
+   * @param dfa the automaton, which must be safe to share between threads
+   * @param prefilter the prefilter of the same automaton
+   * @return a task producing {@code true} or {@code false}
+   */
+  public static Function<String, String> matcher(CompiledDfa dfa, Prefilter prefilter) {
+    return line -> String.valueOf(prefilter.mayMatch(line) && dfa.matches(line));
+  }
+
+  /**
+   * Processes all lines of the input. The writer is flushed but not closed.
+   *
+   * @param in the input
+   * @param out the output, receiving one line per input line
+   * @return the statistics of the run
+   * @throws IOException if reading or writing fails
+   */
+  public Stats process(BufferedReader in, Writer out) throws IOException {
+    long start = System.nanoTime();
+    long lines = 0;
+    long chars = 0;
+    LongAdder errors = new LongAdder();
+    ArrayDeque<Future<String[]>> pending = new ArrayDeque<>();
+    List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+    String line;
+    while ((line = in.readLine()) != null) {
+      lines++;
+      chars += line.length();
+      chunk.add(line);
+      boolean idle = !in.ready();
+      if (chunk.size() == CHUNK_SIZE || idle) {
+        String[] batch = chunk.toArray(String[]::new);
+        pending.add(workers.submit(() -> apply(batch, errors)));
+        chunk.clear();
+      }
+      while (pending.size() > maxPending || (idle && !pending.isEmpty())) {
+        write(pending.poll(), out);
+      }
+      if (idle) {
+        out.flush();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      String[] batch = chunk.toArray(String[]::new);
+      pending.add(workers.submit(() -> apply(batch, errors)));
+    }
+    while (!pending.isEmpty()) {
+      write(pending.poll(), out);
+    }
+    out.flush();
+    return new Stats(lines, chars, errors.sum(), System.nanoTime() - start);
+  }
+
+  /** Stops the worker threads. */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+  private String[] apply(String[] lines, LongAdder errors) {
+    String[] results = new String[lines.length];
+    for (int i = 0; i < lines.length; i++) {
+      try {
+        results[i] = task.apply(lines[i]);
+      } catch (RuntimeException e) {
+        results[i] = "error: " + e.getMessage();
+        errors.increment();
+      }
+    }
+    return results;
+  }
+
+  private static void write(Future<String[]> chunk, Writer out) throws IOException {
+    String[] results;
+    try {
+      results = chunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for results", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Worker failed", e.getCause());
+    }
+    for (String result : results) {
+      out.write(result);
+      out.write('\n');
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.example.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link BatchProcessor} on a loopback socket. Each connection speaks the batch protocol:
+ * the client sends newline-delimited lines and receives one result line per input line, in order.
+ * Results are flushed whenever the client pauses, so the server can be used both for streaming
+ * whole files and for one request at a time.
+ */
+public final class BatchServer implements AutoCloseable {
+
+  private final BatchProcessor processor;
+  private final ServerSocket socket;
+  private final ExecutorService connections;
+  private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Starts accepting connections in the background.
+   *
+   * @param processor the processor shared by all connections
+   * @param port the port to listen on, or 0 for any free port
+   * @throws IOException if the socket cannot be bound
+   */
+  public BatchServer(BatchProcessor processor, int port) throws IOException {
+    this.processor = processor;
+    this.socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    this.connections =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              Thread thread = new Thread(runnable, "batch-connection");
+              thread.setDaemon(true);
+              return thread;
+            });
+    connections.execute(this::acceptLoop);
+  }
+
+  public int getPort() {
+    return socket.getLocalPort();
+  }
+
+  /**
+   * Stops accepting connections and closes the open ones, which wakes connection threads blocked
+   * reading from their clients.
+   */
+  @Override
+  public void close() throws IOException {
+    socket.close();
+    for (Socket client : clients) {
+      client.close();
+    }
+    connections.shutdownNow();
+  }
+
+  private void acceptLoop() {
+    while (!socket.isClosed()) {
+      try {
+        Socket client = socket.accept();
+        clients.add(client);
+        if (socket.isClosed()) {
+          // close() may have run before the client was tracked.
+          client.close();
+          return;
+        }
+        connections.execute(() -> serve(client));
+      } catch (SocketException e) {
+        return;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void serve(Socket client) {
+    try (client;
+        BufferedReader in =
+            new BufferedReader(
+                new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+        BufferedWriter out =
+            new BufferedWriter(
+                new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8),
+                1 << 16)) {
+      processor.process(in, out);
+    } catch (IOException e) {
+      // The client went away; nothing to report back to.
+    } finally {
+      clients.remove(client);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package org.example.corpus;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+import org.example.fa.impl.NDFiniteAutomaton;
+
+/**
+ * Generates parameterized NFA and ε-NFA families that are known to stress subset construction.
+ * Every generator is deterministic, so the same family and size always yield the same automaton.
+ */
+public final class AutomatonCorpus {
+
+  /** A family of automata, generated by size. */
+  public enum Family {
+    /** {@link #nthFromLast(int)}, converted with {@code convertToDFA}. */
+    NTH_FROM_LAST(false, AutomatonCorpus::nthFromLast),
+    /** {@link #epsilonChain(int)}, converted with {@code convertEpsilonNfaToDfa}. */
+    EPSILON_CHAIN(true, AutomatonCorpus::epsilonChain),
+    /** {@link #randomNfa(int, int, double, long)} over three symbols, with a fixed seed. */
+    RANDOM(false, size -> randomNfa(size, 3, 0.2, 42L)),
+    /** {@link #largeAlphabet(int)}, converted with {@code convertToDFA}. */
+    LARGE_ALPHABET(false, AutomatonCorpus::largeAlphabet);
+
+    private final boolean epsilon;
+    private final IntFunction<NDFiniteAutomaton> generator;
+
+    Family(boolean epsilon, IntFunction<NDFiniteAutomaton> generator) {
+      this.epsilon = epsilon;
+      this.generator = generator;
+    }
+
+    /**
+     * Generates the member of the family with the given size.
+     *
+     * @param size the family parameter
+     * @return the automaton
+     */
+    public NDFiniteAutomaton generate(int size) {
+      return generator.apply(size);
+    }
+
+    /**
+     * Returns whether the family uses ε-transitions and must be converted with {@code
+     * convertEpsilonNfaToDfa}.
+     *
+     * @return true for ε-NFA families
+     */
+    public boolean usesEpsilon() {
+      return epsilon;
+    }
+  }
+
+  private AutomatonCorpus() {}
+
+  /**
+   * Builds the NFA for {@code (a|b)*a(a|b)^n}, whose minimal DFA has {@code 2^(n+1)} states.
+   *
+   * @param n the number of symbols after the marked {@code a}
+   * @return the NFA
+   */
+  public static NDFiniteAutomaton nthFromLast(int n) {
+    requireNonNegative(n);
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(Set.of('a', 'b'));
+    for (int i = 0; i <= n + 1; i++) {
+      nfa.addState("q" + i, i == n + 1);
+    }
+    nfa.setStartState("q0");
+    nfa.addTransition("q0", 'a', "q0");
+    nfa.addTransition("q0", 'b', "q0");
+    nfa.addTransition("q0", 'a', "q1");
+    for (int i = 1; i <= n; i++) {
+      nfa.addTransition("q" + i, 'a', "q" + (i + 1));
+      nfa.addTransition("q" + i, 'b', "q" + (i + 1));
+    }
+    return nfa;
+  }
+
+  /**
+   * Builds an ε-NFA whose states form a chain of ε-transitions, so that every closure is as long as
+   * the rest of the chain. State {@code i} reads {@code a} back to the start and {@code b} to the
+   * state after it; only the last state accepts.
+   *
+   * @param length the number of ε-transitions in the chain
+   * @return the ε-NFA
+   */
+  public static NDFiniteAutomaton epsilonChain(int length) {
+    requireNonNegative(length);
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(Set.of('a', 'b'));
+    for (int i = 0; i <= length; i++) {
+      nfa.addState("q" + i, i == length);
+    }
+    nfa.setStartState("q0");
+    for (int i = 0; i < length; i++) {
+      nfa.addTransition("q" + i, 'ε', "q" + (i + 1));
+      nfa.addTransition("q" + i, 'a', "q0");
+      nfa.addTransition("q" + i, 'b', "q" + (i + 1));
+    }
+    return nfa;
+  }
+
+  /**
+   * Builds a random NFA in which every possible transition is present with a fixed probability.
+   *
+   * @param states the number of states
+   * @param symbols the alphabet size, starting at {@code 'a'}
+   * @param density the probability of each transition
+   * @param seed the random seed
+   * @return the NFA
+   */
+  public static NDFiniteAutomaton randomNfa(int states, int symbols, double density, long seed) {
+    if (states <= 0 || symbols <= 0 || symbols > 26) {
+      throw new IllegalArgumentException(
+          "Invalid random NFA shape: " + states + " states, " + symbols + " symbols");
+    }
+    Random random = new Random(seed);
+    Set<Character> sigma = new LinkedHashSet<>();
+    for (int a = 0; a < symbols; a++) {
+      sigma.add((char) ('a' + a));
+    }
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(sigma);
+    for (int i = 0; i < states; i++) {
+      nfa.addState("q" + i, random.nextInt(4) == 0);
+    }
+    nfa.setStartState("q0");
+    for (int i = 0; i < states; i++) {
+      for (char symbol : sigma) {
+        for (int j = 0; j < states; j++) {
+          if (random.nextDouble() < density) {
+            nfa.addTransition("q" + i, symbol, "q" + j);
+          }
+        }
+      }
+    }
+    return nfa;
+  }
+
+  /**
+   * Builds an NFA over {@code k} symbols that accepts words whose last symbol equals their first.
+   * Its DFA has {@code 2k + 1} states, but every state has {@code k} transitions.
+   *
+   * @param k the alphabet size
+   * @return the NFA
+   */
+  public static NDFiniteAutomaton largeAlphabet(int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("Alphabet size must be positive: " + k);
+    }
+    Set<Character> sigma = new LinkedHashSet<>();
+    for (int a = 0; a < k; a++) {
+      sigma.add((char) (0x4E00 + a));
+    }
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(sigma);
+    nfa.addState("start", false);
+    nfa.addState("end", true);
+    nfa.setStartState("start");
+    for (char first : sigma) {
+      String guess = "p" + (int) first;
+      nfa.addState(guess, false);
+      nfa.addTransition("start", first, guess);
+      nfa.addTransition("start", first, "end");
+      for (char symbol : sigma) {
+        nfa.addTransition(guess, symbol, guess);
+      }
+      nfa.addTransition(guess, first, "end");
+    }
+    return nfa;
+  }
+
+  private static void requireNonNegative(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Size must not be negative: " + size);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package org.example.derivation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * A recorded derivation in a grammar. Each step is kept as a triple {@code (position, nonterminal,
+ * production index)} in a primitive log, next to the parse tree built along the way. The
+ * intermediate sentential forms are not stored; {@link #getSententialForm(int)} and {@link
+ * #render()} replay the log when asked.
+ */
+public final class Derivation {
+
+  /** Picks the production to apply to a nonterminal. */
+  @FunctionalInterface
+  public interface Chooser {
+
+    /**
+     * Chooses a production.
+     *
+     * @param nonterminal the nonterminal being expanded
+     * @param step the number of steps taken so far
+     * @return the index of the production, or -1 to stop the derivation
+     */
+    int choose(char nonterminal, int step);
+  }
+
+  private final char start;
+  private final Map<Character, List<String>> productions;
+  private final ParseTree tree;
+  // Three entries per step: position, nonterminal, production index.
+  private int[] log = new int[48];
+  private int steps;
+  private String word;
+  private boolean complete;
+
+  private Derivation(char start, Map<Character, List<String>> productions) {
+    this.start = start;
+    this.productions = productions;
+    this.tree = new ParseTree(start);
+  }
+
+  /**
+   * Derives a sentential form by repeatedly expanding the leftmost nonterminal. A production
+   * {@code "ε"} or {@code ""} derives the empty string.
+   *
+   * @param start the start symbol
+   * @param productions the productions of each nonterminal
+   * @param isNonterminal tells which symbols are nonterminals
+   * @param chooser picks the production of each step
+   * @param maxSteps the maximum number of steps
+   * @return the derivation
+   */
+  public static Derivation leftmost(
+      char start,
+      Map<Character, List<String>> productions,
+      IntPredicate isNonterminal,
+      Chooser chooser,
+      int maxSteps) {
+    Derivation derivation = new Derivation(start, productions);
+    SententialForm form = new SententialForm(0, isNonterminal.test(start));
+    int position = form.leftmostNonterminal();
+    while (position >= 0 && derivation.steps < maxSteps) {
+      int node = form.get(position);
+      char nonterminal = derivation.tree.getSymbol(node);
+      int choice = chooser.choose(nonterminal, derivation.steps);
+      if (choice < 0) {
+        break;
+      }
+      String rhs = derivation.rhs(nonterminal, choice);
+      int first = derivation.tree.expand(node, choice, rhs);
+      int[] values = new int[rhs.length()];
+      boolean[] nonterminals = new boolean[rhs.length()];
+      for (int i = 0; i < rhs.length(); i++) {
+        values[i] = first + i;
+        nonterminals[i] = isNonterminal.test(rhs.charAt(i));
+      }
+      form.replace(position, values, nonterminals);
+      derivation.record(position, nonterminal, choice);
+      position = form.leftmostNonterminal();
+    }
+    StringBuilder word = new StringBuilder(form.length());
+    form.forEach(node -> word.append(derivation.tree.getSymbol(node)));
+    derivation.word = word.toString();
+    derivation.complete = position < 0;
+    return derivation;
+  }
+
+  public int getStepCount() {
+    return steps;
+  }
+
+  /**
+   * Returns the position of the nonterminal replaced in a step.
+   *
+   * @param step the step, from 0
+   * @return the position in the sentential form before the step
+   */
+  public int getPosition(int step) {
+    return log[checkStep(step) * 3];
+  }
+
+  /**
+   * Returns the nonterminal replaced in a step.
+   *
+   * @param step the step, from 0
+   * @return the nonterminal
+   */
+  public char getNonterminal(int step) {
+    return (char) log[checkStep(step) * 3 + 1];
+  }
+
+  /**
+   * Returns the index of the production applied in a step.
+   *
+   * @param step the step, from 0
+   * @return the index in the productions of the nonterminal
+   */
+  public int getProductionIndex(int step) {
+    return log[checkStep(step) * 3 + 2];
+  }
+
+  /**
+   * Returns the final sentential form. It is a word of the language if {@link #isComplete()}.
+   *
+   * @return the derived string
+   */
+  public String getWord() {
+    return word;
+  }
+
+  /**
+   * Checks if the derivation ended with no nonterminals left, rather than at the step limit or
+   * because the chooser stopped it.
+   *
+   * @return true if the derived string only holds terminals
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  public ParseTree getParseTree() {
+    return tree;
+  }
+
+  /**
+   * Rebuilds the sentential form after a number of steps by replaying the log.
+   *
+   * @param step the number of steps, from 0 to {@link #getStepCount()}
+   * @return the sentential form
+   */
+  public String getSententialForm(int step) {
+    if (step < 0 || step > steps) {
+      throw new IndexOutOfBoundsException("Step " + step + " of " + steps);
+    }
+    StringBuilder form = new StringBuilder().append(start);
+    for (int i = 0; i < step; i++) {
+      apply(form, i);
+    }
+    return form.toString();
+  }
+
+  /**
+   * Renders the whole derivation, for example {@code S -> aB -> ab}.
+   *
+   * @return the rendered derivation
+   */
+  public String render() {
+    StringBuilder form = new StringBuilder().append(start);
+    StringBuilder out = new StringBuilder().append(start);
+    for (int i = 0; i < steps; i++) {
+      apply(form, i);
+      out.append(" -> ").append(form);
+    }
+    return out.toString();
+  }
+
+  @Override
+  public String toString() {
+    return render();
+  }
+
+  private void apply(StringBuilder form, int step) {
+    int position = getPosition(step);
+    form.replace(position, position + 1, rhs(getNonterminal(step), getProductionIndex(step)));
+  }
+
+  private String rhs(char nonterminal, int production) {
+    String rhs = productions.get(nonterminal).get(production);
+    return rhs.equals("ε") ? "" : rhs;
+  }
+
+  private void record(int position, char nonterminal, int production) {
+    if (3 * steps == log.length) {
+      log = Arrays.copyOf(log, log.length * 2);
+    }
+    log[3 * steps] = position;
+    log[3 * steps + 1] = nonterminal;
+    log[3 * steps + 2] = production;
+    steps++;
+  }
+
+  private int checkStep(int step) {
+    if (step < 0 || step >= steps) {
+      throw new IndexOutOfBoundsException("Step " + step + " of " + steps);
+    }
+    return step;
+  }
+}
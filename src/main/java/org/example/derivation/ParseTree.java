@@ -0,0 +1,144 @@
+package org.example.derivation;
+
+import java.util.Arrays;
+
+/**
+ * The parse tree of a {@link Derivation}, stored in parallel arrays. Nodes are numbered in creation
+ * order, so the root is node 0; children are linked through first-child and next-sibling indexes.
+ * An expanded nonterminal records the index of the production applied to it.
+ */
+public final class ParseTree {
+
+  private char[] symbols = new char[16];
+  private int[] productions = new int[16];
+  private int[] firstChild = new int[16];
+  private int[] nextSibling = new int[16];
+  private int size;
+
+  ParseTree(char root) {
+    add(root);
+  }
+
+  public int getRoot() {
+    return 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the grammar symbol of a node, {@code 'ε'} for the leaf of an empty production.
+   *
+   * @param node the node
+   * @return the symbol
+   */
+  public char getSymbol(int node) {
+    return symbols[node];
+  }
+
+  /**
+   * Returns the index of the production applied to a node.
+   *
+   * @param node the node
+   * @return the production index, or -1 for terminals and unexpanded nonterminals
+   */
+  public int getProductionIndex(int node) {
+    return productions[node];
+  }
+
+  /**
+   * Returns the children of a node from left to right.
+   *
+   * @param node the node
+   * @return the child nodes
+   */
+  public int[] getChildren(int node) {
+    int count = 0;
+    for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+      count++;
+    }
+    int[] children = new int[count];
+    count = 0;
+    for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+      children[count++] = child;
+    }
+    return children;
+  }
+
+  /**
+   * Renders the tree in bracketed form, for example {@code S(a A(b))}.
+   *
+   * @return the rendered tree
+   */
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder();
+    // Non-negative entries are nodes to open, negative entries close the node ~entry.
+    int[] stack = new int[64];
+    int depth = 0;
+    stack[depth++] = 0;
+    boolean opened = true;
+    while (depth > 0) {
+      int entry = stack[--depth];
+      if (entry < 0) {
+        out.append(')');
+        continue;
+      }
+      if (!opened) {
+        out.append(' ');
+      }
+      out.append(symbols[entry]);
+      opened = false;
+      if (firstChild[entry] < 0) {
+        continue;
+      }
+      out.append('(');
+      opened = true;
+      int[] children = getChildren(entry);
+      if (depth + children.length + 1 > stack.length) {
+        stack = Arrays.copyOf(stack, 2 * (depth + children.length + 1));
+      }
+      stack[depth++] = ~entry;
+      for (int i = children.length - 1; i >= 0; i--) {
+        stack[depth++] = children[i];
+      }
+    }
+    return out.toString();
+  }
+
+  /** Expands a node with the given production and returns the first new child. */
+  int expand(int node, int production, String rhs) {
+    productions[node] = production;
+    int first = size;
+    int previous = -1;
+    for (int i = 0; i < rhs.length(); i++) {
+      int child = add(rhs.charAt(i));
+      if (previous < 0) {
+        firstChild[node] = child;
+      } else {
+        nextSibling[previous] = child;
+      }
+      previous = child;
+    }
+    if (rhs.isEmpty()) {
+      int leaf = add('ε');
+      firstChild[node] = leaf;
+    }
+    return first;
+  }
+
+  private int add(char symbol) {
+    if (size == symbols.length) {
+      symbols = Arrays.copyOf(symbols, size * 2);
+      productions = Arrays.copyOf(productions, size * 2);
+      firstChild = Arrays.copyOf(firstChild, size * 2);
+      nextSibling = Arrays.copyOf(nextSibling, size * 2);
+    }
+    symbols[size] = symbol;
+    productions[size] = -1;
+    firstChild[size] = -1;
+    nextSibling[size] = -1;
+    return size++;
+  }
+}
@@ -0,0 +1,189 @@
+package org.example.derivation;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A sequence of grammar symbols stored as an implicit treap, so that replacing a symbol by a
+ * production and finding the leftmost nonterminal both take expected O(log n) time. Every element
+ * holds an int value, here the parse tree node of the symbol, and a flag telling whether it is a
+ * nonterminal; each subtree counts its nonterminals.
+ */
+final class SententialForm {
+
+  // Node 0 is the empty tree.
+  private int[] left = new int[16];
+  private int[] right = new int[16];
+  private int[] priority = new int[16];
+  private int[] size = new int[16];
+  private int[] nonterminals = new int[16];
+  private int[] value = new int[16];
+  private boolean[] isNonterminal = new boolean[16];
+  private int nodeCount = 1;
+  private int root;
+  private int seed = 0x2545F491;
+
+  // The two halves produced by the last split.
+  private int splitLeft;
+  private int splitRight;
+
+  /**
+   * Creates a form holding a single symbol.
+   *
+   * @param value the value of the symbol
+   * @param nonterminal whether the symbol is a nonterminal
+   */
+  SententialForm(int value, boolean nonterminal) {
+    root = node(value, nonterminal);
+  }
+
+  int length() {
+    return size[root];
+  }
+
+  /**
+   * Finds the leftmost nonterminal.
+   *
+   * @return its position, or -1 if the form only holds terminals
+   */
+  int leftmostNonterminal() {
+    if (nonterminals[root] == 0) {
+      return -1;
+    }
+    int t = root;
+    int position = 0;
+    while (true) {
+      if (nonterminals[left[t]] > 0) {
+        t = left[t];
+      } else if (isNonterminal[t]) {
+        return position + size[left[t]];
+      } else {
+        position += size[left[t]] + 1;
+        t = right[t];
+      }
+    }
+  }
+
+  /**
+   * Returns the value of the symbol at a position.
+   *
+   * @param position the position
+   * @return the value
+   */
+  int get(int position) {
+    int t = root;
+    while (true) {
+      if (position < size[left[t]]) {
+        t = left[t];
+      } else if (position == size[left[t]]) {
+        return value[t];
+      } else {
+        position -= size[left[t]] + 1;
+        t = right[t];
+      }
+    }
+  }
+
+  /**
+   * Replaces the symbol at a position by a sequence of symbols, which may be empty.
+   *
+   * @param position the position of the replaced symbol
+   * @param values the values of the new symbols
+   * @param nonterminal whether each new symbol is a nonterminal
+   */
+  void replace(int position, int[] values, boolean[] nonterminal) {
+    split(root, position);
+    int before = splitLeft;
+    split(splitRight, 1);
+    int after = splitRight;
+    int middle = 0;
+    for (int i = 0; i < values.length; i++) {
+      middle = merge(middle, node(values[i], nonterminal[i]));
+    }
+    root = merge(merge(before, middle), after);
+  }
+
+  /**
+   * Visits the values from left to right.
+   *
+   * @param consumer the visitor
+   */
+  void forEach(IntConsumer consumer) {
+    int[] stack = new int[64];
+    int depth = 0;
+    int t = root;
+    while (t != 0 || depth > 0) {
+      while (t != 0) {
+        if (depth == stack.length) {
+          stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = t;
+        t = left[t];
+      }
+      t = stack[--depth];
+      consumer.accept(value[t]);
+      t = right[t];
+    }
+  }
+
+  private int node(int nodeValue, boolean nonterminal) {
+    if (nodeCount == size.length) {
+      int capacity = nodeCount * 2;
+      left = Arrays.copyOf(left, capacity);
+      right = Arrays.copyOf(right, capacity);
+      priority = Arrays.copyOf(priority, capacity);
+      size = Arrays.copyOf(size, capacity);
+      nonterminals = Arrays.copyOf(nonterminals, capacity);
+      value = Arrays.copyOf(value, capacity);
+      isNonterminal = Arrays.copyOf(isNonterminal, capacity);
+    }
+    int t = nodeCount++;
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    priority[t] = seed;
+    size[t] = 1;
+    nonterminals[t] = nonterminal ? 1 : 0;
+    value[t] = nodeValue;
+    isNonterminal[t] = nonterminal;
+    return t;
+  }
+
+  /** Splits a tree into its first {@code k} symbols and the rest. */
+  private void split(int t, int k) {
+    if (t == 0) {
+      splitLeft = 0;
+      splitRight = 0;
+    } else if (size[left[t]] < k) {
+      split(right[t], k - size[left[t]] - 1);
+      right[t] = splitLeft;
+      update(t);
+      splitLeft = t;
+    } else {
+      split(left[t], k);
+      left[t] = splitRight;
+      update(t);
+      splitRight = t;
+    }
+  }
+
+  private int merge(int a, int b) {
+    if (a == 0 || b == 0) {
+      return a + b;
+    }
+    if (priority[a] > priority[b]) {
+      right[a] = merge(right[a], b);
+      update(a);
+      return a;
+    }
+    left[b] = merge(a, left[b]);
+    update(b);
+    return b;
+  }
+
+  private void update(int t) {
+    size[t] = size[left[t]] + size[right[t]] + 1;
+    nonterminals[t] =
+        nonterminals[left[t]] + nonterminals[right[t]] + (isNonterminal[t] ? 1 : 0);
+  }
+}
@@ -0,0 +1,37 @@
+package org.example.fa;
+
+/**
+ * A deterministic automaton compiled to integer states for fast matching. States are numbered
+ * {@code 0..getStateCount() - 1}; {@code -1} stands for the implicit dead state.
+ */
+public interface CompiledDfa {
+
+  int getStartState();
+
+  int getStateCount();
+
+  /**
+   * Follows a transition.
+   *
+   * @param state the current state
+   * @param symbol the input symbol
+   * @return the next state, or -1 if there is no transition
+   */
+  int next(int state, char symbol);
+
+  boolean isAccepting(int state);
+
+  /**
+   * Checks if a string is accepted by the automaton.
+   *
+   * @param input the input string
+   * @return true if the string is accepted, false otherwise
+   */
+  default boolean matches(CharSequence input) {
+    int state = getStartState();
+    for (int i = 0; i < input.length() && state != -1; i++) {
+      state = next(state, input.charAt(i));
+    }
+    return state != -1 && isAccepting(state);
+  }
+}
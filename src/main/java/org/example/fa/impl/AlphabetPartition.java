@@ -0,0 +1,135 @@
+package org.example.fa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A partition of the characters into classes that behave identically in every state of an
+ * automaton, so that transition tables need one column per class instead of one per character.
+ *
+ * <p>Class 0 holds every character outside the alphabet, which always leads to the dead state. The
+ * class of a character is a single array lookup: the map has 256 entries when the whole alphabet is
+ * Latin-1 and 65536 entries otherwise.
+ */
+public final class AlphabetPartition {
+
+  private final char[] symbols;
+  private final int[] symbolClasses;
+  private final int classCount;
+  private final char[] classMap;
+
+  private AlphabetPartition(char[] symbols, int[] symbolClasses, int classCount) {
+    this.symbols = symbols;
+    this.symbolClasses = symbolClasses;
+    this.classCount = classCount;
+    boolean latin1 = symbols.length == 0 || symbols[symbols.length - 1] < 256;
+    this.classMap = new char[latin1 ? 256 : 65536];
+    for (int a = 0; a < symbols.length; a++) {
+      classMap[symbols[a]] = (char) symbolClasses[a];
+    }
+  }
+
+  /**
+   * Groups the columns of a transition table with one column per symbol.
+   *
+   * @param symbols the sorted symbols
+   * @param transitions the table, row by row
+   * @param stateCount the number of rows
+   * @return the partition of the symbols
+   */
+  static AlphabetPartition of(char[] symbols, int[] transitions, int stateCount) {
+    int[] classes = group(transitions, stateCount, symbols.length);
+    int classCount = 1;
+    for (int c : classes) {
+      classCount = Math.max(classCount, c + 1);
+    }
+    return new AlphabetPartition(symbols, classes, classCount);
+  }
+
+  /**
+   * Numbers the distinct columns of a table from 1, giving equal columns the same number.
+   *
+   * @param transitions the table, row by row
+   * @param rows the number of rows
+   * @param columns the number of columns
+   * @return the class of each column
+   */
+  static int[] group(int[] transitions, int rows, int columns) {
+    int[] classes = new int[columns];
+    List<int[]> representatives = new ArrayList<>();
+    Map<Integer, List<Integer>> byHash = new HashMap<>();
+    for (int a = 0; a < columns; a++) {
+      int[] column = new int[rows];
+      for (int s = 0; s < rows; s++) {
+        column[s] = transitions[s * columns + a];
+      }
+      List<Integer> candidates =
+          byHash.computeIfAbsent(Arrays.hashCode(column), h -> new ArrayList<>());
+      int found = -1;
+      for (int candidate : candidates) {
+        if (Arrays.equals(representatives.get(candidate), column)) {
+          found = candidate;
+          break;
+        }
+      }
+      if (found < 0) {
+        found = representatives.size();
+        representatives.add(column);
+        candidates.add(found);
+      }
+      classes[a] = found + 1;
+    }
+    return classes;
+  }
+
+  /**
+   * Returns the class of a character.
+   *
+   * @param symbol the character
+   * @return the class, 0 if the character is not in the alphabet
+   */
+  public int classOf(char symbol) {
+    return symbol < classMap.length ? classMap[symbol] : 0;
+  }
+
+  /**
+   * Returns the number of classes, including class 0 for characters outside the alphabet.
+   *
+   * @return the class count
+   */
+  public int getClassCount() {
+    return classCount;
+  }
+
+  /**
+   * Returns the alphabet characters in a class.
+   *
+   * @param symbolClass the class, from 1
+   * @return the sorted characters of the class
+   */
+  public char[] getMembers(int symbolClass) {
+    StringBuilder members = new StringBuilder();
+    for (int a = 0; a < symbols.length; a++) {
+      if (symbolClasses[a] == symbolClass) {
+        members.append(symbols[a]);
+      }
+    }
+    return members.toString().toCharArray();
+  }
+
+  /**
+   * Checks if the class map has only 256 entries because the alphabet is Latin-1.
+   *
+   * @return true for the compact map
+   */
+  public boolean isCompact() {
+    return classMap.length == 256;
+  }
+
+  char[] classMap() {
+    return classMap;
+  }
+}
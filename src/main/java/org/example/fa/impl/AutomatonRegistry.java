@@ -0,0 +1,341 @@
+package org.example.fa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.example.fa.CompiledDfa;
+
+/**
+ * Stores many automata in one shared, append-only state table, hash-consing them at two levels.
+ *
+ * <p>Every registered automaton is minimized, so each of its states is determined by its right
+ * language, the set of words accepted from it. A state is looked up by a 64-bit hash of the
+ * canonical form of the automaton rooted at it, and a hit is confirmed by comparing that automaton
+ * with the stored one in lockstep, so suffix-equivalent states of different automata are stored
+ * once and the compiled views of the entries point into the same rows. Automata with the same
+ * language end at the same start state and share a single {@link Entry}, which counts its
+ * references.
+ *
+ * <p>Hashing costs a traversal per state, which is meant for many small automata. Methods are
+ * synchronized; the compiled views are immutable and can be used from any thread.
+ */
+public final class AutomatonRegistry {
+
+  // Rough heap sizes used for the memory report.
+  private static final int MAP_STATE_BYTES = 120;
+  private static final int MAP_TRANSITION_BYTES = 64;
+  private static final int ROW_BYTES = 48;
+  private static final int EDGE_BYTES = 6;
+  private static final int STATE_KEY_BYTES = 72;
+  private static final int ENTRY_BYTES = 96;
+
+  // Entries by the global id of their start state.
+  private final Map<Integer, Entry> entries = new HashMap<>();
+  // Global state ids by the hash of their canonical form; collisions share an array.
+  private final Map<Long, int[]> stateIds = new HashMap<>();
+  private char[][] labels = new char[16][];
+  private int[][] targets = new int[16][];
+  private long[] accepting = new long[1];
+  private int stateCount;
+  private long registrations;
+  private long unsharedBytes;
+
+  /**
+   * A distinct automaton held by the registry.
+   *
+   * <p>The compiled view stays valid after the entry is released.
+   */
+  public static final class Entry {
+    private final int start;
+    private final CompiledDfa dfa;
+    private final int stateCount;
+    private int references;
+
+    private Entry(int start, CompiledDfa dfa, int stateCount) {
+      this.start = start;
+      this.dfa = dfa;
+      this.stateCount = stateCount;
+    }
+
+    /**
+     * Returns the compiled view of the minimal automaton, whose states are rows of the shared
+     * table.
+     *
+     * @return the compiled automaton
+     */
+    public CompiledDfa getDfa() {
+      return dfa;
+    }
+
+    /**
+     * Returns the number of states of the minimal automaton.
+     *
+     * @return the state count
+     */
+    public int getStateCount() {
+      return stateCount;
+    }
+
+    /**
+     * Returns how many registrations currently hold this entry.
+     *
+     * @return the reference count
+     */
+    public synchronized int getReferenceCount() {
+      return references;
+    }
+  }
+
+  /**
+   * A summary of the registry.
+   *
+   * @param registrations the number of automata registered so far
+   * @param liveEntries the number of distinct automata with references
+   * @param sharedStates the number of rows in the shared state table
+   * @param unsharedBytes the estimated heap size of all registered automata held separately
+   * @param sharedBytes the estimated heap size of the shared state table and its lookup maps
+   */
+  public record Stats(
+      long registrations, int liveEntries, int sharedStates, long unsharedBytes, long sharedBytes) {
+
+    /**
+     * Returns the estimated memory saved by sharing.
+     *
+     * @return the saved bytes, never negative
+     */
+    public long bytesSaved() {
+      return Math.max(0, unsharedBytes - sharedBytes);
+    }
+  }
+
+  /**
+   * Registers an automaton and returns the entry holding its language, adding a reference.
+   *
+   * @param dfa the automaton
+   * @return the shared entry
+   */
+  public synchronized Entry register(DFiniteAutomaton dfa) {
+    registrations++;
+    unsharedBytes += estimateBytes(dfa);
+    DFiniteAutomaton minimal = dfa.minimize();
+    int n = minimal.getStates().size();
+    char[][] localLabels = new char[n][];
+    int[][] localTargets = new int[n][];
+    boolean[] localAccepting = new boolean[n];
+    for (int s = 0; s < n; s++) {
+      TreeMap<Character, String> row =
+          new TreeMap<>(minimal.getTransitions().getOrDefault("q" + s, Map.of()));
+      localLabels[s] = new char[row.size()];
+      localTargets[s] = new int[row.size()];
+      int e = 0;
+      for (Map.Entry<Character, String> edge : row.entrySet()) {
+        localLabels[s][e] = edge.getKey();
+        localTargets[s][e] = Integer.parseInt(edge.getValue().substring(1));
+        e++;
+      }
+      localAccepting[s] = minimal.getAcceptStates().contains("q" + s);
+    }
+
+    long[] hashes = new long[n];
+    int[] global = new int[n];
+    for (int s = 0; s < n; s++) {
+      hashes[s] = hash(s, localLabels, localTargets, localAccepting);
+      global[s] = -1;
+      for (int id : stateIds.getOrDefault(hashes[s], new int[0])) {
+        if (sameLanguage(s, id, localLabels, localTargets, localAccepting)) {
+          global[s] = id;
+          break;
+        }
+      }
+    }
+    Entry entry = global[0] == -1 ? null : entries.get(global[0]);
+    if (entry == null) {
+      List<Integer> added = new ArrayList<>();
+      for (int s = 0; s < n; s++) {
+        if (global[s] == -1) {
+          global[s] = addState(localLabels[s], localAccepting[s]);
+          int[] ids = stateIds.getOrDefault(hashes[s], new int[0]);
+          ids = Arrays.copyOf(ids, ids.length + 1);
+          ids[ids.length - 1] = global[s];
+          stateIds.put(hashes[s], ids);
+          added.add(s);
+        }
+      }
+      for (int s : added) {
+        int[] row = new int[localTargets[s].length];
+        for (int e = 0; e < row.length; e++) {
+          row[e] = global[localTargets[s][e]];
+        }
+        targets[global[s]] = row;
+      }
+      CompiledDfa view = new SharedDfa(labels, targets, accepting.clone(), stateCount, global[0]);
+      entry = new Entry(global[0], view, n);
+      entries.put(global[0], entry);
+    }
+    synchronized (entry) {
+      entry.references++;
+    }
+    return entry;
+  }
+
+  /**
+   * Drops a reference to an entry. An entry without references is forgotten, so registering the
+   * same language again creates a new entry; its states stay in the shared table.
+   *
+   * @param entry the entry
+   */
+  public synchronized void release(Entry entry) {
+    synchronized (entry) {
+      if (entry.references == 0) {
+        throw new IllegalStateException("The entry has no references left");
+      }
+      entry.references--;
+      if (entry.references == 0) {
+        entries.remove(entry.start);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of distinct automata that still have references.
+   *
+   * @return the entry count
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Reports the sharing achieved so far.
+   *
+   * @return the statistics
+   */
+  public synchronized Stats getStats() {
+    long sharedBytes = (long) ENTRY_BYTES * entries.size();
+    for (int s = 0; s < stateCount; s++) {
+      sharedBytes += ROW_BYTES + STATE_KEY_BYTES + (long) EDGE_BYTES * labels[s].length;
+    }
+    return new Stats(registrations, entries.size(), stateCount, unsharedBytes, sharedBytes);
+  }
+
+  private int addState(char[] rowLabels, boolean isAccepting) {
+    if (stateCount == labels.length) {
+      labels = Arrays.copyOf(labels, stateCount * 2);
+      targets = Arrays.copyOf(targets, stateCount * 2);
+    }
+    if (stateCount >>> 6 == accepting.length) {
+      accepting = Arrays.copyOf(accepting, accepting.length * 2);
+    }
+    labels[stateCount] = rowLabels;
+    if (isAccepting) {
+      accepting[stateCount >>> 6] |= 1L << stateCount;
+    }
+    return stateCount++;
+  }
+
+  /**
+   * Hashes the automaton rooted at a state, encoded in breadth-first order over the sorted labels,
+   * so that equal right languages of minimal automata get equal hashes.
+   */
+  private static long hash(int root, char[][] labels, int[][] targets, boolean[] accepting) {
+    int[] order = new int[labels.length];
+    Arrays.fill(order, -1);
+    List<Integer> queue = new ArrayList<>(List.of(root));
+    order[root] = 0;
+    long hash = 17;
+    for (int i = 0; i < queue.size(); i++) {
+      int s = queue.get(i);
+      hash = mix(hash, accepting[s] ? 1 : 0);
+      hash = mix(hash, labels[s].length);
+      for (int e = 0; e < labels[s].length; e++) {
+        int t = targets[s][e];
+        if (order[t] < 0) {
+          order[t] = queue.size();
+          queue.add(t);
+        }
+        hash = mix(mix(hash, labels[s][e]), order[t]);
+      }
+    }
+    return hash ^ hash >>> 31;
+  }
+
+  private static long mix(long hash, int value) {
+    return (hash + value) * 0x9E3779B97F4A7C15L;
+  }
+
+  /** Compares a local state with a stored one by walking both automata in lockstep. */
+  private boolean sameLanguage(
+      int root, int id, char[][] localLabels, int[][] localTargets, boolean[] localAccepting) {
+    int[] mapped = new int[localLabels.length];
+    Arrays.fill(mapped, -1);
+    mapped[root] = id;
+    List<Integer> queue = new ArrayList<>(List.of(root));
+    for (int i = 0; i < queue.size(); i++) {
+      int s = queue.get(i);
+      int g = mapped[s];
+      boolean globalAccepting = (accepting[g >>> 6] & (1L << g)) != 0;
+      if (localAccepting[s] != globalAccepting || !Arrays.equals(localLabels[s], labels[g])) {
+        return false;
+      }
+      for (int e = 0; e < localLabels[s].length; e++) {
+        int t = localTargets[s][e];
+        if (mapped[t] == -1) {
+          mapped[t] = targets[g][e];
+          queue.add(t);
+        } else if (mapped[t] != targets[g][e]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static long estimateBytes(DFiniteAutomaton dfa) {
+    long transitions = 0;
+    for (Map<Character, String> row : dfa.getTransitions().values()) {
+      transitions += row.size();
+    }
+    return (long) MAP_STATE_BYTES * dfa.getStates().size() + MAP_TRANSITION_BYTES * transitions;
+  }
+
+  /** A view of an entry over a snapshot of the shared table, which only ever grows. */
+  private static final class SharedDfa implements CompiledDfa {
+    private final char[][] labels;
+    private final int[][] targets;
+    private final long[] accepting;
+    private final int stateCount;
+    private final int start;
+
+    SharedDfa(char[][] labels, int[][] targets, long[] accepting, int stateCount, int start) {
+      this.labels = labels;
+      this.targets = targets;
+      this.accepting = accepting;
+      this.stateCount = stateCount;
+      this.start = start;
+    }
+
+    @Override
+    public int getStartState() {
+      return start;
+    }
+
+    @Override
+    public int getStateCount() {
+      return stateCount;
+    }
+
+    @Override
+    public int next(int state, char symbol) {
+      int e = Arrays.binarySearch(labels[state], symbol);
+      return e < 0 ? -1 : targets[state][e];
+    }
+
+    @Override
+    public boolean isAccepting(int state) {
+      return (accepting[state >>> 6] & (1L << state)) != 0;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package org.example.fa.impl;
+
+/**
+ * Lets another thread stop a long-running operation. Cancellation is cooperative: the operation
+ * polls the token between steps.
+ */
+public final class CancellationToken {
+
+  private volatile boolean cancelled;
+
+  /** Requests cancellation. */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+}
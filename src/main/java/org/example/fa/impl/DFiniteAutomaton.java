@@ -1,31 +1,59 @@
 package org.example.fa.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.example.Grammar;
 import org.example.fa.FiniteAutomation;
+import org.example.metrics.AutomatonMetricsListener;
+import org.example.metrics.Metrics;
 
-/** Represents a Deterministic finite automaton. */
+/**
+ * Represents a Deterministic finite automaton.
+ *
+ * <p>Instances are mutable builders and are not safe to modify while other threads read them. The
+ * getters return read-only views; use {@link #freeze()} to obtain an immutable snapshot that can be
+ * shared freely between threads.
+ */
 public class DFiniteAutomaton implements FiniteAutomation {
 
   private final Set<String> states;
   private final Set<Character> sigma;
 
   private final Map<String, Map<Character, String>> transitions;
+  // Read-only views of the rows of the transition map, handed out by getTransitions().
+  private final Map<String, Map<Character, String>> transitionViews;
 
   private String startState;
 
   private final Set<String> acceptStates;
 
+  // Co-reachable states, computed on first use and dropped by every change.
+  private volatile Liveness liveness;
+
+  // Set by seal(); afterwards every change throws.
+  private volatile boolean sealed;
+
+  /**
+   * The states from which an accept state can be reached.
+   *
+   * @param states the live states
+   * @param anyDead whether some known state is not live
+   */
+  private record Liveness(Set<String> states, boolean anyDead) {}
+
   public DFiniteAutomaton(final Set<Character> sigma) {
     this.states = new HashSet<>();
-    this.sigma = sigma;
+    this.sigma = new LinkedHashSet<>(sigma);
     this.transitions = new HashMap<>();
+    this.transitionViews = new HashMap<>();
     this.acceptStates = new HashSet<>();
   }
 
@@ -36,8 +64,10 @@ public class DFiniteAutomaton implements FiniteAutomation {
    */
   @Override
   public void setStartState(final String startState) {
+    requireUnsealed();
     this.startState = startState;
     states.add(startState);
+    liveness = null;
   }
 
   /**
@@ -48,11 +78,13 @@ public class DFiniteAutomaton implements FiniteAutomation {
    */
   @Override
   public void addState(final String state, final boolean isAcceptState) {
+    requireUnsealed();
     states.add(state);
     if (isAcceptState) {
       acceptStates.add(state);
     }
-    transitions.putIfAbsent(state, new HashMap<>());
+    row(state);
+    liveness = null;
   }
 
   /**
@@ -64,8 +96,46 @@ public class DFiniteAutomaton implements FiniteAutomation {
    */
   @Override
   public void addTransition(final String fromState, final char input, final String toState) {
-    transitions.putIfAbsent(fromState, new HashMap<>());
-    transitions.get(fromState).put(input, toState);
+    requireUnsealed();
+    row(fromState).put(input, toState);
+    liveness = null;
+  }
+
+  /**
+   * Makes this automaton read-only, so that it can be shared between callers that must not change
+   * it. Every later call to a method that modifies it throws {@link IllegalStateException}.
+   *
+   * @return this automaton
+   */
+  public DFiniteAutomaton seal() {
+    sealed = true;
+    return this;
+  }
+
+  public boolean isSealed() {
+    return sealed;
+  }
+
+  private void requireUnsealed() {
+    if (sealed) {
+      throw new IllegalStateException("The automaton is sealed and cannot be modified");
+    }
+  }
+
+  /**
+   * Returns the mutable transition row of a state, creating it if needed.
+   *
+   * @param state the state
+   * @return the transitions leaving the state
+   */
+  private Map<Character, String> row(final String state) {
+    Map<Character, String> row = transitions.get(state);
+    if (row == null) {
+      row = new HashMap<>();
+      transitions.put(state, row);
+      transitionViews.put(state, Collections.unmodifiableMap(row));
+    }
+    return row;
   }
 
   /**
@@ -76,27 +146,112 @@ public class DFiniteAutomaton implements FiniteAutomation {
    */
   @Override
   public boolean isStringAccepted(final String input) {
+    AutomatonMetricsListener listener = Metrics.listener();
+    if (listener == null) {
+      return accepts(input);
+    }
+    listener.beforeMatch();
+    long start = System.nanoTime();
+    boolean accepted = accepts(input);
+    listener.onMatch(input.length(), accepted, System.nanoTime() - start);
+    return accepted;
+  }
+
+  /**
+   * Runs the automaton over the input without instrumentation.
+   *
+   * @param input the input string
+   * @return true if the string is accepted, false otherwise
+   */
+  private boolean accepts(final String input) {
+    Liveness live = liveness();
     String currentState = startState;
-    for (char symbol : input.toCharArray()) {
+    if (live.anyDead() && !live.states().contains(currentState)) {
+      return false;
+    }
+    for (int i = 0; i < input.length(); i++) {
+      char symbol = input.charAt(i);
       Map<Character, String> currentTransitions = transitions.get(currentState);
-      if (currentTransitions == null || !currentTransitions.containsKey(symbol)) {
+      currentState = currentTransitions == null ? null : currentTransitions.get(symbol);
+      // Stop as soon as no accept state can be reached any more.
+      if (currentState == null || (live.anyDead() && !live.states().contains(currentState))) {
         return false;
       }
-      currentState = currentTransitions.get(symbol);
     }
     return acceptStates.contains(currentState);
   }
 
+  /**
+   * Checks if a prefix can still be completed to an accepted string, which is useful for
+   * validating streaming input as it arrives.
+   *
+   * @param prefix the input read so far
+   * @return true if some continuation of the prefix, possibly empty, is accepted
+   */
+  public boolean canStillAccept(final String prefix) {
+    String currentState = startState;
+    for (int i = 0; i < prefix.length() && currentState != null; i++) {
+      Map<Character, String> currentTransitions = transitions.get(currentState);
+      currentState = currentTransitions == null ? null : currentTransitions.get(prefix.charAt(i));
+    }
+    return currentState != null && liveness().states().contains(currentState);
+  }
+
+  /**
+   * Returns the live states, from which an accept state can be reached. They are computed once
+   * with a reverse breadth-first search from the accept states and cached until the automaton
+   * changes.
+   *
+   * @return the live states
+   */
+  public Set<String> getLiveStates() {
+    return liveness().states();
+  }
+
+  private Liveness liveness() {
+    Liveness live = liveness;
+    if (live == null) {
+      live = computeLiveness();
+      liveness = live;
+    }
+    return live;
+  }
+
+  private Liveness computeLiveness() {
+    Set<String> known = new HashSet<>(states);
+    Map<String, List<String>> predecessors = new HashMap<>();
+    transitions.forEach(
+        (state, row) -> {
+          known.add(state);
+          row.values()
+              .forEach(
+                  target -> {
+                    known.add(target);
+                    predecessors.computeIfAbsent(target, key -> new ArrayList<>()).add(state);
+                  });
+        });
+    Set<String> live = new HashSet<>(acceptStates);
+    List<String> queue = new ArrayList<>(acceptStates);
+    for (int i = 0; i < queue.size(); i++) {
+      for (String predecessor : predecessors.getOrDefault(queue.get(i), List.of())) {
+        if (live.add(predecessor)) {
+          queue.add(predecessor);
+        }
+      }
+    }
+    return new Liveness(Collections.unmodifiableSet(live), !live.containsAll(known));
+  }
+
   public Set<String> getStates() {
-    return states;
+    return Collections.unmodifiableSet(states);
   }
 
   public Set<Character> getSigma() {
-    return sigma;
+    return Collections.unmodifiableSet(sigma);
   }
 
   public Map<String, Map<Character, String>> getTransitions() {
-    return transitions;
+    return Collections.unmodifiableMap(transitionViews);
   }
 
   public String getStartState() {
@@ -104,7 +259,109 @@ public class DFiniteAutomaton implements FiniteAutomation {
   }
 
   public Set<String> getAcceptStates() {
-    return acceptStates;
+    return Collections.unmodifiableSet(acceptStates);
+  }
+
+  /**
+   * Takes an immutable snapshot of the states reachable from the start state. The snapshot is a
+   * compact table with only final fields, so it is safely published and can be matched against
+   * from any number of threads without synchronization. Later changes to this automaton do not
+   * affect it.
+   *
+   * @return the frozen automaton
+   */
+  public DfaTable freeze() {
+    return DfaTable.of(this);
+  }
+
+  /**
+   * Builds the minimal DFA that accepts the same language. Unreachable states and states from which
+   * no accept state can be reached are dropped; the remaining states are renamed {@code q0..qn}.
+   *
+   * @return the minimal equivalent DFA
+   */
+  public DFiniteAutomaton minimize() {
+    return Minimizer.minimize(this);
+  }
+
+  /**
+   * Checks whether this automaton accepts the same language as another one.
+   *
+   * @param other the other automaton
+   * @return true if the languages are equal
+   * @see #findCounterexample(DFiniteAutomaton)
+   */
+  public boolean isEquivalent(final DFiniteAutomaton other) {
+    return findCounterexample(other).isEmpty();
+  }
+
+  /**
+   * Finds a shortest string accepted by exactly one of this automaton and another one, using the
+   * Hopcroft–Karp union-find algorithm. Missing transitions lead to an implicit dead state, and the
+   * search stops at the first distinguishing pair of states.
+   *
+   * @param other the other automaton
+   * @return a shortest counterexample, or empty if the languages are equal
+   */
+  public Optional<String> findCounterexample(final DFiniteAutomaton other) {
+    return EquivalenceChecker.findCounterexample(this, other);
+  }
+
+  /**
+   * Returns a lazy matcher for the strings accepted by both this automaton and another one.
+   *
+   * @param other the other automaton
+   * @return the lazy product
+   */
+  public ProductAutomaton intersect(final DFiniteAutomaton other) {
+    return new ProductAutomaton(this, other, ProductAutomaton.Operation.INTERSECTION);
+  }
+
+  /**
+   * Returns a lazy matcher for the strings accepted by this automaton or another one.
+   *
+   * @param other the other automaton
+   * @return the lazy product
+   */
+  public ProductAutomaton union(final DFiniteAutomaton other) {
+    return new ProductAutomaton(this, other, ProductAutomaton.Operation.UNION);
+  }
+
+  /**
+   * Returns a lazy matcher for the strings accepted by this automaton but not by another one.
+   *
+   * @param other the other automaton
+   * @return the lazy product
+   */
+  public ProductAutomaton difference(final DFiniteAutomaton other) {
+    return new ProductAutomaton(this, other, ProductAutomaton.Operation.DIFFERENCE);
+  }
+
+  /**
+   * Checks if some accepted string is within the given edit distance of the input. The automaton
+   * is explored lazily together with the {@link LevenshteinAutomaton} of the input.
+   *
+   * @param input the input string
+   * @param distance the maximum edit distance, between 1 and {@link
+   *     LevenshteinAutomaton#MAX_DISTANCE}
+   * @return true if an accepted string is at most {@code distance} edits away
+   */
+  public boolean acceptsWithinDistance(final String input, final int distance) {
+    return FuzzyMatcher.acceptsWithin(this, input, distance);
+  }
+
+  /**
+   * Finds accepted strings within the given edit distance of the input, for example to suggest
+   * corrections from a dictionary automaton.
+   *
+   * @param input the input string
+   * @param distance the maximum edit distance, between 1 and {@link
+   *     LevenshteinAutomaton#MAX_DISTANCE}
+   * @param limit the maximum number of strings to return
+   * @return the matching strings in lexicographic order
+   */
+  public List<String> findWithinDistance(final String input, final int distance, final int limit) {
+    return FuzzyMatcher.findWithin(this, input, distance, limit);
   }
 
   /**
@@ -0,0 +1,75 @@
+package org.example.fa.impl;
+
+import org.example.fa.CompiledDfa;
+
+/**
+ * An immutable minimal acyclic DFA built by {@link DawgBuilder}. Edges are stored in compressed
+ * rows: the edges of state {@code s} occupy {@code offsets[s] .. offsets[s + 1]} of the label and
+ * target arrays, sorted by label, so a transition is a binary search within a short row.
+ */
+public final class Dawg implements CompiledDfa {
+
+  private final int[] offsets;
+  private final char[] labels;
+  private final int[] targets;
+  private final long[] accepting;
+  private final int wordCount;
+
+  Dawg(int[] offsets, char[] labels, int[] targets, long[] accepting, int wordCount) {
+    this.offsets = offsets;
+    this.labels = labels;
+    this.targets = targets;
+    this.accepting = accepting;
+    this.wordCount = wordCount;
+  }
+
+  @Override
+  public int getStartState() {
+    return 0;
+  }
+
+  @Override
+  public int getStateCount() {
+    return offsets.length - 1;
+  }
+
+  @Override
+  public int next(int state, char symbol) {
+    int low = offsets[state];
+    int high = offsets[state + 1] - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (labels[mid] < symbol) {
+        low = mid + 1;
+      } else if (labels[mid] > symbol) {
+        high = mid - 1;
+      } else {
+        return targets[mid];
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean isAccepting(int state) {
+    return (accepting[state >>> 6] & (1L << state)) != 0;
+  }
+
+  /**
+   * Checks if a word is in the dictionary.
+   *
+   * @param word the word
+   * @return true if the word was added to the builder
+   */
+  public boolean contains(CharSequence word) {
+    return matches(word);
+  }
+
+  public int getWordCount() {
+    return wordCount;
+  }
+
+  public int getEdgeCount() {
+    return labels.length;
+  }
+}
@@ -0,0 +1,255 @@
+package org.example.fa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the minimal acyclic DFA (DAWG) of a word list in a single pass, using the algorithm of
+ * Daciuk, Mihov, Watson and Watson for sorted input.
+ *
+ * <p>Words must be added in ascending {@link String#compareTo} order. Only the path of the last
+ * word is still mutable; whenever the next word leaves that path, the abandoned suffix is merged
+ * into a register of finished states, replacing each state by an equivalent registered one if there
+ * is one. Memory is therefore proportional to the minimal automaton plus the longest word.
+ */
+public class DawgBuilder {
+
+  private final Node root = new Node();
+  // Finished states, keyed by their right language: finality, labels and (registered) targets.
+  private final Map<Node, Node> register = new HashMap<>();
+  private final List<Node> path = new ArrayList<>(List.of(root));
+  private String previous = "";
+  private boolean finished;
+  private int words;
+
+  /**
+   * Adds a word. Adding the previous word again has no effect.
+   *
+   * @param word the word, not smaller than the previously added word
+   * @return this builder
+   */
+  public DawgBuilder add(String word) {
+    if (finished) {
+      throw new IllegalStateException("The automaton has already been built");
+    }
+    int order = word.compareTo(previous);
+    if (order < 0) {
+      throw new IllegalArgumentException(
+          "Words must be added in sorted order: \"" + word + "\" after \"" + previous + "\"");
+    }
+    if (order == 0 && words > 0) {
+      return this;
+    }
+    int common = 0;
+    int limit = Math.min(word.length(), previous.length());
+    while (common < limit && word.charAt(common) == previous.charAt(common)) {
+      common++;
+    }
+    replaceOrRegister(common);
+    Node node = path.get(common);
+    for (int i = common; i < word.length(); i++) {
+      Node child = new Node();
+      node.append(word.charAt(i), child);
+      path.add(child);
+      node = child;
+    }
+    node.isFinal = true;
+    previous = word;
+    words++;
+    return this;
+  }
+
+  /**
+   * Adds all words of a sorted sequence.
+   *
+   * @param sortedWords the words in ascending order
+   * @return this builder
+   */
+  public DawgBuilder addAll(Iterable<String> sortedWords) {
+    for (String word : sortedWords) {
+      add(word);
+    }
+    return this;
+  }
+
+  /**
+   * Finishes the automaton and converts it to a {@link DFiniteAutomaton} with states named {@code
+   * q0..qn} in breadth-first order. The builder cannot be used afterwards.
+   *
+   * @return the minimal DFA of the word list
+   */
+  public DFiniteAutomaton toDFA() {
+    List<Node> nodes = finish();
+    Set<Character> sigma = new LinkedHashSet<>();
+    for (Node node : nodes) {
+      for (int e = 0; e < node.size; e++) {
+        sigma.add(node.labels[e]);
+      }
+    }
+    Map<Node, Integer> index = index(nodes);
+    DFiniteAutomaton dfa = new DFiniteAutomaton(sigma);
+    for (int s = 0; s < nodes.size(); s++) {
+      dfa.addState("q" + s, nodes.get(s).isFinal);
+    }
+    dfa.setStartState("q0");
+    for (int s = 0; s < nodes.size(); s++) {
+      Node node = nodes.get(s);
+      for (int e = 0; e < node.size; e++) {
+        dfa.addTransition("q" + s, node.labels[e], "q" + index.get(node.targets[e]));
+      }
+    }
+    return dfa;
+  }
+
+  /**
+   * Finishes the automaton and packs it into a compact, immutable {@link Dawg}. The builder cannot
+   * be used afterwards.
+   *
+   * @return the frozen automaton
+   */
+  public Dawg freeze() {
+    List<Node> nodes = finish();
+    Map<Node, Integer> index = index(nodes);
+    int edges = 0;
+    for (Node node : nodes) {
+      edges += node.size;
+    }
+    int[] offsets = new int[nodes.size() + 1];
+    char[] labels = new char[edges];
+    int[] targets = new int[edges];
+    long[] accepting = new long[(nodes.size() + 63) >>> 6];
+    int e = 0;
+    for (int s = 0; s < nodes.size(); s++) {
+      Node node = nodes.get(s);
+      offsets[s] = e;
+      for (int i = 0; i < node.size; i++, e++) {
+        labels[e] = node.labels[i];
+        targets[e] = index.get(node.targets[i]);
+      }
+      if (node.isFinal) {
+        accepting[s >>> 6] |= 1L << s;
+      }
+    }
+    offsets[nodes.size()] = e;
+    return new Dawg(offsets, labels, targets, accepting, words);
+  }
+
+  /**
+   * Returns the number of states built so far, counting the registered states, the root and the
+   * unregistered path of the last word.
+   *
+   * @return the state count
+   */
+  public int getStateCount() {
+    return register.size() + path.size();
+  }
+
+  /**
+   * Registers the states on the path of the previous word below the given depth, from the deepest
+   * upwards, replacing each by an equivalent registered state if one exists.
+   */
+  private void replaceOrRegister(int depth) {
+    for (int i = path.size() - 1; i > depth; i--) {
+      Node node = path.remove(i);
+      Node registered = register.putIfAbsent(node.seal(), node);
+      if (registered != null) {
+        path.get(i - 1).targets[path.get(i - 1).size - 1] = registered;
+      }
+    }
+  }
+
+  /** Registers the remaining path and lists the states in breadth-first order from the root. */
+  private List<Node> finish() {
+    if (!finished) {
+      replaceOrRegister(0);
+      finished = true;
+    }
+    List<Node> nodes = new ArrayList<>();
+    Map<Node, Boolean> seen = new IdentityHashMap<>();
+    nodes.add(root);
+    seen.put(root, true);
+    for (int s = 0; s < nodes.size(); s++) {
+      Node node = nodes.get(s);
+      for (int e = 0; e < node.size; e++) {
+        if (seen.put(node.targets[e], true) == null) {
+          nodes.add(node.targets[e]);
+        }
+      }
+    }
+    return nodes;
+  }
+
+  private static Map<Node, Integer> index(List<Node> nodes) {
+    Map<Node, Integer> index = new IdentityHashMap<>();
+    for (Node node : nodes) {
+      index.put(node, index.size());
+    }
+    return index;
+  }
+
+  /**
+   * A state under construction. Outgoing edges are kept in label order, which sorted input
+   * guarantees. Equality compares the right language, assuming the targets are already registered,
+   * and is only used once the state is sealed.
+   */
+  private static final class Node {
+    private char[] labels = new char[2];
+    private Node[] targets = new Node[2];
+    private int size;
+    private boolean isFinal;
+    private int hash;
+
+    void append(char label, Node target) {
+      if (size == labels.length) {
+        labels = Arrays.copyOf(labels, size * 2);
+        targets = Arrays.copyOf(targets, size * 2);
+      }
+      labels[size] = label;
+      targets[size] = target;
+      size++;
+    }
+
+    /** Trims the edge arrays and caches the hash once the state can no longer change. */
+    Node seal() {
+      labels = Arrays.copyOf(labels, size);
+      targets = Arrays.copyOf(targets, size);
+      int h = isFinal ? 1 : 0;
+      for (int e = 0; e < size; e++) {
+        h = 31 * h + labels[e];
+        h = 31 * h + System.identityHashCode(targets[e]);
+      }
+      hash = h;
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Node other)) {
+        return false;
+      }
+      if (isFinal != other.isFinal || size != other.size) {
+        return false;
+      }
+      for (int e = 0; e < size; e++) {
+        if (labels[e] != other.labels[e] || targets[e] != other.targets[e]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.example.fa.impl;
+
+import java.time.Duration;
+
+/**
+ * Limits on a single determinization: the number of DFA states, an estimate of the memory they
+ * use, and the wall-clock time. Budgets are immutable and can be reused across calls.
+ */
+public final class DeterminizationBudget {
+
+  private static final DeterminizationBudget UNLIMITED = new Builder().build();
+
+  private final int maxStates;
+  private final long maxMemoryBytes;
+  private final Duration timeout;
+
+  private DeterminizationBudget(int maxStates, long maxMemoryBytes, Duration timeout) {
+    this.maxStates = maxStates;
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Returns a budget without limits.
+   *
+   * @return the unlimited budget
+   */
+  public static DeterminizationBudget unlimited() {
+    return UNLIMITED;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getMaxStates() {
+    return maxStates;
+  }
+
+  public long getMaxMemoryBytes() {
+    return maxMemoryBytes;
+  }
+
+  /**
+   * Returns the time limit, measured from the start of the determinization.
+   *
+   * @return the timeout, or null if there is none
+   */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  /** Builds {@link DeterminizationBudget}s; every limit defaults to unlimited. */
+  public static class Builder {
+    private int maxStates = Integer.MAX_VALUE;
+    private long maxMemoryBytes = Long.MAX_VALUE;
+    private Duration timeout;
+
+    /**
+     * Limits the number of DFA states.
+     *
+     * @param maxStates the maximum number of states
+     * @return this builder
+     */
+    public Builder maxStates(int maxStates) {
+      if (maxStates <= 0) {
+        throw new IllegalArgumentException("State limit must be positive: " + maxStates);
+      }
+      this.maxStates = maxStates;
+      return this;
+    }
+
+    /**
+     * Limits the estimated memory held by the subsets and transitions of the DFA.
+     *
+     * @param maxMemoryBytes the maximum estimate in bytes
+     * @return this builder
+     */
+    public Builder maxMemoryBytes(long maxMemoryBytes) {
+      if (maxMemoryBytes <= 0) {
+        throw new IllegalArgumentException("Memory limit must be positive: " + maxMemoryBytes);
+      }
+      this.maxMemoryBytes = maxMemoryBytes;
+      return this;
+    }
+
+    /**
+     * Limits the wall-clock time of the determinization.
+     *
+     * @param timeout the time limit
+     * @return this builder
+     */
+    public Builder timeout(Duration timeout) {
+      if (timeout.isNegative() || timeout.isZero()) {
+        throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+      }
+      this.timeout = timeout;
+      return this;
+    }
+
+    public DeterminizationBudget build() {
+      return new DeterminizationBudget(maxStates, maxMemoryBytes, timeout);
+    }
+  }
+}
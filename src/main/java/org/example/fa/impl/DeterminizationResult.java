@@ -0,0 +1,96 @@
+package org.example.fa.impl;
+
+import java.util.Optional;
+
+/**
+ * The outcome of a budgeted determinization: either the complete DFA, or the reason it stopped
+ * together with the statistics gathered until then. Callers that run out of budget can fall back
+ * to simulating the NFA directly, for example with {@link NDFiniteAutomaton#freeze()}.
+ */
+public final class DeterminizationResult {
+
+  /** Why a determinization finished. */
+  public enum Status {
+    COMPLETED,
+    STATE_LIMIT_EXCEEDED,
+    MEMORY_LIMIT_EXCEEDED,
+    DEADLINE_EXCEEDED,
+    CANCELLED
+  }
+
+  private final Status status;
+  private final DFiniteAutomaton dfa;
+  private final int statesCreated;
+  private final long subsetsExplored;
+  private final long memoryEstimate;
+  private final long elapsedNanos;
+
+  DeterminizationResult(
+      Status status,
+      DFiniteAutomaton dfa,
+      int statesCreated,
+      long subsetsExplored,
+      long memoryEstimate,
+      long elapsedNanos) {
+    this.status = status;
+    this.dfa = dfa;
+    this.statesCreated = statesCreated;
+    this.subsetsExplored = subsetsExplored;
+    this.memoryEstimate = memoryEstimate;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public boolean isComplete() {
+    return status == Status.COMPLETED;
+  }
+
+  /**
+   * Returns the DFA if the determinization completed.
+   *
+   * @return the DFA, or empty if the budget was exceeded or the run was cancelled
+   */
+  public Optional<DFiniteAutomaton> getDfa() {
+    return Optional.ofNullable(dfa);
+  }
+
+  public int getStatesCreated() {
+    return statesCreated;
+  }
+
+  public long getSubsetsExplored() {
+    return subsetsExplored;
+  }
+
+  /**
+   * Returns the estimated number of bytes held by the subsets and transitions created so far.
+   *
+   * @return the memory estimate
+   */
+  public long getMemoryEstimate() {
+    return memoryEstimate;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "DeterminizationResult{"
+        + "status="
+        + status
+        + ", statesCreated="
+        + statesCreated
+        + ", subsetsExplored="
+        + subsetsExplored
+        + ", memoryEstimate="
+        + memoryEstimate
+        + ", elapsedNanos="
+        + elapsedNanos
+        + '}';
+  }
+}
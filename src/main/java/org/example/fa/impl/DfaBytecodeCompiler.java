@@ -0,0 +1,481 @@
+package org.example.fa.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.example.fa.CompiledDfa;
+
+/**
+ * Generates a dedicated class for a DFA and loads it as a hidden class.
+ *
+ * <p>In the generated {@code matches} method every state is a block of code that reads the next
+ * character and dispatches on it with a {@code lookupswitch}, so matching is a chain of direct
+ * jumps with no table lookups. The switch targets are stubs at the end of the method that jump
+ * back to the blocks of the successor states: the JVM only counts backward branches towards
+ * compiling a running loop, and a switch never counts, so without them a single long input would
+ * be matched entirely in the interpreter. Automata that are too large for a single method fall
+ * back to the interpreted {@link DfaTable}.
+ */
+public final class DfaBytecodeCompiler {
+
+  /** The default limit on the number of states compiled to bytecode. */
+  public static final int DEFAULT_MAX_STATES = 1024;
+
+  // The JVM limits a method's code to 64 KiB.
+  private static final int MAX_CODE_SIZE = 65535;
+
+  private static final String CLASS_NAME = "org/example/fa/impl/GeneratedDfa";
+
+  private DfaBytecodeCompiler() {}
+
+  /**
+   * Compiles an automaton with the default state limit.
+   *
+   * @param dfa the automaton
+   * @return the generated matcher, or the interpreted table if the automaton is too large
+   */
+  public static CompiledDfa compile(DFiniteAutomaton dfa) {
+    return compile(DfaTable.of(dfa), DEFAULT_MAX_STATES);
+  }
+
+  /**
+   * Compiles a table into a hidden class unless it exceeds {@code maxStates} states or the code
+   * size limit of a method, in which case the table itself is returned.
+   *
+   * @param table the compiled table
+   * @param maxStates the largest state count to generate code for
+   * @return the generated matcher, or {@code table}
+   */
+  public static CompiledDfa compile(DfaTable table, int maxStates) {
+    if (table.getStateCount() == 0
+        || table.getStateCount() > maxStates
+        || estimateMatchesSize(table) > MAX_CODE_SIZE) {
+      return table;
+    }
+    byte[] bytes = generate(table);
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+      return (CompiledDfa)
+          lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Failed to load generated DFA class", e);
+    }
+  }
+
+  /**
+   * Returns whether a matcher was produced by this generator rather than the table fallback.
+   *
+   * @param dfa the matcher
+   * @return true if the matcher is a generated class
+   */
+  public static boolean isGenerated(CompiledDfa dfa) {
+    return dfa.getClass().isHidden();
+  }
+
+  /** An upper bound for the size of the generated {@code matches} method. */
+  private static int estimateMatchesSize(DfaTable table) {
+    int transitions = 0;
+    for (int target : table.transitions()) {
+      if (target != -1) {
+        transitions++;
+      }
+    }
+    return 16 + table.getStateCount() * 36 + transitions * 8;
+  }
+
+  /** Emits the class file bytes. */
+  static byte[] generate(DfaTable table) {
+    ConstantPool pool = new ConstantPool();
+    int thisClass = pool.classRef(CLASS_NAME);
+    int superClass = pool.classRef("java/lang/Object");
+    int iface = pool.classRef("org/example/fa/CompiledDfa");
+    int objectInit = pool.methodRef(superClass, "<init>", "()V", false);
+    int charSequence = pool.classRef("java/lang/CharSequence");
+    int lengthRef = pool.methodRef(charSequence, "length", "()I", true);
+    int charAtRef = pool.methodRef(charSequence, "charAt", "(I)C", true);
+
+    List<byte[]> methods = new ArrayList<>();
+    methods.add(method(pool, "<init>", "()V", 1, 1, constructor(objectInit)));
+    methods.add(method(pool, "getStartState", "()I", 1, 1, constant(pool, table.getStartState())));
+    methods.add(method(pool, "getStateCount", "()I", 1, 1, constant(pool, table.getStateCount())));
+    methods.add(method(pool, "isAccepting", "(I)Z", 1, 2, isAccepting(table)));
+    methods.add(method(pool, "next", "(IC)I", 2, 3, next(pool, table)));
+    methods.add(
+        method(
+            pool,
+            "matches",
+            "(Ljava/lang/CharSequence;)Z",
+            3,
+            4,
+            matches(table, lengthRef, charAtRef)));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      // Version 50 class files may omit stack map frames.
+      out.writeShort(50);
+      pool.writeTo(out);
+      out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(1);
+      out.writeShort(iface);
+      out.writeShort(0); // fields
+      out.writeShort(methods.size());
+      for (byte[] method : methods) {
+        out.write(method);
+      }
+      out.writeShort(0); // attributes
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Code constructor(int objectInit) {
+    Code code = new Code();
+    code.op(0x2a); // aload_0
+    code.op(0xb7).u2(objectInit); // invokespecial Object.<init>
+    code.op(0xb1); // return
+    return code;
+  }
+
+  private static Code constant(ConstantPool pool, int value) {
+    Code code = new Code();
+    code.pushInt(pool, value);
+    code.op(0xac); // ireturn
+    return code;
+  }
+
+  private static Code isAccepting(DfaTable table) {
+    Code code = new Code();
+    Label yes = new Label();
+    Label no = new Label();
+    TreeMap<Integer, Label> cases = new TreeMap<>();
+    for (int s = 0; s < table.getStateCount(); s++) {
+      if (table.isAccepting(s)) {
+        cases.put(s, yes);
+      }
+    }
+    code.op(0x1b); // iload_1
+    code.lookupSwitch(cases, no);
+    code.mark(yes).op(0x04).op(0xac); // iconst_1, ireturn
+    code.mark(no).op(0x03).op(0xac); // iconst_0, ireturn
+    return code;
+  }
+
+  private static Code next(ConstantPool pool, DfaTable table) {
+    int n = table.getStateCount();
+    char[] symbols = table.symbols();
+    int[] transitions = table.transitions();
+
+    Code code = new Code();
+    Label dead = new Label();
+    Label[] states = new Label[n];
+    Label[] returns = new Label[n];
+    for (int s = 0; s < n; s++) {
+      states[s] = new Label();
+      returns[s] = new Label();
+    }
+
+    code.op(0x1b); // iload_1
+    code.tableSwitch(states, dead);
+    for (int s = 0; s < n; s++) {
+      code.mark(states[s]);
+      code.op(0x1c); // iload_2
+      TreeMap<Integer, Label> cases = new TreeMap<>();
+      for (int a = 0; a < symbols.length; a++) {
+        int target = transitions[s * symbols.length + a];
+        if (target != -1) {
+          cases.put((int) symbols[a], returns[target]);
+        }
+      }
+      code.lookupSwitch(cases, dead);
+    }
+    for (int s = 0; s < n; s++) {
+      code.mark(returns[s]);
+      code.pushInt(pool, s);
+      code.op(0xac); // ireturn
+    }
+    code.mark(dead).op(0x02).op(0xac); // iconst_m1, ireturn
+    return code;
+  }
+
+  /**
+   * Emits the matching loop. Locals: 1 = input, 2 = input length, 3 = position. State blocks are
+   * laid out in state order, starting with the start state (state 0 of a {@link DfaTable}), and
+   * are followed by one backward {@code goto} per state that every transition into it takes.
+   */
+  private static Code matches(DfaTable table, int lengthRef, int charAtRef) {
+    int n = table.getStateCount();
+    char[] symbols = table.symbols();
+    int[] transitions = table.transitions();
+
+    Code code = new Code();
+    Label reject = new Label();
+    Label[] states = new Label[n];
+    Label[] edges = new Label[n];
+    for (int s = 0; s < n; s++) {
+      states[s] = new Label();
+      edges[s] = new Label();
+    }
+
+    code.op(0x2b); // aload_1
+    code.op(0xb9).u2(lengthRef).u1(1).u1(0); // invokeinterface CharSequence.length
+    code.op(0x3d); // istore_2
+    code.op(0x03).op(0x3e); // iconst_0, istore_3
+    code.jump(0xa7, states[table.getStartState()]); // goto
+
+    for (int s = 0; s < n; s++) {
+      Label read = new Label();
+      code.mark(states[s]);
+      code.op(0x1d).op(0x1c); // iload_3, iload_2
+      code.jump(0xa1, read); // if_icmplt
+      code.op(table.isAccepting(s) ? 0x04 : 0x03).op(0xac); // iconst_1/0, ireturn
+      code.mark(read);
+      code.op(0x2b).op(0x1d); // aload_1, iload_3
+      code.op(0x84).u1(3).u1(1); // iinc 3, 1
+      code.op(0xb9).u2(charAtRef).u1(2).u1(0); // invokeinterface CharSequence.charAt
+      TreeMap<Integer, Label> cases = new TreeMap<>();
+      for (int a = 0; a < symbols.length; a++) {
+        int target = transitions[s * symbols.length + a];
+        if (target != -1) {
+          cases.put((int) symbols[a], edges[target]);
+        }
+      }
+      code.lookupSwitch(cases, reject);
+    }
+    code.mark(reject).op(0x03).op(0xac); // iconst_0, ireturn
+    for (int s = 0; s < n; s++) {
+      code.mark(edges[s]);
+      code.jump(0xa7, states[s]); // goto
+    }
+    return code;
+  }
+
+  private static byte[] method(
+      ConstantPool pool, String name, String descriptor, int maxStack, int maxLocals, Code code) {
+    byte[] body = code.resolve();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeShort(0x0001); // public
+      out.writeShort(pool.utf8(name));
+      out.writeShort(pool.utf8(descriptor));
+      out.writeShort(1);
+      out.writeShort(pool.utf8("Code"));
+      out.writeInt(12 + body.length);
+      out.writeShort(maxStack);
+      out.writeShort(maxLocals);
+      out.writeInt(body.length);
+      out.write(body);
+      out.writeShort(0); // exception table
+      out.writeShort(0); // attributes
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** A jump target inside a method. */
+  private static final class Label {
+    private int position = -1;
+  }
+
+  /** A method body with forward-referenced labels that are patched by {@link #resolve()}. */
+  private static final class Code {
+    private byte[] bytes = new byte[256];
+    private int length = 0;
+    // Each fixup: {offset field position, instruction position, field width} plus its label.
+    private final List<int[]> fixups = new ArrayList<>();
+    private final List<Label> fixupLabels = new ArrayList<>();
+
+    Code op(int opcode) {
+      return u1(opcode);
+    }
+
+    Code u1(int value) {
+      if (length == bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      bytes[length++] = (byte) value;
+      return this;
+    }
+
+    Code u2(int value) {
+      return u1(value >>> 8).u1(value);
+    }
+
+    Code u4(int value) {
+      return u2(value >>> 16).u2(value);
+    }
+
+    Code mark(Label label) {
+      label.position = length;
+      return this;
+    }
+
+    void pushInt(ConstantPool pool, int value) {
+      if (value >= -1 && value <= 5) {
+        op(0x03 + value); // iconst_<n>
+      } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        op(0x10).u1(value); // bipush
+      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+        op(0x11).u2(value); // sipush
+      } else {
+        op(0x13).u2(pool.integer(value)); // ldc_w
+      }
+    }
+
+    void jump(int opcode, Label target) {
+      int instruction = length;
+      op(opcode);
+      reference(target, instruction, 2);
+    }
+
+    void lookupSwitch(TreeMap<Integer, Label> cases, Label defaultLabel) {
+      int instruction = length;
+      op(0xab);
+      pad();
+      reference(defaultLabel, instruction, 4);
+      u4(cases.size());
+      for (Map.Entry<Integer, Label> entry : cases.entrySet()) {
+        u4(entry.getKey());
+        reference(entry.getValue(), instruction, 4);
+      }
+    }
+
+    void tableSwitch(Label[] targets, Label defaultLabel) {
+      int instruction = length;
+      op(0xaa);
+      pad();
+      reference(defaultLabel, instruction, 4);
+      u4(0);
+      u4(targets.length - 1);
+      for (Label target : targets) {
+        reference(target, instruction, 4);
+      }
+    }
+
+    private void pad() {
+      while (length % 4 != 0) {
+        u1(0);
+      }
+    }
+
+    private void reference(Label label, int instruction, int width) {
+      fixups.add(new int[] {length, instruction, width});
+      fixupLabels.add(label);
+      for (int i = 0; i < width; i++) {
+        u1(0);
+      }
+    }
+
+    byte[] resolve() {
+      for (int i = 0; i < fixups.size(); i++) {
+        int[] fixup = fixups.get(i);
+        int offset = fixupLabels.get(i).position - fixup[1];
+        if (fixup[2] == 2) {
+          if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+            throw new IllegalStateException("Branch offset out of range: " + offset);
+          }
+          bytes[fixup[0]] = (byte) (offset >>> 8);
+          bytes[fixup[0] + 1] = (byte) offset;
+        } else {
+          for (int b = 0; b < 4; b++) {
+            bytes[fixup[0] + b] = (byte) (offset >>> (24 - 8 * b));
+          }
+        }
+      }
+      return Arrays.copyOf(bytes, length);
+    }
+  }
+
+  /** The constant pool of the generated class. */
+  private static final class ConstantPool {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) {
+      return entry(
+          "U" + value,
+          () -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+          });
+    }
+
+    int integer(int value) {
+      return entry(
+          "I" + value,
+          () -> {
+            out.writeByte(3);
+            out.writeInt(value);
+          });
+    }
+
+    int classRef(String internalName) {
+      int name = utf8(internalName);
+      return entry(
+          "C" + internalName,
+          () -> {
+            out.writeByte(7);
+            out.writeShort(name);
+          });
+    }
+
+    int methodRef(int owner, String name, String descriptor, boolean isInterface) {
+      int nameIndex = utf8(name);
+      int descriptorIndex = utf8(descriptor);
+      int nameAndType =
+          entry(
+              "N" + name + descriptor,
+              () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+              });
+      return entry(
+          "M" + owner + "." + name + descriptor,
+          () -> {
+            out.writeByte(isInterface ? 11 : 10);
+            out.writeShort(owner);
+            out.writeShort(nameAndType);
+          });
+    }
+
+    void writeTo(DataOutputStream target) throws IOException {
+      target.writeShort(count);
+      bytes.writeTo(target);
+    }
+
+    private int entry(String key, Writer writer) {
+      Integer index = entries.get(key);
+      if (index != null) {
+        return index;
+      }
+      try {
+        writer.write();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      entries.put(key, count);
+      return count++;
+    }
+
+    private interface Writer {
+      void write() throws IOException;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package org.example.fa.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.example.fa.CompiledDfa;
+
+/**
+ * An immutable, dense transition table for a {@link DFiniteAutomaton}. Symbols that behave the same
+ * in every state share a column: an {@link AlphabetPartition} maps each character to its class,
+ * and transitions are stored row by row in a single {@code int[]} with one column per class.
+ */
+public final class DfaTable implements CompiledDfa {
+
+  private final char[] symbols;
+  private final AlphabetPartition alphabet;
+  private final char[] classMap;
+  private final int classCount;
+  private final int[] transitions;
+  private final long[] accepting;
+  private final String[] stateNames;
+  private final int start;
+
+  /**
+   * Creates a table from per-symbol transitions, merging the columns of equivalent symbols.
+   *
+   * @param symbols the sorted alphabet
+   * @param symbolTransitions the targets, row by row with one column per symbol
+   * @param accepting the accept state bits
+   * @param stateNames the state names
+   * @param start the start state, or -1 if there is none
+   */
+  DfaTable(
+      char[] symbols, int[] symbolTransitions, long[] accepting, String[] stateNames, int start) {
+    int n = stateNames.length;
+    this.symbols = symbols;
+    this.alphabet = AlphabetPartition.of(symbols, symbolTransitions, n);
+    this.classMap = alphabet.classMap();
+    this.classCount = alphabet.getClassCount();
+    this.transitions = new int[n * classCount];
+    for (int s = 0; s < n; s++) {
+      transitions[s * classCount] = -1;
+      for (int a = 0; a < symbols.length; a++) {
+        int target = symbolTransitions[s * symbols.length + a];
+        transitions[s * classCount + classMap[symbols[a]]] = target;
+      }
+    }
+    this.accepting = accepting;
+    this.stateNames = stateNames;
+    this.start = start;
+  }
+
+  /**
+   * Compiles the states reachable from the start state of an automaton into a table. State 0 is
+   * the start state; the others are numbered in breadth-first order over the sorted alphabet.
+   * Transitions into states from which no accept state is reachable go to the dead state {@code
+   * -1}, so matching stops as soon as the input can no longer be accepted.
+   *
+   * @param dfa the automaton
+   * @return the table
+   */
+  public static DfaTable of(DFiniteAutomaton dfa) {
+    List<Character> sorted = new ArrayList<>(dfa.getSigma());
+    Collections.sort(sorted);
+    char[] symbols = new char[sorted.size()];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = sorted.get(i);
+    }
+    int k = symbols.length;
+
+    Set<String> live = dfa.getLiveStates();
+    Map<String, Integer> index = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    List<int[]> rows = new ArrayList<>();
+    if (dfa.getStartState() != null) {
+      index.put(dfa.getStartState(), 0);
+      names.add(dfa.getStartState());
+    }
+    for (int s = 0; s < names.size(); s++) {
+      Map<Character, String> outgoing =
+          dfa.getTransitions().getOrDefault(names.get(s), Collections.emptyMap());
+      int[] row = new int[k];
+      for (int a = 0; a < k; a++) {
+        String target = outgoing.get(symbols[a]);
+        if (target == null || !live.contains(target)) {
+          row[a] = -1;
+          continue;
+        }
+        Integer id = index.get(target);
+        if (id == null) {
+          id = names.size();
+          index.put(target, id);
+          names.add(target);
+        }
+        row[a] = id;
+      }
+      rows.add(row);
+    }
+
+    int n = names.size();
+    int[] transitions = new int[n * k];
+    long[] accepting = new long[(n + 63) >>> 6];
+    for (int s = 0; s < n; s++) {
+      System.arraycopy(rows.get(s), 0, transitions, s * k, k);
+      if (dfa.getAcceptStates().contains(names.get(s))) {
+        accepting[s >>> 6] |= 1L << s;
+      }
+    }
+    String[] stateNames = names.toArray(new String[0]);
+    return new DfaTable(symbols, transitions, accepting, stateNames, n == 0 ? -1 : 0);
+  }
+
+  @Override
+  public int getStartState() {
+    return start;
+  }
+
+  @Override
+  public int getStateCount() {
+    return stateNames.length;
+  }
+
+  @Override
+  public int next(int state, char symbol) {
+    int symbolClass = symbol < classMap.length ? classMap[symbol] : 0;
+    return transitions[state * classCount + symbolClass];
+  }
+
+  @Override
+  public boolean isAccepting(int state) {
+    return (accepting[state >>> 6] & (1L << state)) != 0;
+  }
+
+  /**
+   * Returns the partition of the alphabet into the classes that index the table columns.
+   *
+   * @return the alphabet partition
+   */
+  public AlphabetPartition getAlphabetPartition() {
+    return alphabet;
+  }
+
+  /**
+   * Returns the alphabet of the table.
+   *
+   * @return a copy of the symbols, in ascending order
+   */
+  public char[] getSymbols() {
+    return symbols.clone();
+  }
+
+  char[] symbols() {
+    return symbols;
+  }
+
+  /** Expands the table to one column per symbol, in the order of {@link #symbols()}. */
+  int[] transitions() {
+    int k = symbols.length;
+    int[] expanded = new int[stateNames.length * k];
+    for (int s = 0; s < stateNames.length; s++) {
+      for (int a = 0; a < k; a++) {
+        expanded[s * k + a] = transitions[s * classCount + classMap[symbols[a]]];
+      }
+    }
+    return expanded;
+  }
+
+  int[] classTransitions() {
+    return transitions;
+  }
+
+  long[] acceptBits() {
+    return accepting;
+  }
+
+  /**
+   * Returns the name the state had in the source automaton.
+   *
+   * @param state the state number
+   * @return the state name
+   */
+  public String getStateName(int state) {
+    return stateNames[state];
+  }
+}
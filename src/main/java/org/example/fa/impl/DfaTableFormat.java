@@ -0,0 +1,212 @@
+package org.example.fa.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes the versioned binary format for compiled DFAs.
+ *
+ * <p>Layout (little-endian, every section aligned to 8 bytes):
+ *
+ * <pre>
+ *   0  int    magic "LFAD"
+ *   4  short  version
+ *   6  short  flags (bit 0: transitions stored as shorts)
+ *   8  int    state count n
+ *  12  int    symbol count k
+ *  16  int    start state, or -1
+ *  20  int    offset of the sorted symbols, k chars
+ *  24  int    offset of the transitions, n * k ints or shorts, -1 for none
+ *  28  int    offset of the accept bitset, ceil(n / 64) longs
+ *  32  int    offset of the state names: n + 1 int offsets, then UTF-8 bytes
+ *  36  int    total length
+ * </pre>
+ */
+public final class DfaTableFormat {
+
+  static final int MAGIC = 0x4441464C;
+  static final short VERSION = 1;
+  static final int FLAG_SHORT_TRANSITIONS = 1;
+  static final int HEADER_SIZE = 40;
+
+  private DfaTableFormat() {}
+
+  /**
+   * Writes a compiled table to a file, replacing any existing content.
+   *
+   * @param table the table
+   * @param path the output file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(DfaTable table, Path path) throws IOException {
+    ByteBuffer buffer = encode(table);
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Encodes a compiled table into a buffer positioned at 0.
+   *
+   * @param table the table
+   * @return the encoded bytes
+   */
+  public static ByteBuffer encode(DfaTable table) {
+    int n = table.getStateCount();
+    char[] symbols = table.symbols();
+    int k = symbols.length;
+    int[] transitions = table.transitions();
+    long[] accepting = table.acceptBits();
+    boolean compact = n < Short.MAX_VALUE;
+
+    byte[][] names = new byte[n][];
+    int namesLength = 0;
+    for (int s = 0; s < n; s++) {
+      names[s] = table.getStateName(s).getBytes(StandardCharsets.UTF_8);
+      namesLength += names[s].length;
+    }
+
+    int symbolsOffset = HEADER_SIZE;
+    int transitionsOffset = align(symbolsOffset + 2 * k);
+    int acceptOffset = align(transitionsOffset + (compact ? 2 : 4) * n * k);
+    int namesOffset = align(acceptOffset + 8 * accepting.length);
+    int length = namesOffset + 4 * (n + 1) + namesLength;
+
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(0, MAGIC);
+    buffer.putShort(4, VERSION);
+    buffer.putShort(6, (short) (compact ? FLAG_SHORT_TRANSITIONS : 0));
+    buffer.putInt(8, n);
+    buffer.putInt(12, k);
+    buffer.putInt(16, table.getStartState());
+    buffer.putInt(20, symbolsOffset);
+    buffer.putInt(24, transitionsOffset);
+    buffer.putInt(28, acceptOffset);
+    buffer.putInt(32, namesOffset);
+    buffer.putInt(36, length);
+
+    for (int a = 0; a < k; a++) {
+      buffer.putChar(symbolsOffset + 2 * a, symbols[a]);
+    }
+    for (int i = 0; i < transitions.length; i++) {
+      if (compact) {
+        buffer.putShort(transitionsOffset + 2 * i, (short) transitions[i]);
+      } else {
+        buffer.putInt(transitionsOffset + 4 * i, transitions[i]);
+      }
+    }
+    for (int i = 0; i < accepting.length; i++) {
+      buffer.putLong(acceptOffset + 8 * i, accepting[i]);
+    }
+    int position = namesOffset + 4 * (n + 1);
+    for (int s = 0; s < n; s++) {
+      buffer.putInt(namesOffset + 4 * s, position);
+      buffer.put(position, names[s]);
+      position += names[s].length;
+    }
+    buffer.putInt(namesOffset + 4 * n, position);
+    return buffer;
+  }
+
+  /**
+   * Maps a compiled table file into memory. The returned table reads transitions straight from the
+   * mapping, so loading does not copy the file or allocate per state.
+   *
+   * @param path the input file
+   * @return the mapped table
+   * @throws IOException if the file cannot be read or is not a compiled DFA
+   */
+  public static MappedDfaTable map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Wraps an encoded table without copying it.
+   *
+   * @param buffer the encoded bytes, starting at index 0
+   * @return the table view
+   * @throws IOException if the buffer does not hold a supported compiled DFA
+   */
+  public static MappedDfaTable wrap(ByteBuffer buffer) throws IOException {
+    ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+      throw new IOException("Not a compiled DFA");
+    }
+    if (data.getShort(4) != VERSION) {
+      throw new IOException("Unsupported compiled DFA version: " + data.getShort(4));
+    }
+    if (data.getInt(36) != data.capacity()) {
+      throw new IOException(
+          "Truncated compiled DFA: expected " + data.getInt(36) + " bytes, got " + data.capacity());
+    }
+    validate(data);
+    return new MappedDfaTable(data);
+  }
+
+  /**
+   * Checks that the header is consistent and that every section lies inside the buffer, so the
+   * table view cannot read out of bounds. The contents of the transition cells are not checked.
+   */
+  private static void validate(ByteBuffer data) throws IOException {
+    int length = data.capacity();
+    int flags = data.getShort(6);
+    int n = data.getInt(8);
+    int k = data.getInt(12);
+    int start = data.getInt(16);
+    if ((flags & ~FLAG_SHORT_TRANSITIONS) != 0) {
+      throw new IOException("Corrupt compiled DFA: unknown flags " + flags);
+    }
+    if (n < 0 || k < 0) {
+      throw new IOException("Corrupt compiled DFA: " + n + " states, " + k + " symbols");
+    }
+    boolean compact = (flags & FLAG_SHORT_TRANSITIONS) != 0;
+    if (compact && n >= Short.MAX_VALUE) {
+      throw new IOException("Corrupt compiled DFA: " + n + " states stored as shorts");
+    }
+    if (start < -1 || start >= n) {
+      throw new IOException("Corrupt compiled DFA: start state " + start + " of " + n);
+    }
+    requireSection("symbols", data.getInt(20), 2L * k, length);
+    int transitionsOffset = data.getInt(24);
+    if (transitionsOffset != -1 || (long) n * k != 0) {
+      requireSection("transitions", transitionsOffset, (compact ? 2L : 4L) * n * k, length);
+    }
+    requireSection("accept", data.getInt(28), 8L * ((n + 63L) >>> 6), length);
+    int namesOffset = data.getInt(32);
+    requireSection("names", namesOffset, 4L * (n + 1), length);
+    long previous = namesOffset + 4L * (n + 1);
+    for (int s = 0; s <= n; s++) {
+      int offset = data.getInt(namesOffset + 4 * s);
+      if (offset < previous || offset > length) {
+        throw new IOException("Corrupt compiled DFA: name offset " + offset + " of state " + s);
+      }
+      previous = offset;
+    }
+  }
+
+  private static void requireSection(String name, int offset, long size, int length)
+      throws IOException {
+    if (offset < HEADER_SIZE || offset + size > length) {
+      throw new IOException(
+          "Corrupt compiled DFA: " + name + " section at " + offset + " exceeds " + length);
+    }
+  }
+
+  private static int align(int offset) {
+    return (offset + 7) & ~7;
+  }
+}
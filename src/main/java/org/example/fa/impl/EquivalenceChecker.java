@@ -0,0 +1,152 @@
+package org.example.fa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Decides language equivalence of two DFAs with the Hopcroft–Karp union-find algorithm. Pairs are
+ * explored breadth-first, so the first pair that disagrees on acceptance yields a shortest
+ * distinguishing string.
+ */
+final class EquivalenceChecker {
+
+  private final DFiniteAutomaton left;
+  private final DFiniteAutomaton right;
+  private final List<Character> symbols;
+
+  // States of the left automaton are numbered first, then those of the right one. Both implicit
+  // dead states share a single number, since they accept the same (empty) language.
+  private final Map<String, Integer> leftIds = new HashMap<>();
+  private final Map<String, Integer> rightIds = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+  private final List<Boolean> accepting = new ArrayList<>();
+  private final List<Boolean> onLeft = new ArrayList<>();
+  private int[] parent = new int[16];
+  private int[] rank = new int[16];
+  private final int dead;
+
+  private EquivalenceChecker(DFiniteAutomaton left, DFiniteAutomaton right) {
+    this.left = left;
+    this.right = right;
+    TreeSet<Character> sigma = new TreeSet<>(left.getSigma());
+    sigma.addAll(right.getSigma());
+    this.symbols = new ArrayList<>(sigma);
+    this.dead = register(null, false, false);
+  }
+
+  /**
+   * Finds a shortest string accepted by exactly one of the automata.
+   *
+   * @param left the first automaton
+   * @param right the second automaton
+   * @return a shortest counterexample, or empty if the languages are equal
+   */
+  static Optional<String> findCounterexample(DFiniteAutomaton left, DFiniteAutomaton right) {
+    return new EquivalenceChecker(left, right).run();
+  }
+
+  private Optional<String> run() {
+    // Breadth-first queue of pairs, each remembering how it was reached.
+    List<int[]> queue = new ArrayList<>();
+    queue.add(new int[] {id(true, left.getStartState()), id(false, right.getStartState()), -1, -1});
+    union(queue.get(0)[0], queue.get(0)[1]);
+
+    for (int head = 0; head < queue.size(); head++) {
+      int[] pair = queue.get(head);
+      if (!accepting.get(pair[0]).equals(accepting.get(pair[1]))) {
+        return Optional.of(witness(queue, head));
+      }
+      for (int a = 0; a < symbols.size(); a++) {
+        int p = step(pair[0], symbols.get(a));
+        int q = step(pair[1], symbols.get(a));
+        if (union(p, q)) {
+          queue.add(new int[] {p, q, head, a});
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  private String witness(List<int[]> queue, int index) {
+    StringBuilder word = new StringBuilder();
+    for (int i = index; queue.get(i)[2] != -1; i = queue.get(i)[2]) {
+      word.append(symbols.get(queue.get(i)[3]));
+    }
+    return word.reverse().toString();
+  }
+
+  /** Returns the successor of a numbered state, or the dead state if the transition is missing. */
+  private int step(int state, char symbol) {
+    if (state == dead) {
+      return dead;
+    }
+    boolean isLeft = onLeft.get(state);
+    DFiniteAutomaton dfa = isLeft ? left : right;
+    String target =
+        dfa.getTransitions().getOrDefault(names.get(state), Collections.emptyMap()).get(symbol);
+    return id(isLeft, target);
+  }
+
+  private int id(boolean isLeft, String state) {
+    if (state == null) {
+      return dead;
+    }
+    Map<String, Integer> ids = isLeft ? leftIds : rightIds;
+    Integer id = ids.get(state);
+    if (id == null) {
+      DFiniteAutomaton dfa = isLeft ? left : right;
+      id = register(state, dfa.getAcceptStates().contains(state), isLeft);
+      ids.put(state, id);
+    }
+    return id;
+  }
+
+  private int register(String name, boolean isAccepting, boolean isLeft) {
+    int id = names.size();
+    names.add(name);
+    accepting.add(isAccepting);
+    onLeft.add(isLeft);
+    if (id == parent.length) {
+      parent = Arrays.copyOf(parent, id * 2);
+      rank = Arrays.copyOf(rank, id * 2);
+    }
+    parent[id] = id;
+    return id;
+  }
+
+  private int find(int x) {
+    while (parent[x] != x) {
+      parent[x] = parent[parent[x]];
+      x = parent[x];
+    }
+    return x;
+  }
+
+  /**
+   * Merges the classes of two states.
+   *
+   * @return true if they were in different classes
+   */
+  private boolean union(int x, int y) {
+    int rootX = find(x);
+    int rootY = find(y);
+    if (rootX == rootY) {
+      return false;
+    }
+    if (rank[rootX] < rank[rootY]) {
+      parent[rootX] = rootY;
+    } else if (rank[rootX] > rank[rootY]) {
+      parent[rootY] = rootX;
+    } else {
+      parent[rootY] = rootX;
+      rank[rootX]++;
+    }
+    return true;
+  }
+}
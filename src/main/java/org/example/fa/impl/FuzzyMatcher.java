@@ -0,0 +1,119 @@
+package org.example.fa.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Typo-tolerant lookups against the language of a DFA. The DFA is intersected lazily with the
+ * {@link LevenshteinAutomaton} of the query: only product states reachable from the start pair are
+ * visited, and DFA states from which no accept state is reachable are skipped.
+ */
+final class FuzzyMatcher {
+
+  private record Pair(String state, LevenshteinAutomaton.State levenshtein) {}
+
+  private FuzzyMatcher() {}
+
+  /**
+   * Checks if some string of the language is within the edit distance of the input.
+   *
+   * @param dfa the automaton
+   * @param input the query
+   * @param distance the maximum edit distance
+   * @return true if the language holds a string within the distance
+   */
+  static boolean acceptsWithin(DFiniteAutomaton dfa, String input, int distance) {
+    LevenshteinAutomaton levenshtein = LevenshteinAutomaton.of(input, distance);
+    Set<String> live = dfa.getLiveStates();
+    if (!live.contains(dfa.getStartState())) {
+      return false;
+    }
+    Pair start = new Pair(dfa.getStartState(), levenshtein.getStartState());
+    Set<Pair> visited = new HashSet<>(List.of(start));
+    ArrayDeque<Pair> stack = new ArrayDeque<>(visited);
+    while (!stack.isEmpty()) {
+      Pair pair = stack.pop();
+      if (dfa.getAcceptStates().contains(pair.state())
+          && levenshtein.isAccepting(pair.levenshtein())) {
+        return true;
+      }
+      for (Map.Entry<Character, String> transition : row(dfa, pair.state()).entrySet()) {
+        if (!live.contains(transition.getValue())) {
+          continue;
+        }
+        LevenshteinAutomaton.State next =
+            levenshtein.step(pair.levenshtein(), transition.getKey());
+        Pair successor = new Pair(transition.getValue(), next);
+        if (next != null && visited.add(successor)) {
+          stack.push(successor);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Lists strings of the language within the edit distance of the input, in lexicographic order.
+   * The list is finite because such strings are at most {@code distance} characters longer than
+   * the input.
+   *
+   * @param dfa the automaton
+   * @param input the query
+   * @param distance the maximum edit distance
+   * @param limit the maximum number of strings to return
+   * @return the matching strings
+   */
+  static List<String> findWithin(DFiniteAutomaton dfa, String input, int distance, int limit) {
+    LevenshteinAutomaton levenshtein = LevenshteinAutomaton.of(input, distance);
+    List<String> found = new ArrayList<>();
+    if (limit > 0 && dfa.getLiveStates().contains(dfa.getStartState())) {
+      collect(
+          dfa,
+          levenshtein,
+          dfa.getStartState(),
+          levenshtein.getStartState(),
+          new StringBuilder(),
+          found,
+          limit);
+    }
+    return found;
+  }
+
+  private static void collect(
+      DFiniteAutomaton dfa,
+      LevenshteinAutomaton levenshtein,
+      String state,
+      LevenshteinAutomaton.State position,
+      StringBuilder prefix,
+      List<String> found,
+      int limit) {
+    if (dfa.getAcceptStates().contains(state) && levenshtein.isAccepting(position)) {
+      found.add(prefix.toString());
+    }
+    for (Map.Entry<Character, String> transition :
+        new TreeMap<>(row(dfa, state)).entrySet()) {
+      if (found.size() >= limit) {
+        return;
+      }
+      if (!dfa.getLiveStates().contains(transition.getValue())) {
+        continue;
+      }
+      LevenshteinAutomaton.State next = levenshtein.step(position, transition.getKey());
+      if (next != null) {
+        prefix.append(transition.getKey());
+        collect(dfa, levenshtein, transition.getValue(), next, prefix, found, limit);
+        prefix.setLength(prefix.length() - 1);
+      }
+    }
+  }
+
+  private static Map<Character, String> row(DFiniteAutomaton dfa, String state) {
+    return dfa.getTransitions().getOrDefault(state, Collections.emptyMap());
+  }
+}
@@ -0,0 +1,341 @@
+package org.example.fa.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import org.example.metrics.AutomatonMetricsListener;
+import org.example.metrics.Metrics;
+
+/**
+ * Keeps a DFA in sync with an {@link NDFiniteAutomaton} that keeps growing.
+ *
+ * <p>The determinizer listens to the automaton and remembers the subset of every DFA state. On
+ * {@link #update()} it works out which NFA states are affected by the changes since the last
+ * update: states with new transitions, and states with a transition into a state whose ε-closure
+ * grew. Only the DFA states whose subsets contain an affected state are expanded again, together
+ * with any new subsets reachable from them; all other rows are kept. Since an NFA can only grow,
+ * transitions of the DFA are only ever redirected, never removed.
+ *
+ * <p>Subsets that become unreachable stay in the DFA; {@link DFiniteAutomaton#minimize()} drops
+ * them. Changing the start state of the NFA triggers a full conversion. Instances are not
+ * thread-safe.
+ */
+public final class IncrementalDeterminizer implements AutoCloseable {
+
+  private final NDFiniteAutomaton nfa;
+  private final List<Character> symbols;
+  private final int k;
+  private final NDFiniteAutomaton.ChangeListener listener;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+  private final List<int[]> closures = new ArrayList<>();
+  private final List<IntList> epsilonPredecessors = new ArrayList<>();
+  private final List<IntList> predecessors = new ArrayList<>();
+  // The subsets that contain each NFA state.
+  private final List<IntList> containing = new ArrayList<>();
+
+  private SubsetInterner subsets;
+  private boolean[] accepting;
+  private DFiniteAutomaton dfa;
+
+  private boolean reset = true;
+  private final Set<Integer> changedRows = new HashSet<>();
+  private final Set<Integer> epsilonSources = new HashSet<>();
+  private final Set<Integer> newlyAccepting = new HashSet<>();
+
+  IncrementalDeterminizer(NDFiniteAutomaton nfa) {
+    this.nfa = nfa;
+    this.symbols = new ArrayList<>(nfa.getSigma());
+    symbols.remove(Character.valueOf('ε'));
+    this.k = symbols.size();
+    this.listener =
+        new NDFiniteAutomaton.ChangeListener() {
+          @Override
+          public void onStartStateChanged(String state) {
+            reset = true;
+          }
+
+          @Override
+          public void onStateAdded(String state, boolean isAcceptState) {
+            int id = id(state);
+            if (isAcceptState) {
+              newlyAccepting.add(id);
+            }
+          }
+
+          @Override
+          public void onTransitionAdded(String fromState, char input, String toState) {
+            int from = id(fromState);
+            int to = id(toState);
+            if (input == 'ε') {
+              epsilonPredecessors.get(to).add(from);
+              epsilonSources.add(from);
+            } else {
+              predecessors.get(to).add(from);
+              changedRows.add(from);
+            }
+          }
+        };
+    nfa.addChangeListener(listener);
+    update();
+  }
+
+  /**
+   * Applies the changes made to the NFA since the last update.
+   *
+   * @return the number of DFA states that were expanded
+   */
+  public int update() {
+    if (!reset && changedRows.isEmpty() && epsilonSources.isEmpty() && newlyAccepting.isEmpty()) {
+      return 0;
+    }
+    AutomatonMetricsListener metrics = Metrics.listener();
+    if (metrics != null) {
+      metrics.beforeDeterminization();
+    }
+    long start = System.nanoTime();
+    int before = reset ? 0 : subsets.size();
+    ArrayDeque<Integer> worklist = new ArrayDeque<>();
+    if (reset) {
+      rebuild();
+    } else {
+      Set<Integer> affected = new HashSet<>(changedRows);
+      for (int state : closureChanged()) {
+        closures.set(state, null);
+        predecessors.get(state).forEach(affected::add);
+      }
+      Set<Integer> dirty = new HashSet<>();
+      for (int state : affected) {
+        containing.get(state).forEach(dirty::add);
+      }
+      worklist.addAll(dirty);
+      for (int state : newlyAccepting) {
+        containing.get(state).forEach(this::markAccepting);
+      }
+    }
+    changedRows.clear();
+    epsilonSources.clear();
+    newlyAccepting.clear();
+
+    if (nfa.getStartState() != null) {
+      int[] startSet = closure(id(nfa.getStartState()));
+      int startId = subsets.find(startSet, startSet.length);
+      if (startId < 0) {
+        startId = addSubset(startSet, startSet.length);
+        worklist.add(startId);
+      }
+      dfa.setStartState(name(startId));
+    }
+
+    int expanded = 0;
+    int[] scratch = new int[names.size()];
+    long[] seen = new long[(names.size() + 63) >>> 6];
+    while (!worklist.isEmpty()) {
+      int current = worklist.poll();
+      expanded++;
+      int[] members = subsets.get(current);
+      for (int a = 0; a < k; a++) {
+        int length = 0;
+        for (int member : members) {
+          Set<String> direct =
+              nfa.getNfaTransitions()
+                  .getOrDefault(names.get(member), Collections.emptyMap())
+                  .getOrDefault(symbols.get(a), Collections.emptySet());
+          for (String target : direct) {
+            for (int state : closure(ids.get(target))) {
+              if ((seen[state >>> 6] & (1L << state)) == 0) {
+                seen[state >>> 6] |= 1L << state;
+                scratch[length++] = state;
+              }
+            }
+          }
+        }
+        if (length == 0) {
+          continue;
+        }
+        for (int i = 0; i < length; i++) {
+          seen[scratch[i] >>> 6] = 0;
+        }
+        Arrays.sort(scratch, 0, length);
+        int next = subsets.find(scratch, length);
+        if (next < 0) {
+          next = addSubset(scratch, length);
+          worklist.add(next);
+        }
+        dfa.addTransition(name(current), symbols.get(a), name(next));
+      }
+    }
+
+    if (metrics != null) {
+      metrics.onDeterminization(
+          "determinizeIncrementally",
+          expanded * k,
+          subsets.size() - before,
+          System.nanoTime() - start);
+    }
+    return expanded;
+  }
+
+  /**
+   * Returns the DFA after applying any pending changes. The same instance is updated in place until
+   * the start state of the NFA changes.
+   *
+   * @return the DFA
+   */
+  public DFiniteAutomaton getDfa() {
+    update();
+    return dfa;
+  }
+
+  /**
+   * Returns the number of subsets discovered so far, including unreachable ones.
+   *
+   * @return the subset count
+   */
+  public int getSubsetCount() {
+    return subsets.size();
+  }
+
+  /** Stops following the NFA. */
+  @Override
+  public void close() {
+    nfa.removeChangeListener(listener);
+  }
+
+  private void rebuild() {
+    reset = false;
+    subsets = new SubsetInterner();
+    accepting = new boolean[16];
+    dfa = new DFiniteAutomaton(nfa.getSigma());
+    for (int state = 0; state < names.size(); state++) {
+      containing.set(state, new IntList());
+      epsilonPredecessors.set(state, new IntList());
+      predecessors.set(state, new IntList());
+    }
+    for (String state : nfa.getStates()) {
+      id(state);
+    }
+    nfa.getNfaTransitions()
+        .forEach(
+            (state, row) ->
+                row.forEach(
+                    (symbol, targets) -> {
+                      for (String target : targets) {
+                        listener.onTransitionAdded(state, symbol, target);
+                      }
+                    }));
+    Collections.fill(closures, null);
+  }
+
+  /** Returns the states whose ε-closure grew: the new ε-sources and all states reaching them. */
+  private Set<Integer> closureChanged() {
+    Set<Integer> changed = new HashSet<>(epsilonSources);
+    ArrayDeque<Integer> stack = new ArrayDeque<>(epsilonSources);
+    while (!stack.isEmpty()) {
+      epsilonPredecessors
+          .get(stack.pop())
+          .forEach(
+              predecessor -> {
+                if (changed.add(predecessor)) {
+                  stack.push(predecessor);
+                }
+              });
+    }
+    return changed;
+  }
+
+  private int addSubset(int[] members, int length) {
+    int id = subsets.add(members, length);
+    if (accepting.length == id) {
+      accepting = Arrays.copyOf(accepting, id * 2);
+    }
+    dfa.addState(name(id), false);
+    for (int i = 0; i < length; i++) {
+      containing.get(members[i]).add(id);
+      if (nfa.getAcceptStates().contains(names.get(members[i]))) {
+        markAccepting(id);
+      }
+    }
+    return id;
+  }
+
+  private void markAccepting(int subset) {
+    if (!accepting[subset]) {
+      accepting[subset] = true;
+      dfa.addState(name(subset), true);
+    }
+  }
+
+  private String name(int subset) {
+    return SubsetConstruction.name(SubsetConstruction.Naming.LETTERS, subset, null, names);
+  }
+
+  /** Returns the id of an NFA state, numbering it if it is new. */
+  private int id(String state) {
+    Integer id = ids.get(state);
+    if (id == null) {
+      id = names.size();
+      ids.put(state, id);
+      names.add(state);
+      closures.add(null);
+      epsilonPredecessors.add(new IntList());
+      predecessors.add(new IntList());
+      containing.add(new IntList());
+    }
+    return id;
+  }
+
+  /** Returns the sorted ε-closure of an NFA state, computing it if it is not cached. */
+  private int[] closure(int state) {
+    int[] closure = closures.get(state);
+    if (closure != null) {
+      return closure;
+    }
+    Set<Integer> members = new HashSet<>();
+    ArrayDeque<Integer> stack = new ArrayDeque<>();
+    members.add(state);
+    stack.push(state);
+    while (!stack.isEmpty()) {
+      Set<String> epsilonTargets =
+          nfa.getNfaTransitions()
+              .getOrDefault(names.get(stack.pop()), Collections.emptyMap())
+              .getOrDefault('ε', Collections.emptySet());
+      for (String target : epsilonTargets) {
+        int t = id(target);
+        if (members.add(t)) {
+          stack.push(t);
+        }
+      }
+    }
+    closure = members.stream().mapToInt(Integer::intValue).sorted().toArray();
+    closures.set(state, closure);
+    return closure;
+  }
+
+  /** A growable list of ints. */
+  private static final class IntList {
+    private int[] values = new int[2];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    void forEach(IntConsumer consumer) {
+      for (int i = 0; i < size; i++) {
+        consumer.accept(values[i]);
+      }
+    }
+  }
+}
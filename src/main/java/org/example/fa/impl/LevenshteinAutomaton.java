@@ -0,0 +1,200 @@
+package org.example.fa.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A deterministic Levenshtein automaton that accepts the strings within a fixed edit distance of a
+ * word, in the parametric style of Schulz and Mihov.
+ *
+ * <p>A state is a set of positions {@code (i, e)}: {@code i} characters of the word consumed with
+ * {@code e} edits, reduced by subsumption. Positions are stored relative to the smallest {@code i}
+ * as a 64-bit mask, so the transition on a character only depends on that mask, the characteristic
+ * vector of the character in the next {@code 3k + 2} characters of the word, and how many of them
+ * exist. These word-independent transitions are computed lazily and shared by all automata.
+ */
+public final class LevenshteinAutomaton {
+
+  /** The largest supported edit distance. */
+  public static final int MAX_DISTANCE = 3;
+
+  private static final Map<Key, State> TRANSITIONS = new ConcurrentHashMap<>();
+
+  /**
+   * A state of the automaton.
+   *
+   * @param offset the number of word characters consumed by the smallest position
+   * @param positions bit {@code 4 * i + e} is set for each position {@code (offset + i, e)}
+   */
+  public record State(int offset, long positions) {}
+
+  private record Key(long positions, int distance, int length, int characteristic) {}
+
+  private final String word;
+  private final int distance;
+  private final State start;
+
+  private LevenshteinAutomaton(String word, int distance) {
+    this.word = word;
+    this.distance = distance;
+    this.start = new State(0, 1L);
+  }
+
+  /**
+   * Builds the automaton for a word.
+   *
+   * @param word the word
+   * @param distance the maximum edit distance, between 1 and {@link #MAX_DISTANCE}
+   * @return the automaton
+   */
+  public static LevenshteinAutomaton of(String word, int distance) {
+    if (distance < 1 || distance > MAX_DISTANCE) {
+      throw new IllegalArgumentException(
+          "Edit distance must be between 1 and " + MAX_DISTANCE + ": " + distance);
+    }
+    return new LevenshteinAutomaton(word, distance);
+  }
+
+  public State getStartState() {
+    return start;
+  }
+
+  /**
+   * Moves to the next state.
+   *
+   * @param state the current state
+   * @param symbol the input character
+   * @return the next state, or null if the input is already too far from the word
+   */
+  public State step(State state, char symbol) {
+    int length = Math.min(word.length() - state.offset(), 3 * distance + 2);
+    int characteristic = 0;
+    for (int t = 0; t < length; t++) {
+      if (word.charAt(state.offset() + t) == symbol) {
+        characteristic |= 1 << t;
+      }
+    }
+    State relative =
+        TRANSITIONS.computeIfAbsent(
+            new Key(state.positions(), distance, length, characteristic),
+            key -> transition(key.positions(), key.distance(), key.length(), key.characteristic()));
+    return relative.positions() == 0
+        ? null
+        : new State(state.offset() + relative.offset(), relative.positions());
+  }
+
+  /**
+   * Checks if the input read so far is within the edit distance of the word.
+   *
+   * @param state the current state
+   * @return true if the state accepts
+   */
+  public boolean isAccepting(State state) {
+    return getDistance(state) >= 0;
+  }
+
+  /**
+   * Returns the edit distance between the input read so far and the word.
+   *
+   * @param state the current state
+   * @return the distance, or -1 if it exceeds the maximum
+   */
+  public int getDistance(State state) {
+    int remaining = word.length() - state.offset();
+    int best = -1;
+    for (long bits = state.positions(); bits != 0; bits &= bits - 1) {
+      int bit = Long.numberOfTrailingZeros(bits);
+      int cost = remaining - (bit >>> 2) + (bit & 3);
+      if (cost <= distance && (best < 0 || cost < best)) {
+        best = cost;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Checks if a string is within the edit distance of the word.
+   *
+   * @param input the input string
+   * @return true if at most the maximum number of edits turn the input into the word
+   */
+  public boolean matches(CharSequence input) {
+    State state = start;
+    for (int i = 0; i < input.length() && state != null; i++) {
+      state = step(state, input.charAt(i));
+    }
+    return state != null && isAccepting(state);
+  }
+
+  public String getWord() {
+    return word;
+  }
+
+  public int getMaxDistance() {
+    return distance;
+  }
+
+  /**
+   * Computes a parametric transition.
+   *
+   * @param positions the relative positions of the state
+   * @param k the maximum edit distance
+   * @param length how many word characters follow the smallest position, capped at {@code 3k + 2}
+   * @param characteristic bit {@code t} is set if the input character equals word character {@code
+   *     t}
+   * @return the shift of the smallest position and the new relative positions, which are 0 if no
+   *     position survives
+   */
+  private static State transition(long positions, int k, int length, int characteristic) {
+    long next = 0;
+    for (long bits = positions; bits != 0; bits &= bits - 1) {
+      int bit = Long.numberOfTrailingZeros(bits);
+      int i = bit >>> 2;
+      int e = bit & 3;
+      if (i < length && (characteristic & (1 << i)) != 0) {
+        next |= position(i + 1, e);
+        continue;
+      }
+      if (e == k) {
+        continue;
+      }
+      next |= position(i, e + 1);
+      if (i < length) {
+        next |= position(i + 1, e + 1);
+      }
+      // Delete j word characters, then match the input character.
+      for (int j = 1; j <= k - e && i + j < length; j++) {
+        if ((characteristic & (1 << (i + j))) != 0) {
+          next |= position(i + j + 1, e + j);
+          break;
+        }
+      }
+    }
+    next = reduce(next);
+    if (next == 0) {
+      return new State(0, 0);
+    }
+    int shift = Long.numberOfTrailingZeros(next) >>> 2;
+    return new State(shift, next >>> (4 * shift));
+  }
+
+  /** Removes every position subsumed by another: (i, e) subsumes (j, f) if |i - j| <= f - e. */
+  private static long reduce(long positions) {
+    long kept = positions;
+    for (long outer = positions; outer != 0; outer &= outer - 1) {
+      int a = Long.numberOfTrailingZeros(outer);
+      for (long inner = positions; inner != 0; inner &= inner - 1) {
+        int b = Long.numberOfTrailingZeros(inner);
+        int gap = (b & 3) - (a & 3);
+        if (gap > 0 && Math.abs((b >>> 2) - (a >>> 2)) <= gap) {
+          kept &= ~(1L << b);
+        }
+      }
+    }
+    return kept;
+  }
+
+  private static long position(int i, int e) {
+    return 1L << (4 * i + e);
+  }
+}
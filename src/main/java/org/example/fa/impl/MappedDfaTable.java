@@ -0,0 +1,144 @@
+package org.example.fa.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.example.fa.CompiledDfa;
+
+/**
+ * A compiled DFA that reads its tables directly from a buffer in the {@link DfaTableFormat} layout,
+ * typically a read-only file mapping. Only the Latin-1 column index is materialized on the heap.
+ */
+public final class MappedDfaTable implements CompiledDfa {
+
+  private final ByteBuffer data;
+  private final int stateCount;
+  private final int symbolCount;
+  private final int start;
+  private final int symbolsOffset;
+  private final int transitionsOffset;
+  private final int acceptOffset;
+  private final int namesOffset;
+  private final boolean shortTransitions;
+  private final int[] latin1Columns = new int[256];
+
+  MappedDfaTable(ByteBuffer data) {
+    this.data = data;
+    this.shortTransitions = (data.getShort(6) & DfaTableFormat.FLAG_SHORT_TRANSITIONS) != 0;
+    this.stateCount = data.getInt(8);
+    this.symbolCount = data.getInt(12);
+    this.start = data.getInt(16);
+    this.symbolsOffset = data.getInt(20);
+    this.transitionsOffset = data.getInt(24);
+    this.acceptOffset = data.getInt(28);
+    this.namesOffset = data.getInt(32);
+    Arrays.fill(latin1Columns, -1);
+    for (int a = 0; a < symbolCount; a++) {
+      char symbol = symbolAt(a);
+      if (symbol < 256) {
+        latin1Columns[symbol] = a;
+      }
+    }
+  }
+
+  @Override
+  public int getStartState() {
+    return start;
+  }
+
+  @Override
+  public int getStateCount() {
+    return stateCount;
+  }
+
+  @Override
+  public int next(int state, char symbol) {
+    int column = symbol < 256 ? latin1Columns[symbol] : findColumn(symbol);
+    if (column < 0) {
+      return -1;
+    }
+    int cell = state * symbolCount + column;
+    return shortTransitions
+        ? data.getShort(transitionsOffset + 2 * cell)
+        : data.getInt(transitionsOffset + 4 * cell);
+  }
+
+  @Override
+  public boolean isAccepting(int state) {
+    return (data.getLong(acceptOffset + 8 * (state >>> 6)) & (1L << state)) != 0;
+  }
+
+  /**
+   * Reads the alphabet from the symbols section.
+   *
+   * @return the symbols, in ascending order
+   */
+  public char[] getSymbols() {
+    char[] symbols = new char[symbolCount];
+    for (int a = 0; a < symbolCount; a++) {
+      symbols[a] = symbolAt(a);
+    }
+    return symbols;
+  }
+
+  /**
+   * Decodes the name of a state from the names section.
+   *
+   * @param state the state number
+   * @return the state name
+   */
+  public String getStateName(int state) {
+    int from = data.getInt(namesOffset + 4 * state);
+    int to = data.getInt(namesOffset + 4 * state + 4);
+    byte[] bytes = new byte[to - from];
+    data.get(from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Copies the mapped table into a heap {@link DfaTable}.
+   *
+   * @return the heap table
+   */
+  public DfaTable toHeap() {
+    char[] symbols = getSymbols();
+    int[] transitions = new int[stateCount * symbolCount];
+    for (int i = 0; i < transitions.length; i++) {
+      transitions[i] =
+          shortTransitions
+              ? data.getShort(transitionsOffset + 2 * i)
+              : data.getInt(transitionsOffset + 4 * i);
+    }
+    long[] accepting = new long[(stateCount + 63) >>> 6];
+    for (int i = 0; i < accepting.length; i++) {
+      accepting[i] = data.getLong(acceptOffset + 8 * i);
+    }
+    String[] names = new String[stateCount];
+    for (int s = 0; s < stateCount; s++) {
+      names[s] = getStateName(s);
+    }
+    return new DfaTable(symbols, transitions, accepting, names, start);
+  }
+
+  private char symbolAt(int column) {
+    return data.getChar(symbolsOffset + 2 * column);
+  }
+
+  /** Binary search over the sorted symbols section. */
+  private int findColumn(char symbol) {
+    int low = 0;
+    int high = symbolCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      char candidate = symbolAt(mid);
+      if (candidate < symbol) {
+        low = mid + 1;
+      } else if (candidate > symbol) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,232 @@
+package org.example.fa.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Minimizes a {@link DFiniteAutomaton} with Hopcroft's partition refinement algorithm. */
+final class Minimizer {
+
+  private Minimizer() {}
+
+  /**
+   * Builds the minimal DFA equivalent to the given one. Missing transitions are treated as going to
+   * an implicit dead state, which is dropped from the result together with every state from which
+   * no accept state can be reached. States of the result are named {@code q0..qn} in breadth-first
+   * order from the start state over the sorted alphabet, so equal languages yield equal automata.
+   *
+   * @param dfa the automaton to minimize
+   * @return the minimal equivalent automaton
+   */
+  static DFiniteAutomaton minimize(DFiniteAutomaton dfa) {
+    List<Character> symbols = new ArrayList<>(dfa.getSigma());
+    Collections.sort(symbols);
+    int k = symbols.size();
+
+    // Index the states reachable from the start state; index n is the dead state.
+    Map<String, Integer> index = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    index.put(dfa.getStartState(), 0);
+    names.add(dfa.getStartState());
+    for (int i = 0; i < names.size(); i++) {
+      Map<Character, String> row = dfa.getTransitions().getOrDefault(names.get(i), Map.of());
+      for (char symbol : symbols) {
+        String target = row.get(symbol);
+        if (target != null && !index.containsKey(target)) {
+          index.put(target, names.size());
+          names.add(target);
+        }
+      }
+    }
+    int n = names.size() + 1;
+    int dead = n - 1;
+
+    int[] delta = new int[n * k];
+    Arrays.fill(delta, dead);
+    boolean[] accepting = new boolean[n];
+    for (int s = 0; s < dead; s++) {
+      accepting[s] = dfa.getAcceptStates().contains(names.get(s));
+      Map<Character, String> row = dfa.getTransitions().getOrDefault(names.get(s), Map.of());
+      for (int a = 0; a < k; a++) {
+        String target = row.get(symbols.get(a));
+        if (target != null) {
+          delta[s * k + a] = index.get(target);
+        }
+      }
+    }
+
+    int[] block = refine(delta, accepting, n, k);
+    return build(dfa, symbols, delta, accepting, block, n, k);
+  }
+
+  /**
+   * Computes the coarsest partition of the states that is compatible with acceptance and the
+   * transition function.
+   *
+   * @return the block number of every state
+   */
+  private static int[] refine(int[] delta, boolean[] accepting, int n, int k) {
+    // Predecessor lists in compressed form: for symbol a and state t the predecessors are
+    // preds[predStart[a * n + t] .. predStart[a * n + t + 1]).
+    int[] predStart = new int[k * n + 1];
+    for (int s = 0; s < n; s++) {
+      for (int a = 0; a < k; a++) {
+        predStart[a * n + delta[s * k + a] + 1]++;
+      }
+    }
+    for (int i = 0; i < k * n; i++) {
+      predStart[i + 1] += predStart[i];
+    }
+    int[] preds = new int[n * k];
+    int[] fill = Arrays.copyOf(predStart, k * n);
+    for (int s = 0; s < n; s++) {
+      for (int a = 0; a < k; a++) {
+        preds[fill[a * n + delta[s * k + a]]++] = s;
+      }
+    }
+
+    // The partition is a permutation of the states in which every block is a contiguous range.
+    int[] elements = new int[n];
+    int[] location = new int[n];
+    int[] blockOf = new int[n];
+    int[] start = new int[n];
+    int[] end = new int[n];
+    int[] markEnd = new int[n];
+    int blocks = 0;
+
+    int position = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      boolean wanted = pass == 0;
+      int from = position;
+      for (int s = 0; s < n; s++) {
+        if (accepting[s] == wanted) {
+          elements[position] = s;
+          location[s] = position;
+          blockOf[s] = blocks;
+          position++;
+        }
+      }
+      if (position > from) {
+        start[blocks] = from;
+        end[blocks] = position;
+        markEnd[blocks] = from;
+        blocks++;
+      }
+    }
+
+    ArrayDeque<Integer> worklist = new ArrayDeque<>();
+    boolean[] pending = new boolean[n];
+    for (int b = 0; b < blocks; b++) {
+      worklist.add(b);
+      pending[b] = true;
+    }
+
+    int[] splitter = new int[n];
+    int[] touched = new int[n];
+    while (!worklist.isEmpty()) {
+      int b = worklist.poll();
+      pending[b] = false;
+      int size = end[b] - start[b];
+      System.arraycopy(elements, start[b], splitter, 0, size);
+
+      for (int a = 0; a < k; a++) {
+        int touchedCount = 0;
+        for (int i = 0; i < size; i++) {
+          int t = splitter[i];
+          for (int p = predStart[a * n + t]; p < predStart[a * n + t + 1]; p++) {
+            int s = preds[p];
+            int c = blockOf[s];
+            if (location[s] < markEnd[c]) {
+              continue;
+            }
+            if (markEnd[c] == start[c]) {
+              touched[touchedCount++] = c;
+            }
+            // Swap s to the end of the marked prefix of its block.
+            int target = markEnd[c]++;
+            int other = elements[target];
+            elements[location[s]] = other;
+            location[other] = location[s];
+            elements[target] = s;
+            location[s] = target;
+          }
+        }
+
+        for (int i = 0; i < touchedCount; i++) {
+          int c = touched[i];
+          if (markEnd[c] == end[c]) {
+            markEnd[c] = start[c];
+            continue;
+          }
+          int created = blocks++;
+          start[created] = start[c];
+          end[created] = markEnd[c];
+          markEnd[created] = start[created];
+          start[c] = end[created];
+          markEnd[c] = start[c];
+          for (int j = start[created]; j < end[created]; j++) {
+            blockOf[elements[j]] = created;
+          }
+          if (pending[c] || end[created] - start[created] <= end[c] - start[c]) {
+            worklist.add(created);
+            pending[created] = true;
+          } else {
+            worklist.add(c);
+            pending[c] = true;
+          }
+        }
+      }
+    }
+    return blockOf;
+  }
+
+  /** Materializes the quotient automaton, skipping the block of the dead state. */
+  private static DFiniteAutomaton build(
+      DFiniteAutomaton dfa,
+      List<Character> symbols,
+      int[] delta,
+      boolean[] accepting,
+      int[] block,
+      int n,
+      int k) {
+    int deadBlock = block[n - 1];
+    int[] representative = new int[n];
+    Arrays.fill(representative, -1);
+    for (int s = n - 1; s >= 0; s--) {
+      representative[block[s]] = s;
+    }
+
+    DFiniteAutomaton minimal = new DFiniteAutomaton(dfa.getSigma());
+    int[] names = new int[n];
+    Arrays.fill(names, -1);
+    List<Integer> order = new ArrayList<>();
+    names[block[0]] = 0;
+    order.add(block[0]);
+    minimal.addState("q0", accepting[0]);
+    minimal.setStartState("q0");
+    if (block[0] == deadBlock) {
+      return minimal;
+    }
+
+    for (int i = 0; i < order.size(); i++) {
+      int s = representative[order.get(i)];
+      for (int a = 0; a < k; a++) {
+        int target = block[delta[s * k + a]];
+        if (target == deadBlock) {
+          continue;
+        }
+        if (names[target] == -1) {
+          names[target] = order.size();
+          order.add(target);
+          minimal.addState("q" + names[target], accepting[representative[target]]);
+        }
+        minimal.addTransition("q" + i, symbols.get(a), "q" + names[target]);
+      }
+    }
+    return minimal;
+  }
+}
@@ -4,18 +4,27 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
 import org.example.Grammar;
 import org.example.fa.FiniteAutomation;
 
-/** Represents a non-deterministic finite automaton. */
+/**
+ * Represents a non-deterministic finite automaton.
+ *
+ * <p>Instances are mutable builders and are not safe to modify while other threads read them. The
+ * getters return read-only views; use {@link #freeze()} to obtain an immutable snapshot that can be
+ * shared freely between threads.
+ */
 public class NDFiniteAutomaton implements FiniteAutomation {
 
   // Override the transitions map to accommodate NFAs
   private final Map<String, Map<Character, Set<String>>> nfaTransitions;
+  // Read-only views of the rows and target sets, handed out by getNfaTransitions().
+  private final Map<String, Map<Character, Set<String>>> targetViews;
+  private final Map<String, Map<Character, Set<String>>> nfaTransitionViews;
   private final Set<String> states;
   private final Set<Character> sigma;
 
@@ -23,10 +32,24 @@ public class NDFiniteAutomaton implements FiniteAutomation {
 
   private final Set<String> acceptStates;
 
+  // Incremental determinizers that follow this automaton.
+  private final List<ChangeListener> changeListeners = new ArrayList<>();
+
+  /** Receives every change to the automaton; used by {@link IncrementalDeterminizer}. */
+  interface ChangeListener {
+    void onStartStateChanged(String state);
+
+    void onStateAdded(String state, boolean isAcceptState);
+
+    void onTransitionAdded(String fromState, char input, String toState);
+  }
+
   public NDFiniteAutomaton(Set<Character> sigma) {
     this.nfaTransitions = new HashMap<>();
+    this.targetViews = new HashMap<>();
+    this.nfaTransitionViews = new HashMap<>();
     this.states = new HashSet<>();
-    this.sigma = sigma;
+    this.sigma = new LinkedHashSet<>(sigma);
     this.acceptStates = new HashSet<>();
   }
 
@@ -39,6 +62,7 @@ public class NDFiniteAutomaton implements FiniteAutomation {
   public void setStartState(String startState) {
     this.startState = startState;
     states.add(startState);
+    changeListeners.forEach(listener -> listener.onStartStateChanged(startState));
   }
 
   // Override methods to work with the NFA structure
@@ -48,7 +72,8 @@ public class NDFiniteAutomaton implements FiniteAutomation {
     if (isAcceptState) {
       acceptStates.add(state);
     }
-    nfaTransitions.putIfAbsent(state, new HashMap<>());
+    row(state);
+    changeListeners.forEach(listener -> listener.onStateAdded(state, isAcceptState));
   }
 
   /**
@@ -59,9 +84,42 @@ public class NDFiniteAutomaton implements FiniteAutomation {
    * @param toState the state to which the transition can go
    */
   public void addTransition(final String fromState, final char input, final String toState) {
-    nfaTransitions.putIfAbsent(fromState, new HashMap<>());
-    nfaTransitions.get(fromState).putIfAbsent(input, new HashSet<>());
-    nfaTransitions.get(fromState).get(input).add(toState);
+    Map<Character, Set<String>> row = row(fromState);
+    Set<String> targets = row.get(input);
+    if (targets == null) {
+      targets = new HashSet<>();
+      row.put(input, targets);
+      targetViews.get(fromState).put(input, Collections.unmodifiableSet(targets));
+    }
+    if (targets.add(toState)) {
+      changeListeners.forEach(listener -> listener.onTransitionAdded(fromState, input, toState));
+    }
+  }
+
+  void addChangeListener(ChangeListener listener) {
+    changeListeners.add(listener);
+  }
+
+  void removeChangeListener(ChangeListener listener) {
+    changeListeners.remove(listener);
+  }
+
+  /**
+   * Returns the mutable transition row of a state, creating it if needed.
+   *
+   * @param state the state
+   * @return the transitions leaving the state
+   */
+  private Map<Character, Set<String>> row(final String state) {
+    Map<Character, Set<String>> row = nfaTransitions.get(state);
+    if (row == null) {
+      row = new HashMap<>();
+      nfaTransitions.put(state, row);
+      Map<Character, Set<String>> rowView = new HashMap<>();
+      targetViews.put(state, rowView);
+      nfaTransitionViews.put(state, Collections.unmodifiableMap(rowView));
+    }
+    return row;
   }
 
   /**
@@ -143,7 +201,7 @@ public class NDFiniteAutomaton implements FiniteAutomation {
   }
 
   public Map<String, Map<Character, Set<String>>> getNfaTransitions() {
-    return nfaTransitions;
+    return Collections.unmodifiableMap(nfaTransitionViews);
   }
 
   /**
@@ -152,62 +210,15 @@ public class NDFiniteAutomaton implements FiniteAutomation {
    * @return the equivalent DFA
    */
   public DFiniteAutomaton convertToDFA() {
-    DFiniteAutomaton dfa = new DFiniteAutomaton(sigma);
-    Map<Set<String>, String> dfaStatesMap = new HashMap<>();
-    Set<Set<String>> markedStates = new HashSet<>();
-    Set<Set<String>> unmarkedStates = new HashSet<>();
-
-    char currentStateChar = 'S';
-    Function<Integer, String> getStateName =
-        (counter) -> {
-          if (counter == 0) {
-            return String.valueOf(currentStateChar);
-          } else {
-            return String.valueOf((char) ('A' + counter - 1));
-          }
-        };
-
-    Set<String> startSet = new HashSet<>();
-    startSet.add(startState);
-    unmarkedStates.add(startSet);
-    String startStateName = getStateName.apply(0);
-    dfaStatesMap.put(startSet, startStateName);
-    dfa.addState(startStateName, acceptStates.contains(startState));
-    dfa.setStartState(startStateName);
-
-    int stateCounter = 1;
-
-    while (!unmarkedStates.isEmpty()) {
-      Set<String> currentSet = unmarkedStates.iterator().next();
-      unmarkedStates.remove(currentSet);
-      markedStates.add(currentSet);
-      String currentStateName = dfaStatesMap.get(currentSet);
-
-      for (char symbol : sigma) {
-        Set<String> newSet = new HashSet<>();
-        currentSet.forEach(
-            state ->
-                newSet.addAll(
-                    nfaTransitions
-                        .getOrDefault(state, Collections.emptyMap())
-                        .getOrDefault(symbol, Collections.emptySet())));
-
-        if (!newSet.isEmpty()) {
-          String newStateName;
-          if (!dfaStatesMap.containsKey(newSet)) {
-            newStateName = getStateName.apply(stateCounter++);
-            dfaStatesMap.put(newSet, newStateName);
-            dfa.addState(newStateName, !Collections.disjoint(newSet, acceptStates));
-            unmarkedStates.add(newSet);
-          } else {
-            newStateName = dfaStatesMap.get(newSet);
-          }
-          dfa.addTransition(currentStateName, symbol, newStateName);
-        }
-      }
-    }
-
-    return dfa;
+    return SubsetConstruction.run(
+            this,
+            false,
+            SubsetConstruction.Naming.LETTERS,
+            "convertToDFA",
+            DeterminizationBudget.unlimited(),
+            null)
+        .getDfa()
+        .orElseThrow();
   }
 
   /**
@@ -216,100 +227,52 @@ public class NDFiniteAutomaton implements FiniteAutomation {
    * @return the equivalent DFA
    */
   public DFiniteAutomaton convertEpsilonNfaToDfa() {
-    DFiniteAutomaton dfa = new DFiniteAutomaton(sigma);
-
-    Map<String, Set<String>> epsilonClosures = new HashMap<>();
-
-    states.forEach(state -> epsilonClosures.put(state, calculateEpsilonClosure(state)));
-
-    Set<String> startClosure = epsilonClosures.get(startState);
-    Set<Set<String>> dfaStates = new HashSet<>();
-    dfaStates.add(startClosure);
-
-    List<Set<String>> queue = new ArrayList<>();
-    queue.add(startClosure);
-
-    dfa.setStartState(encodeState(startClosure));
-    dfa.addState(encodeState(startClosure), startClosure.stream().anyMatch(acceptStates::contains));
-
-    while (!queue.isEmpty()) {
-      Set<String> currentDfaState = queue.remove(0);
-      sigma.forEach(
-          symbol -> {
-            Set<String> nextState = new HashSet<>();
-            currentDfaState.forEach(
-                state -> {
-                  Set<String> transitions =
-                      nfaTransitions
-                          .getOrDefault(state, Collections.emptyMap())
-                          .getOrDefault(symbol, Collections.emptySet());
-                  transitions.forEach(
-                      transition -> nextState.addAll(epsilonClosures.get(transition)));
-                });
-
-            if (!nextState.isEmpty() && !dfaStates.contains(nextState)) {
-              dfaStates.add(nextState);
-              queue.add(nextState);
-              dfa.addState(
-                  encodeState(nextState), nextState.stream().anyMatch(acceptStates::contains));
-            }
-
-            if (!nextState.isEmpty()) {
-              dfa.addTransition(encodeState(currentDfaState), symbol, encodeState(nextState));
-            }
-          });
-    }
-
-    return dfa;
-  }
-
-  /**
-   * Calculates the ε-closure of a state.
-   *
-   * @param startState the start state
-   * @return the ε-closure of the state
-   */
-  private Set<String> calculateEpsilonClosure(String startState) {
-    Set<String> closure = new HashSet<>();
-    dfsEpsilonClosure(startState, closure);
-    return closure;
+    return SubsetConstruction.run(
+            this,
+            true,
+            SubsetConstruction.Naming.SUBSETS,
+            "convertEpsilonNfaToDfa",
+            DeterminizationBudget.unlimited(),
+            null)
+        .getDfa()
+        .orElseThrow();
   }
 
   /**
-   * Depth-first search to calculate the ε-closure of a state.
+   * Converts the NFA, which may use ε-transitions, to an equivalent DFA within a budget. The run
+   * stops early if the budget is exceeded, the token is cancelled or the current thread is
+   * interrupted; the interrupt flag is left set.
    *
-   * @param currentState the current state
-   * @param closure the set of states in the ε-closure
+   * @param budget the limits on states, memory and time
+   * @param token the cancellation token, or null
+   * @return the DFA, or the reason the conversion stopped with the statistics so far
    */
-  private void dfsEpsilonClosure(String currentState, Set<String> closure) {
-    if (!closure.contains(currentState)) {
-      closure.add(currentState);
-      Set<String> epsilonTransitions =
-          nfaTransitions
-              .getOrDefault(currentState, new HashMap<>())
-              .getOrDefault('ε', Collections.emptySet());
-      epsilonTransitions.forEach(nextState -> dfsEpsilonClosure(nextState, closure));
-    }
+  public DeterminizationResult determinize(DeterminizationBudget budget, CancellationToken token) {
+    return SubsetConstruction.run(
+        this,
+        true,
+        SubsetConstruction.Naming.LETTERS,
+        "determinize",
+        budget,
+        token == null ? new CancellationToken() : token);
   }
 
   /**
-   * Encodes a set of states into a single string.
+   * Starts incremental determinization: the returned determinizer converts the automaton now and
+   * afterwards only re-expands the DFA states affected by later changes to this automaton.
    *
-   * @param stateSet the set of states
-   * @return the encoded string
+   * @return the determinizer, which should be closed when no longer needed
    */
-  private String encodeState(Set<String> stateSet) {
-    List<String> sortedStates = new ArrayList<>(stateSet);
-    Collections.sort(sortedStates);
-    return String.join("_", sortedStates);
+  public IncrementalDeterminizer determinizeIncrementally() {
+    return new IncrementalDeterminizer(this);
   }
 
   public Set<String> getStates() {
-    return states;
+    return Collections.unmodifiableSet(states);
   }
 
   public Set<Character> getSigma() {
-    return sigma;
+    return Collections.unmodifiableSet(sigma);
   }
 
   public String getStartState() {
@@ -317,6 +280,17 @@ public class NDFiniteAutomaton implements FiniteAutomation {
   }
 
   public Set<String> getAcceptStates() {
-    return acceptStates;
+    return Collections.unmodifiableSet(acceptStates);
+  }
+
+  /**
+   * Takes an immutable snapshot of this automaton with ε-closures precomputed. The snapshot can be
+   * matched against from any number of threads without synchronization, and later changes to this
+   * automaton do not affect it.
+   *
+   * @return the frozen automaton
+   */
+  public NfaTable freeze() {
+    return NfaTable.of(this);
   }
 }
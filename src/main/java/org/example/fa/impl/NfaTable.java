@@ -0,0 +1,214 @@
+package org.example.fa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable, compact snapshot of an {@link NDFiniteAutomaton} for concurrent matching.
+ *
+ * <p>States are numbered and ε-closures are folded into the transitions ahead of time, so that
+ * {@code next(S, a)} is the union of the precomputed successor lists of the states in {@code S}.
+ * The successor lists are stored in compressed form in two {@code int[]} arrays. Matching keeps the
+ * current state set in a per-call bitset and never touches shared mutable state.
+ */
+public final class NfaTable {
+
+  private final char[] symbols;
+  private final int[] latin1Columns;
+  private final int stateCount;
+  // Successors of state s on column a: targets[offsets[s * k + a] .. offsets[s * k + a + 1]).
+  private final int[] offsets;
+  private final int[] targets;
+  private final long[] startSet;
+  private final long[] accepting;
+
+  private NfaTable(
+      char[] symbols,
+      int stateCount,
+      int[] offsets,
+      int[] targets,
+      long[] startSet,
+      long[] accepting) {
+    this.symbols = symbols;
+    this.stateCount = stateCount;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.startSet = startSet;
+    this.accepting = accepting;
+    this.latin1Columns = new int[256];
+    Arrays.fill(latin1Columns, -1);
+    for (int i = 0; i < symbols.length && symbols[i] < 256; i++) {
+      latin1Columns[symbols[i]] = i;
+    }
+  }
+
+  /**
+   * Builds the snapshot of an automaton.
+   *
+   * @param nfa the automaton, which may use {@code 'ε'} transitions
+   * @return the snapshot
+   */
+  static NfaTable of(NDFiniteAutomaton nfa) {
+    List<Character> sorted = new ArrayList<>(nfa.getSigma());
+    sorted.remove(Character.valueOf('ε'));
+    Collections.sort(sorted);
+    char[] symbols = new char[sorted.size()];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = sorted.get(i);
+    }
+    int k = symbols.length;
+
+    List<String> names = new ArrayList<>(nfa.getStates());
+    Set<String> known = new HashSet<>(names);
+    nfa.getNfaTransitions()
+        .forEach(
+            (state, row) -> {
+              if (known.add(state)) {
+                names.add(state);
+              }
+              row.values()
+                  .forEach(
+                      targets ->
+                          targets.forEach(
+                              target -> {
+                                if (known.add(target)) {
+                                  names.add(target);
+                                }
+                              }));
+            });
+    Collections.sort(names);
+    Map<String, Integer> index = new HashMap<>();
+    for (String name : names) {
+      index.put(name, index.size());
+    }
+    int n = names.size();
+    int words = (n + 63) >>> 6;
+
+    long[][] closures = new long[n][];
+    for (int s = 0; s < n; s++) {
+      closures[s] = closure(nfa, names, index, s, words);
+    }
+
+    int[] offsets = new int[n * k + 1];
+    List<Integer> targetList = new ArrayList<>();
+    long[] successors = new long[words];
+    for (int s = 0; s < n; s++) {
+      Map<Character, Set<String>> row =
+          nfa.getNfaTransitions().getOrDefault(names.get(s), Collections.emptyMap());
+      for (int a = 0; a < k; a++) {
+        Arrays.fill(successors, 0);
+        for (String target : row.getOrDefault(symbols[a], Collections.emptySet())) {
+          long[] closure = closures[index.get(target)];
+          for (int w = 0; w < words; w++) {
+            successors[w] |= closure[w];
+          }
+        }
+        forEachBit(successors, targetList::add);
+        offsets[s * k + a + 1] = targetList.size();
+      }
+    }
+    int[] targets = new int[targetList.size()];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = targetList.get(i);
+    }
+
+    long[] startSet = new long[words];
+    if (nfa.getStartState() != null) {
+      startSet = closures[index.get(nfa.getStartState())].clone();
+    }
+    long[] accepting = new long[words];
+    for (String state : nfa.getAcceptStates()) {
+      int s = index.get(state);
+      accepting[s >>> 6] |= 1L << s;
+    }
+    return new NfaTable(symbols, n, offsets, targets, startSet, accepting);
+  }
+
+  /**
+   * Checks if a string is accepted by simulating the automaton on a set of states.
+   *
+   * @param input the input string
+   * @return true if the string is accepted, false otherwise
+   */
+  public boolean matches(CharSequence input) {
+    int k = symbols.length;
+    long[] current = startSet.clone();
+    long[] next = new long[current.length];
+    for (int i = 0; i < input.length(); i++) {
+      char symbol = input.charAt(i);
+      int column = symbol < 256 ? latin1Columns[symbol] : Arrays.binarySearch(symbols, symbol);
+      if (column < 0) {
+        return false;
+      }
+      Arrays.fill(next, 0);
+      boolean any = false;
+      for (int w = 0; w < current.length; w++) {
+        long bits = current[w];
+        while (bits != 0) {
+          int s = (w << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          for (int t = offsets[s * k + column]; t < offsets[s * k + column + 1]; t++) {
+            next[targets[t] >>> 6] |= 1L << targets[t];
+            any = true;
+          }
+        }
+      }
+      if (!any) {
+        return false;
+      }
+      long[] swap = current;
+      current = next;
+      next = swap;
+    }
+    for (int w = 0; w < current.length; w++) {
+      if ((current[w] & accepting[w]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int getStateCount() {
+    return stateCount;
+  }
+
+  /** Computes the ε-closure of a state as a bitset. */
+  private static long[] closure(
+      NDFiniteAutomaton nfa, List<String> names, Map<String, Integer> index, int state, int words) {
+    long[] closure = new long[words];
+    closure[state >>> 6] |= 1L << state;
+    List<Integer> stack = new ArrayList<>(List.of(state));
+    while (!stack.isEmpty()) {
+      int current = stack.remove(stack.size() - 1);
+      Set<String> epsilon =
+          nfa.getNfaTransitions()
+              .getOrDefault(names.get(current), Collections.emptyMap())
+              .getOrDefault('ε', Collections.emptySet());
+      for (String target : epsilon) {
+        int t = index.get(target);
+        if ((closure[t >>> 6] & (1L << t)) == 0) {
+          closure[t >>> 6] |= 1L << t;
+          stack.add(t);
+        }
+      }
+    }
+    return closure;
+  }
+
+  private static void forEachBit(long[] bits, IntConsumer consumer) {
+    for (int w = 0; w < bits.length; w++) {
+      long word = bits[w];
+      while (word != 0) {
+        consumer.accept((w << 6) + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+}
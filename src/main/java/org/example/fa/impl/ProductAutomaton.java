@@ -0,0 +1,257 @@
+package org.example.fa.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A lazily built product of two deterministic finite automata combined with a boolean operation.
+ *
+ * <p>Pair states are materialized only when a match or a search first reaches them, so checking
+ * inputs against "A and not B" never pays for the full product. A missing transition on either side
+ * leads to an implicit dead state. Instances cache the pairs they have built and are not
+ * thread-safe.
+ */
+public class ProductAutomaton {
+
+  /** The boolean operation applied to the two languages. */
+  public enum Operation {
+    INTERSECTION,
+    UNION,
+    DIFFERENCE;
+
+    /**
+     * Combines the acceptance of the two sides.
+     *
+     * @param left whether the left automaton accepts
+     * @param right whether the right automaton accepts
+     * @return whether the product accepts
+     */
+    boolean accepts(boolean left, boolean right) {
+      return switch (this) {
+        case INTERSECTION -> left && right;
+        case UNION -> left || right;
+        case DIFFERENCE -> left && !right;
+      };
+    }
+
+    /**
+     * Checks whether a pair can never accept, whatever input follows.
+     *
+     * @param leftDead whether the left side is in its dead state
+     * @param rightDead whether the right side is in its dead state
+     * @return true if the pair is dead
+     */
+    boolean isDead(boolean leftDead, boolean rightDead) {
+      return switch (this) {
+        case INTERSECTION -> leftDead || rightDead;
+        case UNION -> leftDead && rightDead;
+        case DIFFERENCE -> leftDead;
+      };
+    }
+  }
+
+  /** A materialized pair of states; {@code null} stands for the dead state of that side. */
+  private static final class Pair {
+    private final String left;
+    private final String right;
+    private final boolean accepting;
+    private final Map<Character, Pair> successors = new HashMap<>();
+
+    private Pair(String left, String right, boolean accepting) {
+      this.left = left;
+      this.right = right;
+      this.accepting = accepting;
+    }
+  }
+
+  private record Key(String left, String right) {}
+
+  private final DFiniteAutomaton left;
+  private final DFiniteAutomaton right;
+  private final Operation operation;
+  private final Set<Character> sigma;
+  private final Map<Key, Pair> pairs = new HashMap<>();
+  private final Pair start;
+
+  public ProductAutomaton(DFiniteAutomaton left, DFiniteAutomaton right, Operation operation) {
+    this.left = left;
+    this.right = right;
+    this.operation = operation;
+    Set<Character> symbols = new TreeSet<>(left.getSigma());
+    symbols.addAll(right.getSigma());
+    this.sigma = Collections.unmodifiableSet(symbols);
+    this.start = pair(left.getStartState(), right.getStartState());
+  }
+
+  /**
+   * Checks if a string is accepted by the product, materializing only the pairs on its path.
+   *
+   * @param input the input string
+   * @return true if the string is accepted, false otherwise
+   */
+  public boolean isStringAccepted(String input) {
+    Pair current = start;
+    for (int i = 0; i < input.length(); i++) {
+      if (current == null) {
+        return false;
+      }
+      current = next(current, input.charAt(i));
+    }
+    return current != null && current.accepting;
+  }
+
+  /**
+   * Checks whether the product accepts no string at all. The search stops at the first accepting
+   * pair it finds.
+   *
+   * @return true if the language of the product is empty
+   */
+  public boolean isEmpty() {
+    return findShortestAccepted().isEmpty();
+  }
+
+  /**
+   * Finds a shortest string accepted by the product with a breadth-first search that stops at the
+   * first accepting pair.
+   *
+   * @return a shortest accepted string, or empty if the language is empty
+   */
+  public Optional<String> findShortestAccepted() {
+    if (start == null) {
+      return Optional.empty();
+    }
+    Map<Pair, Pair> parent = new HashMap<>();
+    Map<Pair, Character> via = new HashMap<>();
+    ArrayDeque<Pair> queue = new ArrayDeque<>();
+    parent.put(start, start);
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      Pair current = queue.poll();
+      if (current.accepting) {
+        StringBuilder witness = new StringBuilder();
+        for (Pair p = current; p != start; p = parent.get(p)) {
+          witness.append(via.get(p));
+        }
+        return Optional.of(witness.reverse().toString());
+      }
+      for (char symbol : sigma) {
+        Pair successor = next(current, symbol);
+        if (successor != null && !parent.containsKey(successor)) {
+          parent.put(successor, current);
+          via.put(successor, symbol);
+          queue.add(successor);
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Eagerly builds the product as a DFA. Only pairs reachable from the start pair are created, and
+   * dead pairs are left out as missing transitions.
+   *
+   * @return the product DFA
+   */
+  public DFiniteAutomaton toDFA() {
+    DFiniteAutomaton dfa = new DFiniteAutomaton(sigma);
+    if (start == null) {
+      String name = nameOf(left.getStartState(), right.getStartState());
+      dfa.addState(name, false);
+      dfa.setStartState(name);
+      return dfa;
+    }
+    Set<Pair> visited = new HashSet<>();
+    List<Pair> queue = new ArrayList<>();
+    visited.add(start);
+    queue.add(start);
+    dfa.addState(nameOf(start), start.accepting);
+    dfa.setStartState(nameOf(start));
+    for (int i = 0; i < queue.size(); i++) {
+      Pair current = queue.get(i);
+      for (char symbol : sigma) {
+        Pair successor = next(current, symbol);
+        if (successor == null) {
+          continue;
+        }
+        if (visited.add(successor)) {
+          queue.add(successor);
+          dfa.addState(nameOf(successor), successor.accepting);
+        }
+        dfa.addTransition(nameOf(current), symbol, nameOf(successor));
+      }
+    }
+    return dfa;
+  }
+
+  /**
+   * Returns the number of pair states materialized so far.
+   *
+   * @return the number of pairs
+   */
+  public int getMaterializedStates() {
+    return pairs.size();
+  }
+
+  public Set<Character> getSigma() {
+    return sigma;
+  }
+
+  /**
+   * Follows a transition from a pair, materializing the successor on first use.
+   *
+   * @return the successor pair, or {@code null} if it is dead
+   */
+  private Pair next(Pair current, char symbol) {
+    Pair successor = current.successors.get(symbol);
+    if (successor == null && !current.successors.containsKey(symbol)) {
+      successor = pair(step(left, current.left, symbol), step(right, current.right, symbol));
+      current.successors.put(symbol, successor);
+    }
+    return successor;
+  }
+
+  /**
+   * Returns the pair for two component states, or {@code null} if the pair is dead.
+   */
+  private Pair pair(String leftState, String rightState) {
+    if (operation.isDead(leftState == null, rightState == null)) {
+      return null;
+    }
+    return pairs.computeIfAbsent(
+        new Key(leftState, rightState),
+        key ->
+            new Pair(
+                leftState,
+                rightState,
+                operation.accepts(
+                    leftState != null && left.getAcceptStates().contains(leftState),
+                    rightState != null && right.getAcceptStates().contains(rightState))));
+  }
+
+  private static String step(DFiniteAutomaton dfa, String state, char symbol) {
+    if (state == null) {
+      return null;
+    }
+    return dfa.getTransitions().getOrDefault(state, Collections.emptyMap()).get(symbol);
+  }
+
+  private static String nameOf(Pair pair) {
+    return nameOf(pair.left, pair.right);
+  }
+
+  private static String nameOf(String leftState, String rightState) {
+    return "("
+        + (leftState == null ? "Ø" : leftState)
+        + ","
+        + (rightState == null ? "Ø" : rightState)
+        + ")";
+  }
+}
@@ -0,0 +1,322 @@
+package org.example.fa.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.example.fa.impl.DeterminizationResult.Status;
+import org.example.metrics.AutomatonMetricsListener;
+import org.example.metrics.Metrics;
+
+/**
+ * The subset construction shared by the NFA converters. DFA states are discovered breadth first
+ * from the start subset, and the budget is checked before each state is expanded.
+ */
+final class SubsetConstruction {
+
+  /** How DFA states are named. */
+  enum Naming {
+    /** {@code S} for the start state, then the letters {@code A} to {@code Z}, then {@code qN}. */
+    LETTERS,
+    /** The sorted names of the NFA states in the subset, joined with {@code _}. */
+    SUBSETS
+  }
+
+  // Rough heap costs of a DFA state, one member of its subset and one of its transitions, including
+  // the DFiniteAutomaton that is built at the end.
+  private static final long STATE_BYTES = 192;
+  private static final long MEMBER_BYTES = 4;
+  private static final long TRANSITION_BYTES = 64;
+  private static final int[] NONE = new int[0];
+
+  private SubsetConstruction() {}
+
+  /**
+   * Determinizes an automaton within a budget.
+   *
+   * <p>NFA states are numbered in name order and a subset is identified by its sorted member ids,
+   * interned by {@link SubsetInterner}. Successor lists, with ε-closures folded in, are computed
+   * once per NFA state and symbol. Readable names are only produced when the DFA is built at the
+   * end.
+   *
+   * @param nfa the automaton
+   * @param epsilon whether to follow {@code 'ε'} transitions
+   * @param naming how to name the DFA states
+   * @param operation the operation name reported to the metrics listener
+   * @param budget the limits
+   * @param token the cancellation token, or null if neither the token nor interrupts should stop
+   *     the run
+   * @return the DFA or the reason the construction stopped
+   */
+  static DeterminizationResult run(
+      NDFiniteAutomaton nfa,
+      boolean epsilon,
+      Naming naming,
+      String operation,
+      DeterminizationBudget budget,
+      CancellationToken token) {
+    AutomatonMetricsListener listener = Metrics.listener();
+    if (listener != null) {
+      listener.beforeDeterminization();
+    }
+    long start = System.nanoTime();
+    long timeout = budget.getTimeout() == null ? Long.MAX_VALUE : budget.getTimeout().toNanos();
+    List<Character> symbols = new ArrayList<>(nfa.getSigma());
+    if (epsilon) {
+      symbols.remove(Character.valueOf('ε'));
+    }
+    int k = symbols.size();
+    List<String> names = stateNames(nfa);
+    Map<String, Integer> index = new HashMap<>();
+    for (String name : names) {
+      index.put(name, index.size());
+    }
+    int[][] successors = successors(nfa, names, index, symbols, epsilon);
+    boolean[] accepting = new boolean[names.size()];
+    for (String state : nfa.getAcceptStates()) {
+      accepting[index.get(state)] = true;
+    }
+
+    SubsetInterner subsets = new SubsetInterner();
+    // DFA transitions in row-major order, -1 where there is none. Every expanded row is filled.
+    int[] table = new int[16 * Math.max(k, 1)];
+    boolean[] acceptingSubsets = new boolean[16];
+    int[] scratch = new int[names.size()];
+    long[] seen = new long[(names.size() + 63) >>> 6];
+    long processed = 0;
+    long memory = 0;
+    Status status = Status.COMPLETED;
+
+    if (nfa.getStartState() != null) {
+      int startId = index.get(nfa.getStartState());
+      int[] startSet = epsilon ? closure(startId, nfa, names, index) : new int[] {startId};
+      subsets.add(startSet, startSet.length);
+      acceptingSubsets[0] = anyAccepting(startSet, startSet.length, accepting);
+      memory += STATE_BYTES + MEMBER_BYTES * startSet.length;
+    }
+
+    expansion:
+    while (processed < subsets.size()) {
+      status = check(budget, token, memory, System.nanoTime() - start, timeout);
+      if (status != Status.COMPLETED) {
+        break;
+      }
+      int current = (int) processed++;
+      int[] members = subsets.get(current);
+      for (int a = 0; a < k; a++) {
+        int length = 0;
+        for (int member : members) {
+          for (int target : successors[member * k + a]) {
+            if ((seen[target >>> 6] & (1L << target)) == 0) {
+              seen[target >>> 6] |= 1L << target;
+              scratch[length++] = target;
+            }
+          }
+        }
+        int next = -1;
+        if (length > 0) {
+          for (int i = 0; i < length; i++) {
+            seen[scratch[i] >>> 6] = 0;
+          }
+          Arrays.sort(scratch, 0, length);
+          next = subsets.find(scratch, length);
+          if (next < 0) {
+            int count = subsets.size();
+            if (count >= budget.getMaxStates()) {
+              status = Status.STATE_LIMIT_EXCEEDED;
+              break expansion;
+            }
+            next = subsets.add(scratch, length);
+            if (acceptingSubsets.length == count) {
+              acceptingSubsets = Arrays.copyOf(acceptingSubsets, count * 2);
+            }
+            acceptingSubsets[count] = anyAccepting(scratch, length, accepting);
+            memory += STATE_BYTES + MEMBER_BYTES * length;
+          }
+          memory += TRANSITION_BYTES;
+        }
+        if (table.length <= current * k + a) {
+          table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[current * k + a] = next;
+      }
+    }
+
+    int stateCount = subsets.size();
+    DFiniteAutomaton dfa = null;
+    if (status == Status.COMPLETED) {
+      dfa = new DFiniteAutomaton(nfa.getSigma());
+      String[] dfaNames = new String[stateCount];
+      for (int d = 0; d < stateCount; d++) {
+        dfaNames[d] = name(naming, d, subsets.get(d), names);
+        dfa.addState(dfaNames[d], acceptingSubsets[d]);
+      }
+      if (stateCount > 0) {
+        dfa.setStartState(dfaNames[0]);
+      }
+      for (int d = 0; d < stateCount; d++) {
+        for (int a = 0; a < k; a++) {
+          int target = table[d * k + a];
+          if (target >= 0) {
+            dfa.addTransition(dfaNames[d], symbols.get(a), dfaNames[target]);
+          }
+        }
+      }
+    }
+
+    long elapsed = System.nanoTime() - start;
+    if (listener != null) {
+      listener.onDeterminization(operation, (int) (processed * k), stateCount, elapsed);
+    }
+    return new DeterminizationResult(status, dfa, stateCount, processed * k, memory, elapsed);
+  }
+
+  private static Status check(
+      DeterminizationBudget budget,
+      CancellationToken token,
+      long memory,
+      long elapsed,
+      long timeout) {
+    if (token != null && (token.isCancelled() || Thread.currentThread().isInterrupted())) {
+      return Status.CANCELLED;
+    }
+    if (memory > budget.getMaxMemoryBytes()) {
+      return Status.MEMORY_LIMIT_EXCEEDED;
+    }
+    if (elapsed > timeout) {
+      return Status.DEADLINE_EXCEEDED;
+    }
+    return Status.COMPLETED;
+  }
+
+  /** Collects the states and transition targets of an automaton, sorted by name. */
+  static List<String> stateNames(NDFiniteAutomaton nfa) {
+    Set<String> known = new HashSet<>(nfa.getStates());
+    nfa.getNfaTransitions()
+        .forEach(
+            (state, row) -> {
+              known.add(state);
+              row.values().forEach(known::addAll);
+            });
+    List<String> names = new ArrayList<>(known);
+    Collections.sort(names);
+    return names;
+  }
+
+  /**
+   * Computes the sorted successors of every state on every symbol, with the ε-closures of the
+   * targets folded in if requested.
+   *
+   * @return the successors of state {@code s} on symbol {@code a} at index {@code s * k + a}
+   */
+  private static int[][] successors(
+      NDFiniteAutomaton nfa,
+      List<String> names,
+      Map<String, Integer> index,
+      List<Character> symbols,
+      boolean epsilon) {
+    int k = symbols.size();
+    int[][] closures = new int[names.size()][];
+    int[][] successors = new int[names.size() * k][];
+    Arrays.fill(successors, NONE);
+    int[] scratch = new int[names.size()];
+    long[] seen = new long[(names.size() + 63) >>> 6];
+    for (int s = 0; s < names.size(); s++) {
+      Map<Character, Set<String>> row =
+          nfa.getNfaTransitions().getOrDefault(names.get(s), Collections.emptyMap());
+      for (int a = 0; a < k; a++) {
+        Set<String> direct = row.get(symbols.get(a));
+        if (direct == null || direct.isEmpty()) {
+          continue;
+        }
+        int length = 0;
+        for (String target : direct) {
+          int t = index.get(target);
+          if (epsilon && closures[t] == null) {
+            closures[t] = closure(t, nfa, names, index);
+          }
+          for (int member : epsilon ? closures[t] : new int[] {t}) {
+            if ((seen[member >>> 6] & (1L << member)) == 0) {
+              seen[member >>> 6] |= 1L << member;
+              scratch[length++] = member;
+            }
+          }
+        }
+        for (int i = 0; i < length; i++) {
+          seen[scratch[i] >>> 6] = 0;
+        }
+        Arrays.sort(scratch, 0, length);
+        successors[s * k + a] = Arrays.copyOf(scratch, length);
+      }
+    }
+    return successors;
+  }
+
+  /** Computes the sorted ε-closure of a state iteratively, so long ε-chains cannot overflow. */
+  private static int[] closure(
+      int state, NDFiniteAutomaton nfa, List<String> names, Map<String, Integer> index) {
+    Set<Integer> closure = new TreeSet<>();
+    ArrayDeque<Integer> stack = new ArrayDeque<>();
+    closure.add(state);
+    stack.push(state);
+    while (!stack.isEmpty()) {
+      Set<String> epsilonTargets =
+          nfa.getNfaTransitions()
+              .getOrDefault(names.get(stack.pop()), Collections.emptyMap())
+              .getOrDefault('ε', Collections.emptySet());
+      for (String target : epsilonTargets) {
+        int t = index.get(target);
+        if (closure.add(t)) {
+          stack.push(t);
+        }
+      }
+    }
+    return closure.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static boolean anyAccepting(int[] members, int length, boolean[] accepting) {
+    for (int i = 0; i < length; i++) {
+      if (accepting[members[i]]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Names the DFA state with the given creation index.
+   *
+   * @param naming the naming scheme
+   * @param index the number of states created before this one
+   * @param members the sorted ids of the NFA states of the DFA state
+   * @param names the NFA state names by id, in sorted order
+   * @return the state name
+   */
+  static String name(Naming naming, int index, int[] members, List<String> names) {
+    if (naming == Naming.SUBSETS) {
+      StringBuilder sb = new StringBuilder();
+      for (int member : members) {
+        if (sb.length() > 0) {
+          sb.append('_');
+        }
+        sb.append(names.get(member));
+      }
+      return sb.toString();
+    }
+    if (index == 0) {
+      return "S";
+    }
+    // A..R keep their historical positions; S is reserved for the start state.
+    if (index <= 25) {
+      char letter = (char) ('A' + index - 1);
+      return String.valueOf(letter >= 'S' ? (char) (letter + 1) : letter);
+    }
+    return "q" + index;
+  }
+}
@@ -0,0 +1,101 @@
+package org.example.fa.impl;
+
+import java.util.Arrays;
+
+/**
+ * Interns subsets of NFA states, each given as a sorted {@code int[]}, and numbers them in order of
+ * addition. Hashes are cached per subset, and lookups hash and compare the caller's scratch array
+ * directly, so finding an existing subset does not allocate; only new subsets are copied.
+ */
+final class SubsetInterner {
+
+  private int[][] subsets = new int[16][];
+  private int[] hashes = new int[16];
+  private int size;
+  // Open addressing over subset ids + 1; 0 marks an empty slot.
+  private int[] slots = new int[32];
+
+  /**
+   * Looks up a subset.
+   *
+   * @param members the sorted member ids, starting at index 0
+   * @param length the number of members
+   * @return the subset id, or -1 if the subset has not been added
+   */
+  int find(int[] members, int length) {
+    int hash = hash(members, length);
+    int mask = slots.length - 1;
+    for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int id = slots[slot] - 1;
+      if (hashes[id] == hash
+          && Arrays.equals(subsets[id], 0, subsets[id].length, members, 0, length)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds a copy of a subset that is not interned yet.
+   *
+   * @param members the sorted member ids, starting at index 0
+   * @param length the number of members
+   * @return the new subset id, which equals the previous {@link #size()}
+   */
+  int add(int[] members, int length) {
+    if (size == subsets.length) {
+      subsets = Arrays.copyOf(subsets, size * 2);
+      hashes = Arrays.copyOf(hashes, size * 2);
+    }
+    subsets[size] = Arrays.copyOf(members, length);
+    hashes[size] = hash(members, length);
+    size++;
+    if (size * 2 > slots.length) {
+      rehash(slots.length * 2);
+    } else {
+      insert(size - 1);
+    }
+    return size - 1;
+  }
+
+  /**
+   * Returns the members of an interned subset. The array must not be modified.
+   *
+   * @param id the subset id
+   * @return the sorted member ids
+   */
+  int[] get(int id) {
+    return subsets[id];
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash(int capacity) {
+    slots = new int[capacity];
+    for (int id = 0; id < size; id++) {
+      insert(id);
+    }
+  }
+
+  private void insert(int id) {
+    int mask = slots.length - 1;
+    int slot = hashes[id] & mask;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = id + 1;
+  }
+
+  private static int hash(int[] members, int length) {
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + members[i];
+    }
+    // Subsets of consecutive ids have consecutive polynomial hashes, which would form long runs
+    // under linear probing, so mix every bit into the low ones that pick the slot.
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
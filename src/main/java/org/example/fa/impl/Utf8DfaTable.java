@@ -0,0 +1,225 @@
+package org.example.fa.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A byte-level version of a {@link DfaTable} that matches UTF-8 encoded input directly, without
+ * decoding it to {@code char}s.
+ *
+ * <p>Each transition on a character becomes a chain of transitions on the bytes of its UTF-8
+ * encoding through intermediate states, which are shared between characters with a common prefix
+ * of bytes; a surrogate pair becomes a chain over the 4-byte encoding of its code point. States
+ * {@code 0..n-1} are the states of the character table, with the same numbering. Byte values that
+ * behave identically are merged into classes through a 256-entry map. Malformed or overlong input
+ * has no path and is rejected.
+ */
+public final class Utf8DfaTable {
+
+  private final int[] byteClasses;
+  private final int classCount;
+  private final int[] transitions;
+  private final long[] accepting;
+  private final int characterStates;
+  private final int stateCount;
+  private final int start;
+
+  private Utf8DfaTable(
+      int[] byteClasses,
+      int classCount,
+      int[] transitions,
+      long[] accepting,
+      int characterStates,
+      int stateCount,
+      int start) {
+    this.byteClasses = byteClasses;
+    this.classCount = classCount;
+    this.transitions = transitions;
+    this.accepting = accepting;
+    this.characterStates = characterStates;
+    this.stateCount = stateCount;
+    this.start = start;
+  }
+
+  /**
+   * Compiles an automaton to a byte-level table.
+   *
+   * @param dfa the automaton
+   * @return the table
+   */
+  public static Utf8DfaTable of(DFiniteAutomaton dfa) {
+    return of(DfaTable.of(dfa));
+  }
+
+  /**
+   * Expands a character table to a byte-level table.
+   *
+   * @param table the character table
+   * @return the table
+   */
+  public static Utf8DfaTable of(DfaTable table) {
+    int n = table.getStateCount();
+    char[] symbols = table.symbols();
+    List<int[]> rows = new ArrayList<>();
+    for (int s = 0; s < n; s++) {
+      rows.add(emptyRow());
+    }
+    for (int s = 0; s < n; s++) {
+      for (char c : symbols) {
+        int target = table.next(s, c);
+        if (target < 0 || Character.isLowSurrogate(c)) {
+          continue;
+        }
+        if (!Character.isHighSurrogate(c)) {
+          addPath(rows, s, c, target);
+          continue;
+        }
+        for (char low : symbols) {
+          int pairTarget = Character.isLowSurrogate(low) ? table.next(target, low) : -1;
+          if (pairTarget >= 0) {
+            addPath(rows, s, Character.toCodePoint(c, low), pairTarget);
+          }
+        }
+      }
+    }
+
+    int stateCount = rows.size();
+    int[] byteTransitions = new int[stateCount * 256];
+    for (int s = 0; s < stateCount; s++) {
+      System.arraycopy(rows.get(s), 0, byteTransitions, s * 256, 256);
+    }
+    int[] byteClasses = AlphabetPartition.group(byteTransitions, stateCount, 256);
+    int classCount = 0;
+    for (int b = 0; b < 256; b++) {
+      byteClasses[b]--;
+      classCount = Math.max(classCount, byteClasses[b] + 1);
+    }
+    int[] transitions = new int[stateCount * classCount];
+    for (int s = 0; s < stateCount; s++) {
+      for (int b = 0; b < 256; b++) {
+        transitions[s * classCount + byteClasses[b]] = byteTransitions[s * 256 + b];
+      }
+    }
+    return new Utf8DfaTable(
+        byteClasses,
+        classCount,
+        transitions,
+        table.acceptBits(),
+        n,
+        stateCount,
+        table.getStartState());
+  }
+
+  public int getStartState() {
+    return start;
+  }
+
+  /**
+   * Returns the number of states, including the intermediate states inside multi-byte sequences.
+   *
+   * @return the state count
+   */
+  public int getStateCount() {
+    return stateCount;
+  }
+
+  public int getByteClassCount() {
+    return classCount;
+  }
+
+  /**
+   * Follows a transition on one byte.
+   *
+   * @param state the current state
+   * @param value the input byte
+   * @return the next state, or -1 if there is no transition
+   */
+  public int next(int state, byte value) {
+    return transitions[state * classCount + byteClasses[value & 0xFF]];
+  }
+
+  /**
+   * Checks if a state accepts. Intermediate states never do, since they lie inside a character.
+   *
+   * @param state the state
+   * @return true if the state accepts
+   */
+  public boolean isAccepting(int state) {
+    return state < characterStates && (accepting[state >>> 6] & (1L << state)) != 0;
+  }
+
+  /**
+   * Checks if the remaining bytes of a buffer are the UTF-8 encoding of an accepted string. The
+   * position of the buffer is not changed.
+   *
+   * @param input the buffer
+   * @return true if the input is accepted
+   */
+  public boolean matches(ByteBuffer input) {
+    int state = start;
+    for (int i = input.position(); i < input.limit() && state != -1; i++) {
+      state = transitions[state * classCount + byteClasses[input.get(i) & 0xFF]];
+    }
+    return state != -1 && isAccepting(state);
+  }
+
+  /**
+   * Checks if a byte array is the UTF-8 encoding of an accepted string.
+   *
+   * @param input the bytes
+   * @return true if the input is accepted
+   */
+  public boolean matches(byte[] input) {
+    int state = start;
+    for (int i = 0; i < input.length && state != -1; i++) {
+      state = transitions[state * classCount + byteClasses[input[i] & 0xFF]];
+    }
+    return state != -1 && isAccepting(state);
+  }
+
+  /** Adds the byte chain of a code point, creating the intermediate states it needs. */
+  private static void addPath(List<int[]> rows, int from, int codePoint, int target) {
+    byte[] bytes = encode(codePoint);
+    int node = from;
+    for (int i = 0; i < bytes.length - 1; i++) {
+      int[] row = rows.get(node);
+      int b = bytes[i] & 0xFF;
+      if (row[b] < 0) {
+        row[b] = rows.size();
+        rows.add(emptyRow());
+      }
+      node = row[b];
+    }
+    rows.get(node)[bytes[bytes.length - 1] & 0xFF] = target;
+  }
+
+  private static byte[] encode(int codePoint) {
+    if (codePoint < 0x80) {
+      return new byte[] {(byte) codePoint};
+    }
+    if (codePoint < 0x800) {
+      return new byte[] {(byte) (0xC0 | codePoint >>> 6), (byte) (0x80 | codePoint & 0x3F)};
+    }
+    if (codePoint < 0x10000) {
+      return new byte[] {
+        (byte) (0xE0 | codePoint >>> 12),
+        (byte) (0x80 | codePoint >>> 6 & 0x3F),
+        (byte) (0x80 | codePoint & 0x3F)
+      };
+    }
+    return new byte[] {
+      (byte) (0xF0 | codePoint >>> 18),
+      (byte) (0x80 | codePoint >>> 12 & 0x3F),
+      (byte) (0x80 | codePoint >>> 6 & 0x3F),
+      (byte) (0x80 | codePoint & 0x3F)
+    };
+  }
+
+  private static int[] emptyRow() {
+    int[] row = new int[256];
+    Arrays.fill(row, -1);
+    return row;
+  }
+}
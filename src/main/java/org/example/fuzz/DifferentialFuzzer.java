@@ -0,0 +1,627 @@
+package org.example.fuzz;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.example.batch.BatchProcessor;
+import org.example.fa.impl.AutomatonRegistry;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.DfaBytecodeCompiler;
+import org.example.fa.impl.DfaTable;
+import org.example.fa.impl.DfaTableFormat;
+import org.example.fa.impl.IncrementalDeterminizer;
+import org.example.fa.impl.NDFiniteAutomaton;
+import org.example.fa.impl.ProductAutomaton;
+import org.example.fa.impl.Utf8DfaTable;
+import org.example.search.Match;
+import org.example.search.MultiPatternSearcher;
+import org.example.search.Prefilter;
+
+/**
+ * Cross-checks the matching engines against each other on random automata.
+ *
+ * <p>Every case is a random {@link FuzzCase}. The reference result for an input is {@link
+ * DFiniteAutomaton#isStringAccepted} on the automaton built by {@code convertToDFA}, or by {@code
+ * convertEpsilonNfaToDfa} if the case has ε-transitions. Half of the inputs are random strings over
+ * the alphabet and one symbol outside it; the other half are sampled from the language by random
+ * walks through live states, some with one symbol changed. Each engine compiles the case and must
+ * agree with the reference on every input. A disagreement or an exception is shrunk by deleting
+ * input symbols, transitions, states and accept flags for as long as the engine still disagrees.
+ *
+ * <p>Cases run in parallel; each one is derived from the run seed and its index, so a failure can
+ * be replayed with {@link #replay(long)}. Compile and match times are summed per engine.
+ */
+public final class DifferentialFuzzer {
+
+  private static final String REFERENCE = "reference";
+  private static final char FOREIGN_SYMBOL = '#';
+  private static final int MAX_INPUT_LENGTH = 16;
+  private static final int DEFAULT_INPUTS_PER_CASE = 64;
+  private static final int MAX_REPORTED_FAILURES = 20;
+  private static final int REGISTRY_WINDOW = 256;
+
+  private final List<Engine> engines;
+  private final int inputsPerCase;
+
+  /**
+   * The automata an engine compiles for one case.
+   *
+   * @param fuzzCase the case
+   * @param nfa the automaton of the case
+   * @param dfa the reference conversion of {@code nfa}
+   */
+  public record Subject(FuzzCase fuzzCase, NDFiniteAutomaton nfa, DFiniteAutomaton dfa) {}
+
+  /**
+   * A matching engine under test. Matchers that are also {@link AutoCloseable} are closed as soon
+   * as the fuzzer is done with them.
+   *
+   * @param name the name used in reports
+   * @param compiler builds a matcher for a case; it must be safe to call from several threads
+   */
+  public record Engine(String name, Function<Subject, Predicate<String>> compiler) {}
+
+  /**
+   * A shrunk disagreement between an engine and the reference.
+   *
+   * @param engine the engine name
+   * @param seed the seed of the original case, for {@link #replay(long)}
+   * @param fuzzCase the shrunk case
+   * @param input the shrunk input
+   * @param expected the reference result, or null if the reference failed
+   * @param actual the engine result or the exception it threw
+   */
+  public record Failure(
+      String engine, long seed, FuzzCase fuzzCase, String input, Boolean expected, String actual) {
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s on \"%s\": expected %s, got %s (seed %d)%n  %s",
+          engine, input, expected, actual, seed, fuzzCase);
+    }
+  }
+
+  /**
+   * The time an engine spent on a run.
+   *
+   * @param engine the engine name
+   * @param automata the number of automata compiled
+   * @param compileNanos the total compile time
+   * @param inputs the number of inputs matched
+   * @param chars the total input length
+   * @param matchNanos the total match time
+   */
+  public record Throughput(
+      String engine, long automata, long compileNanos, long inputs, long chars, long matchNanos) {
+
+    /**
+     * Returns the match throughput in millions of characters per second.
+     *
+     * @return the characters per second, in millions
+     */
+    public double megacharsPerSecond() {
+      return matchNanos == 0 ? 0 : chars * 1e3 / matchNanos;
+    }
+
+    /**
+     * Returns the average compile time of an automaton.
+     *
+     * @return the time in microseconds
+     */
+    public double microsPerCompile() {
+      return automata == 0 ? 0 : compileNanos / 1e3 / automata;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-18s %8.1f us/compile %10.2f Mchars/s",
+          engine, microsPerCompile(), megacharsPerSecond());
+    }
+  }
+
+  /**
+   * The outcome of a run.
+   *
+   * @param cases the number of cases
+   * @param inputs the number of inputs checked per engine
+   * @param failureCount the number of disagreements, one at most per engine and case
+   * @param failures the first shrunk disagreements, ordered by seed
+   * @param throughput the timings of the reference and of every engine
+   */
+  public record Report(
+      long cases,
+      long inputs,
+      long failureCount,
+      List<Failure> failures,
+      List<Throughput> throughput) {
+
+    public boolean isClean() {
+      return failureCount == 0;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder out = new StringBuilder();
+      out.append(
+          String.format("%d cases, %d inputs, %d failures%n", cases, inputs, failureCount));
+      for (Throughput engine : throughput) {
+        out.append(engine).append(System.lineSeparator());
+      }
+      for (Failure failure : failures) {
+        out.append(failure).append(System.lineSeparator());
+      }
+      return out.toString();
+    }
+  }
+
+  /**
+   * Creates a fuzzer over the given engines.
+   *
+   * @param engines the engines to compare with the reference
+   * @param inputsPerCase the number of inputs to check for every case
+   */
+  public DifferentialFuzzer(List<Engine> engines, int inputsPerCase) {
+    if (inputsPerCase < 1) {
+      throw new IllegalArgumentException("Input count must be positive: " + inputsPerCase);
+    }
+    this.engines = List.copyOf(engines);
+    this.inputsPerCase = inputsPerCase;
+  }
+
+  /** Creates a fuzzer over {@link #defaultEngines()}. */
+  public DifferentialFuzzer() {
+    this(defaultEngines(), DEFAULT_INPUTS_PER_CASE);
+  }
+
+  /**
+   * Returns the engines that can match the language of any case: the automaton conversions, every
+   * compiled form, the prefilter-gated matcher that {@code Batch match} runs, whole-string matching
+   * through a {@link MultiPatternSearcher}, and a {@link ProductAutomaton} of the case with its
+   * minimized DFA. A {@code Dawg} only holds finite word lists, so it has no engine here.
+   *
+   * <p>Throughput is measured on a fresh matcher per case over short inputs. The bytecode engine
+   * defines a new class for every case, so its row measures that class in the interpreter; see
+   * {@code DfaBytecodeBenchmark} for its speed once compiled.
+   *
+   * <p>The registry engine gives each worker thread its own {@link AutomatonRegistry}, replaced
+   * after every 256 registrations, so that states are shared with the previous cases of the same
+   * thread while the append-only table stays bounded. Each matcher releases its entry when closed.
+   * Since what is shared depends on the cases a thread ran before, a replay in a new process starts
+   * from a fresh registry and does not reproduce failures that depend on sharing across cases.
+   *
+   * @return the engines
+   */
+  public static List<Engine> defaultEngines() {
+    ThreadLocal<RegistryWindow> registries = ThreadLocal.withInitial(RegistryWindow::new);
+    return List.of(
+        new Engine("nfa-table", subject -> subject.nfa().freeze()::matches),
+        new Engine(
+            "epsilon-closure", subject -> subject.nfa().convertEpsilonNfaToDfa()::isStringAccepted),
+        new Engine("minimized", subject -> subject.dfa().minimize()::isStringAccepted),
+        new Engine("table", subject -> DfaTable.of(subject.dfa())::matches),
+        new Engine("prefiltered", DifferentialFuzzer::prefiltered),
+        new Engine("searcher", DifferentialFuzzer::searcher),
+        new Engine("product", DifferentialFuzzer::product),
+        new Engine("mapped-table", DifferentialFuzzer::mappedTable),
+        new Engine("bytecode", subject -> DfaBytecodeCompiler.compile(subject.dfa())::matches),
+        new Engine("utf8-table", DifferentialFuzzer::utf8Table),
+        new Engine("incremental", DifferentialFuzzer::incremental),
+        new Engine("registry", subject -> registries.get().register(subject.dfa())));
+  }
+
+  /**
+   * Runs cases on several threads.
+   *
+   * @param seed the run seed
+   * @param cases the number of cases
+   * @param threads the number of worker threads
+   * @return the report
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public Report run(long seed, int cases, int threads) throws InterruptedException {
+    if (cases < 0 || threads < 1) {
+      throw new IllegalArgumentException(
+          "Invalid run: " + cases + " cases, " + threads + " threads");
+    }
+    Stats stats = new Stats(engines.size() + 1);
+    List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger next = new AtomicInteger();
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "fuzz-worker");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Future<?>> running = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        running.add(
+            workers.submit(
+                () -> {
+                  for (int i = next.getAndIncrement(); i < cases; i = next.getAndIncrement()) {
+                    List<Failure> found = runCase(caseSeed(seed, i), stats);
+                    stats.failures.add(found.size());
+                    synchronized (failures) {
+                      for (Failure failure : found) {
+                        if (failures.size() < MAX_REPORTED_FAILURES) {
+                          failures.add(failure);
+                        }
+                      }
+                    }
+                  }
+                }));
+      }
+      for (Future<?> worker : running) {
+        worker.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fuzzing worker failed", e.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+
+    List<Failure> sorted = new ArrayList<>(failures);
+    sorted.sort(Comparator.comparingLong(Failure::seed).thenComparing(Failure::engine));
+    List<Throughput> throughput = new ArrayList<>();
+    for (int e = 0; e <= engines.size(); e++) {
+      throughput.add(stats.throughput(e == 0 ? REFERENCE : engines.get(e - 1).name(), e));
+    }
+    return new Report(
+        cases, stats.inputs[0].sum(), stats.failures.sum(), List.copyOf(sorted), throughput);
+  }
+
+  /**
+   * Runs a single case again, for example one reported by a failure.
+   *
+   * @param caseSeed the seed of the case
+   * @return the shrunk disagreements of the case
+   */
+  public List<Failure> replay(long caseSeed) {
+    return runCase(caseSeed, new Stats(engines.size() + 1));
+  }
+
+  private List<Failure> runCase(long caseSeed, Stats stats) {
+    FuzzCase fuzzCase = FuzzCase.generate(caseSeed);
+    long started = System.nanoTime();
+    Subject subject;
+    try {
+      subject = subject(fuzzCase);
+    } catch (RuntimeException e) {
+      return List.of(shrink(null, caseSeed, fuzzCase, ""));
+    }
+    stats.compiled(0, System.nanoTime() - started);
+
+    List<String> inputs = inputs(subject, new Random(~caseSeed));
+    boolean[] expected = new boolean[inputs.size()];
+    started = System.nanoTime();
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = subject.dfa().isStringAccepted(inputs.get(i));
+    }
+    stats.matched(0, inputs, System.nanoTime() - started);
+
+    List<Failure> failures = new ArrayList<>();
+    for (int e = 0; e < engines.size(); e++) {
+      Engine engine = engines.get(e);
+      int failed = -1;
+      Predicate<String> matcher = null;
+      try {
+        started = System.nanoTime();
+        matcher = engine.compiler().apply(subject);
+        stats.compiled(e + 1, System.nanoTime() - started);
+        boolean[] actual = new boolean[inputs.size()];
+        started = System.nanoTime();
+        for (int i = 0; i < actual.length; i++) {
+          actual[i] = matcher.test(inputs.get(i));
+        }
+        stats.matched(e + 1, inputs, System.nanoTime() - started);
+        for (int i = 0; i < actual.length && failed < 0; i++) {
+          failed = actual[i] == expected[i] ? -1 : i;
+        }
+      } catch (RuntimeException | StackOverflowError ex) {
+        failed = 0;
+      } finally {
+        close(matcher);
+      }
+      if (failed >= 0) {
+        failures.add(shrink(engine, caseSeed, fuzzCase, inputs.get(failed)));
+      }
+    }
+    return failures;
+  }
+
+  /** Shrinks a disagreement while it persists, trying the input first and then the automaton. */
+  private static Failure shrink(Engine engine, long seed, FuzzCase fuzzCase, String input) {
+    boolean progress = true;
+    while (progress) {
+      progress = false;
+      for (int i = input.length() - 1; i >= 0; i--) {
+        String shorter = input.substring(0, i) + input.substring(i + 1);
+        if (disagreement(engine, fuzzCase, shorter) != null) {
+          input = shorter;
+          progress = true;
+        }
+      }
+      for (int e = fuzzCase.getEdgeCount() - 1; e >= 0; e--) {
+        FuzzCase smaller = fuzzCase.withoutEdge(e);
+        if (disagreement(engine, smaller, input) != null) {
+          fuzzCase = smaller;
+          progress = true;
+        }
+      }
+      for (int s = fuzzCase.getStateCount() - 1; s > 0; s--) {
+        FuzzCase smaller = fuzzCase.withoutState(s);
+        if (disagreement(engine, smaller, input) != null) {
+          fuzzCase = smaller;
+          progress = true;
+        }
+      }
+      for (int s = 0; s < fuzzCase.getStateCount(); s++) {
+        if (fuzzCase.accepting()[s]) {
+          FuzzCase smaller = fuzzCase.withAccepting(s, false);
+          if (disagreement(engine, smaller, input) != null) {
+            fuzzCase = smaller;
+            progress = true;
+          }
+        }
+      }
+    }
+    Boolean expected;
+    try {
+      expected = subject(fuzzCase).dfa().isStringAccepted(input);
+    } catch (RuntimeException e) {
+      expected = null;
+    }
+    String actual = disagreement(engine, fuzzCase, input);
+    return new Failure(
+        engine == null ? REFERENCE : engine.name(), seed, fuzzCase, input, expected, actual);
+  }
+
+  /**
+   * Checks one input on one engine.
+   *
+   * @return the engine result or exception if it differs from the reference, otherwise null
+   */
+  private static String disagreement(Engine engine, FuzzCase fuzzCase, String input) {
+    Subject subject;
+    boolean expected;
+    try {
+      subject = subject(fuzzCase);
+      expected = subject.dfa().isStringAccepted(input);
+    } catch (RuntimeException | StackOverflowError e) {
+      return engine == null ? e.toString() : null;
+    }
+    if (engine == null) {
+      return null;
+    }
+    Predicate<String> matcher = null;
+    try {
+      matcher = engine.compiler().apply(subject);
+      boolean actual = matcher.test(input);
+      return actual == expected ? null : String.valueOf(actual);
+    } catch (RuntimeException | StackOverflowError e) {
+      return e.toString();
+    } finally {
+      close(matcher);
+    }
+  }
+
+  private static void close(Predicate<String> matcher) {
+    if (matcher instanceof AutoCloseable closeable) {
+      try {
+        closeable.close();
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to close a matcher", e);
+      }
+    }
+  }
+
+  private static Subject subject(FuzzCase fuzzCase) {
+    NDFiniteAutomaton nfa = fuzzCase.toNfa();
+    DFiniteAutomaton dfa =
+        fuzzCase.usesEpsilon() ? nfa.convertEpsilonNfaToDfa() : nfa.convertToDFA();
+    return new Subject(fuzzCase, nfa, dfa);
+  }
+
+  private List<String> inputs(Subject subject, Random random) {
+    String symbols = subject.fuzzCase().alphabet() + FOREIGN_SYMBOL;
+    List<String> inputs = new ArrayList<>(inputsPerCase);
+    for (int i = 0; i < inputsPerCase; i++) {
+      if (i % 2 == 1) {
+        inputs.add(sample(subject.dfa(), random, symbols).toString());
+        continue;
+      }
+      StringBuilder input = new StringBuilder();
+      for (int length = random.nextInt(MAX_INPUT_LENGTH); length > 0; length--) {
+        input.append(symbols.charAt(random.nextInt(symbols.length())));
+      }
+      inputs.add(input.toString());
+    }
+    return inputs;
+  }
+
+  /** Walks from the start through live states and may change one symbol of the walk. */
+  private static StringBuilder sample(DFiniteAutomaton dfa, Random random, String symbols) {
+    Set<String> live = dfa.getLiveStates();
+    StringBuilder word = new StringBuilder();
+    String state = dfa.getStartState();
+    while (state != null && word.length() < MAX_INPUT_LENGTH) {
+      if (dfa.getAcceptStates().contains(state) && random.nextInt(3) == 0) {
+        break;
+      }
+      List<Map.Entry<Character, String>> moves = new ArrayList<>();
+      for (Map.Entry<Character, String> move :
+          dfa.getTransitions().getOrDefault(state, Map.of()).entrySet()) {
+        if (live.contains(move.getValue())) {
+          moves.add(move);
+        }
+      }
+      if (moves.isEmpty()) {
+        break;
+      }
+      Map.Entry<Character, String> move = moves.get(random.nextInt(moves.size()));
+      word.append(move.getKey());
+      state = move.getValue();
+    }
+    if (word.length() > 0 && random.nextInt(4) == 0) {
+      word.setCharAt(
+          random.nextInt(word.length()), symbols.charAt(random.nextInt(symbols.length())));
+    }
+    return word;
+  }
+
+  private static Predicate<String> mappedTable(Subject subject) {
+    try {
+      return DfaTableFormat.wrap(DfaTableFormat.encode(DfaTable.of(subject.dfa())))::matches;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Encoding is part of the measured match time, as it would be for text read from a file.
+  private static Predicate<String> utf8Table(Subject subject) {
+    Utf8DfaTable table = Utf8DfaTable.of(subject.dfa());
+    return input -> table.matches(input.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Matches like {@code Batch match --regex}, skipping the automaton if the prefilter says so. */
+  private static Predicate<String> prefiltered(Subject subject) {
+    Function<String, String> task =
+        BatchProcessor.matcher(subject.dfa().freeze(), Prefilter.of(subject.dfa()));
+    return input -> Boolean.parseBoolean(task.apply(input));
+  }
+
+  /**
+   * Matches a whole input as a leftmost-longest search that finds one match spanning it. Searches
+   * never report empty matches, so the empty input is checked on the start state.
+   */
+  private static Predicate<String> searcher(Subject subject) {
+    MultiPatternSearcher searcher = new MultiPatternSearcher.Builder().add(subject.dfa()).build();
+    DfaTable table = DfaTable.of(subject.dfa());
+    return input -> {
+      if (input.isEmpty()) {
+        return table.getStartState() != -1 && table.isAccepting(table.getStartState());
+      }
+      List<Match> matches = searcher.findAll(input);
+      return !matches.isEmpty() && matches.get(0).equals(new Match(0, 0, input.length()));
+    };
+  }
+
+  /** Intersects the DFA with its minimized form, which accepts the same language. */
+  private static Predicate<String> product(Subject subject) {
+    DFiniteAutomaton dfa = subject.dfa();
+    return new ProductAutomaton(dfa, dfa.minimize(), ProductAutomaton.Operation.INTERSECTION)
+        ::isStringAccepted;
+  }
+
+  /** Determinizes half of the transitions, then adds the rest and updates the DFA in place. */
+  private static Predicate<String> incremental(Subject subject) {
+    FuzzCase fuzzCase = subject.fuzzCase();
+    int half = fuzzCase.getEdgeCount() / 2;
+    NDFiniteAutomaton nfa = fuzzCase.toNfa(half);
+    try (IncrementalDeterminizer determinizer = nfa.determinizeIncrementally()) {
+      fuzzCase.addEdges(nfa, half, fuzzCase.getEdgeCount());
+      return determinizer.getDfa()::isStringAccepted;
+    }
+  }
+
+  /** The registry of one worker thread, replaced after a fixed number of registrations. */
+  private static final class RegistryWindow {
+    private AutomatonRegistry registry = new AutomatonRegistry();
+    private int registrations;
+
+    RegisteredMatcher register(DFiniteAutomaton dfa) {
+      if (registrations++ == REGISTRY_WINDOW) {
+        registry = new AutomatonRegistry();
+        registrations = 1;
+      }
+      return new RegisteredMatcher(registry, registry.register(dfa));
+    }
+  }
+
+  /** Matches with the view of a registry entry and releases the entry when closed. */
+  private record RegisteredMatcher(AutomatonRegistry registry, AutomatonRegistry.Entry entry)
+      implements Predicate<String>, AutoCloseable {
+
+    @Override
+    public boolean test(String input) {
+      return entry.getDfa().matches(input);
+    }
+
+    @Override
+    public void close() {
+      registry.release(entry);
+    }
+  }
+
+  private static long caseSeed(long seed, int index) {
+    return seed + index * 0x9E3779B97F4A7C15L;
+  }
+
+  /** Counters per engine; index 0 is the reference. */
+  private static final class Stats {
+    final LongAdder failures = new LongAdder();
+    final LongAdder[] automata;
+    final LongAdder[] compileNanos;
+    final LongAdder[] inputs;
+    final LongAdder[] chars;
+    final LongAdder[] matchNanos;
+
+    Stats(int engines) {
+      automata = adders(engines);
+      compileNanos = adders(engines);
+      inputs = adders(engines);
+      chars = adders(engines);
+      matchNanos = adders(engines);
+    }
+
+    void compiled(int engine, long nanos) {
+      automata[engine].increment();
+      compileNanos[engine].add(nanos);
+    }
+
+    void matched(int engine, List<String> matched, long nanos) {
+      inputs[engine].add(matched.size());
+      for (String input : matched) {
+        chars[engine].add(input.length());
+      }
+      matchNanos[engine].add(nanos);
+    }
+
+    Throughput throughput(String name, int engine) {
+      return new Throughput(
+          name,
+          automata[engine].sum(),
+          compileNanos[engine].sum(),
+          inputs[engine].sum(),
+          chars[engine].sum(),
+          matchNanos[engine].sum());
+    }
+
+    private static LongAdder[] adders(int count) {
+      LongAdder[] adders = new LongAdder[count];
+      for (int i = 0; i < count; i++) {
+        adders[i] = new LongAdder();
+      }
+      return adders;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package org.example.fuzz;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import org.example.fa.impl.NDFiniteAutomaton;
+
+/**
+ * A small random automaton in a plain form that is easy to shrink. States are numbered from 0, the
+ * start state; transitions are triples of source, symbol index and target, where symbol index -1
+ * stands for an ε-transition.
+ *
+ * @param alphabet the symbols, without ε
+ * @param accepting which states accept
+ * @param edges the transitions, three entries each
+ */
+public record FuzzCase(String alphabet, boolean[] accepting, int[] edges) {
+
+  // Includes two- and three-byte UTF-8 symbols so that byte-level engines see multi-byte input.
+  private static final String SYMBOLS = "abcé€";
+  private static final int MAX_STATES = 8;
+
+  /**
+   * Generates a case from a seed.
+   *
+   * @param seed the seed
+   * @return the case
+   */
+  public static FuzzCase generate(long seed) {
+    Random random = new Random(seed);
+    int states = 1 + random.nextInt(MAX_STATES);
+    StringBuilder alphabet = new StringBuilder();
+    for (int a = 1 + random.nextInt(3); a > 0; a--) {
+      char symbol = SYMBOLS.charAt(random.nextInt(SYMBOLS.length()));
+      if (alphabet.indexOf(String.valueOf(symbol)) < 0) {
+        alphabet.append(symbol);
+      }
+    }
+    boolean[] accepting = new boolean[states];
+    for (int s = 0; s < states; s++) {
+      accepting[s] = random.nextInt(3) == 0;
+    }
+    boolean epsilon = random.nextInt(3) == 0;
+    double density = Math.min(1.0, 1.5 / states);
+    int[] edges = new int[0];
+    int size = 0;
+    for (int from = 0; from < states; from++) {
+      for (int symbol = epsilon ? -1 : 0; symbol < alphabet.length(); symbol++) {
+        for (int to = 0; to < states; to++) {
+          if (random.nextDouble() < (symbol < 0 ? density / 3 : density)) {
+            if (size == edges.length) {
+              edges = Arrays.copyOf(edges, Math.max(24, size * 2));
+            }
+            edges[size++] = from;
+            edges[size++] = symbol;
+            edges[size++] = to;
+          }
+        }
+      }
+    }
+    return new FuzzCase(alphabet.toString(), accepting, Arrays.copyOf(edges, size));
+  }
+
+  public int getStateCount() {
+    return accepting.length;
+  }
+
+  public int getEdgeCount() {
+    return edges.length / 3;
+  }
+
+  /**
+   * Checks if the case has an ε-transition and must be converted with {@code
+   * convertEpsilonNfaToDfa}.
+   *
+   * @return true if there is an ε-transition
+   */
+  public boolean usesEpsilon() {
+    for (int e = 1; e < edges.length; e += 3) {
+      if (edges[e] < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Builds the automaton of this case.
+   *
+   * @return a new automaton
+   */
+  public NDFiniteAutomaton toNfa() {
+    return toNfa(getEdgeCount());
+  }
+
+  /**
+   * Builds the automaton of this case with only its first transitions.
+   *
+   * @param edgeCount the number of transitions to add
+   * @return a new automaton
+   */
+  NDFiniteAutomaton toNfa(int edgeCount) {
+    Set<Character> sigma = new LinkedHashSet<>();
+    for (int a = 0; a < alphabet.length(); a++) {
+      sigma.add(alphabet.charAt(a));
+    }
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(sigma);
+    for (int s = 0; s < accepting.length; s++) {
+      nfa.addState("q" + s, accepting[s]);
+    }
+    nfa.setStartState("q0");
+    addEdges(nfa, 0, edgeCount);
+    return nfa;
+  }
+
+  /**
+   * Adds a range of the transitions of this case to an automaton built by {@link #toNfa(int)}.
+   *
+   * @param nfa the automaton
+   * @param from the first transition
+   * @param to the end of the range, exclusive
+   */
+  void addEdges(NDFiniteAutomaton nfa, int from, int to) {
+    for (int e = 3 * from; e < 3 * to; e += 3) {
+      char symbol = edges[e + 1] < 0 ? 'ε' : alphabet.charAt(edges[e + 1]);
+      nfa.addTransition("q" + edges[e], symbol, "q" + edges[e + 2]);
+    }
+  }
+
+  FuzzCase withoutEdge(int edge) {
+    int[] fewer = new int[edges.length - 3];
+    System.arraycopy(edges, 0, fewer, 0, 3 * edge);
+    System.arraycopy(edges, 3 * edge + 3, fewer, 3 * edge, fewer.length - 3 * edge);
+    return new FuzzCase(alphabet, accepting, fewer);
+  }
+
+  FuzzCase withAccepting(int state, boolean accepts) {
+    boolean[] changed = accepting.clone();
+    changed[state] = accepts;
+    return new FuzzCase(alphabet, changed, edges);
+  }
+
+  /** Removes a state other than the start state, together with its transitions. */
+  FuzzCase withoutState(int state) {
+    boolean[] fewer = new boolean[accepting.length - 1];
+    for (int s = 0; s < fewer.length; s++) {
+      fewer[s] = accepting[s < state ? s : s + 1];
+    }
+    int[] kept = new int[edges.length];
+    int size = 0;
+    for (int e = 0; e < edges.length; e += 3) {
+      if (edges[e] != state && edges[e + 2] != state) {
+        kept[size++] = edges[e] > state ? edges[e] - 1 : edges[e];
+        kept[size++] = edges[e + 1];
+        kept[size++] = edges[e + 2] > state ? edges[e + 2] - 1 : edges[e + 2];
+      }
+    }
+    return new FuzzCase(alphabet, fewer, Arrays.copyOf(kept, size));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder();
+    out.append(accepting.length).append(" states over \"").append(alphabet);
+    out.append("\", accepting {");
+    String separator = "";
+    for (int s = 0; s < accepting.length; s++) {
+      if (accepting[s]) {
+        out.append(separator).append('q').append(s);
+        separator = ", ";
+      }
+    }
+    out.append('}');
+    for (int e = 0; e < edges.length; e += 3) {
+      char symbol = edges[e + 1] < 0 ? 'ε' : alphabet.charAt(edges[e + 1]);
+      out.append(e == 0 ? ": " : ", ");
+      out.append('q').append(edges[e]).append(" -").append(symbol).append("-> q");
+      out.append(edges[e + 2]);
+    }
+    return out.toString();
+  }
+}
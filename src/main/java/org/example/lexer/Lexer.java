@@ -3,6 +3,8 @@ package org.example.lexer;
 import java.util.ArrayList;
 import java.util.List;
 import org.example.lexer.enums.Type;
+import org.example.metrics.AutomatonMetricsListener;
+import org.example.metrics.Metrics;
 
 /** A simple lexer for a simple expression language. */
 public class Lexer {
@@ -20,6 +22,23 @@ public class Lexer {
    * @return the list of tokens
    */
   public List<Token> tokenize() {
+    AutomatonMetricsListener listener = Metrics.listener();
+    if (listener == null) {
+      return scan();
+    }
+    listener.beforeTokenize();
+    long start = System.nanoTime();
+    scan();
+    listener.onTokenize(input.length(), tokens, System.nanoTime() - start);
+    return tokens;
+  }
+
+  /**
+   * Scans the remaining input into tokens.
+   *
+   * @return the list of tokens
+   */
+  private List<Token> scan() {
     while (pos < input.length()) {
       char current = input.charAt(pos);
       if (Character.isDigit(current) || current == '.') {
@@ -12,6 +12,14 @@ public class Token {
     this.text = text;
   }
 
+  public Type getType() {
+    return type;
+  }
+
+  public String getText() {
+    return text;
+  }
+
   @Override
   public String toString() {
     return type + ": '" + text + "'";
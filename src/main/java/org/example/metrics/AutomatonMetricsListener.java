@@ -0,0 +1,52 @@
+package org.example.metrics;
+
+import java.util.List;
+import org.example.lexer.Token;
+
+/**
+ * Receives measurements from the lexer and automaton hot paths. Install an implementation with
+ * {@link Metrics#setListener(AutomatonMetricsListener)}; all methods default to no-ops.
+ *
+ * <p>Each operation calls its {@code before} method on the thread that runs it and then, unless it
+ * fails, the matching {@code on} method with the measurements.
+ */
+public interface AutomatonMetricsListener {
+
+  /** Called when {@code Lexer.tokenize} starts. */
+  default void beforeTokenize() {}
+
+  /** Called when {@code isStringAccepted} starts. */
+  default void beforeMatch() {}
+
+  /** Called when an NFA starts being converted to a DFA. */
+  default void beforeDeterminization() {}
+
+  /**
+   * Called after {@code Lexer.tokenize} finishes.
+   *
+   * @param characters the number of input characters
+   * @param tokens the produced tokens
+   * @param nanos the elapsed time in nanoseconds
+   */
+  default void onTokenize(int characters, List<Token> tokens, long nanos) {}
+
+  /**
+   * Called after {@code isStringAccepted} finishes.
+   *
+   * @param inputLength the length of the input string
+   * @param accepted whether the input was accepted
+   * @param nanos the elapsed time in nanoseconds
+   */
+  default void onMatch(int inputLength, boolean accepted, long nanos) {}
+
+  /**
+   * Called after an NFA has been converted to a DFA.
+   *
+   * @param algorithm the conversion method name
+   * @param subsetsExplored the number of successor subsets computed
+   * @param statesCreated the number of DFA states created
+   * @param nanos the elapsed time in nanoseconds
+   */
+  default void onDeterminization(
+      String algorithm, int subsetsExplored, int statesCreated, long nanos) {}
+}
@@ -0,0 +1,148 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.example.lexer.Token;
+import org.example.lexer.enums.Type;
+
+/** A thread-safe listener that aggregates counters for all instrumented operations. */
+public class CountingMetricsListener implements AutomatonMetricsListener {
+
+  /** Input lengths are bucketed by bit length: bucket {@code i} holds lengths below {@code 2^i}. */
+  public static final int HISTOGRAM_BUCKETS = 32;
+
+  private final LongAdder tokenizeCalls = new LongAdder();
+  private final LongAdder tokenizedCharacters = new LongAdder();
+  private final LongAdder tokenizedTokens = new LongAdder();
+  private final LongAdder tokenizeNanos = new LongAdder();
+  private final LongAdder[] tokensByType = new LongAdder[Type.values().length];
+
+  private final LongAdder matchCalls = new LongAdder();
+  private final LongAdder acceptedMatches = new LongAdder();
+  private final LongAdder matchNanos = new LongAdder();
+  private final LongAdder[] inputLengthHistogram = new LongAdder[HISTOGRAM_BUCKETS + 1];
+
+  private final LongAdder determinizations = new LongAdder();
+  private final LongAdder subsetsExplored = new LongAdder();
+  private final LongAdder statesCreated = new LongAdder();
+  private final LongAdder determinizationNanos = new LongAdder();
+
+  public CountingMetricsListener() {
+    for (int i = 0; i < tokensByType.length; i++) {
+      tokensByType[i] = new LongAdder();
+    }
+    for (int i = 0; i < inputLengthHistogram.length; i++) {
+      inputLengthHistogram[i] = new LongAdder();
+    }
+  }
+
+  @Override
+  public void onTokenize(int characters, List<Token> tokens, long nanos) {
+    tokenizeCalls.increment();
+    tokenizedCharacters.add(characters);
+    tokenizedTokens.add(tokens.size());
+    tokenizeNanos.add(nanos);
+    for (Token token : tokens) {
+      tokensByType[token.getType().ordinal()].increment();
+    }
+  }
+
+  @Override
+  public void onMatch(int inputLength, boolean accepted, long nanos) {
+    matchCalls.increment();
+    if (accepted) {
+      acceptedMatches.increment();
+    }
+    matchNanos.add(nanos);
+    inputLengthHistogram[32 - Integer.numberOfLeadingZeros(inputLength)].increment();
+  }
+
+  @Override
+  public void onDeterminization(
+      String algorithm, int subsetsExplored, int statesCreated, long nanos) {
+    determinizations.increment();
+    this.subsetsExplored.add(subsetsExplored);
+    this.statesCreated.add(statesCreated);
+    determinizationNanos.add(nanos);
+  }
+
+  public long getTokenizeCalls() {
+    return tokenizeCalls.sum();
+  }
+
+  public long getTokenizedCharacters() {
+    return tokenizedCharacters.sum();
+  }
+
+  public long getTokenizedTokens() {
+    return tokenizedTokens.sum();
+  }
+
+  public long getTokenCount(Type type) {
+    return tokensByType[type.ordinal()].sum();
+  }
+
+  /**
+   * Returns the lexer throughput in tokens per second of tokenizing time.
+   *
+   * @return tokens per second, or 0 if nothing was measured
+   */
+  public double getTokensPerSecond() {
+    return perSecond(tokenizedTokens.sum(), tokenizeNanos.sum());
+  }
+
+  /**
+   * Returns the lexer throughput in characters per second of tokenizing time.
+   *
+   * @return characters per second, or 0 if nothing was measured
+   */
+  public double getCharactersPerSecond() {
+    return perSecond(tokenizedCharacters.sum(), tokenizeNanos.sum());
+  }
+
+  public long getMatchCalls() {
+    return matchCalls.sum();
+  }
+
+  public long getAcceptedMatches() {
+    return acceptedMatches.sum();
+  }
+
+  public long getMatchNanos() {
+    return matchNanos.sum();
+  }
+
+  /**
+   * Returns the input-length histogram. Bucket 0 counts empty inputs and bucket {@code i > 0}
+   * counts inputs with lengths in {@code [2^(i-1), 2^i)}.
+   *
+   * @return a snapshot of the bucket counts
+   */
+  public long[] getInputLengthHistogram() {
+    long[] snapshot = new long[inputLengthHistogram.length];
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = inputLengthHistogram[i].sum();
+    }
+    return snapshot;
+  }
+
+  public long getDeterminizations() {
+    return determinizations.sum();
+  }
+
+  public long getSubsetsExplored() {
+    return subsetsExplored.sum();
+  }
+
+  public long getStatesCreated() {
+    return statesCreated.sum();
+  }
+
+  public long getDeterminizationNanos() {
+    return determinizationNanos.sum();
+  }
+
+  private static double perSecond(long count, long nanos) {
+    return nanos == 0 ? 0 : count * 1_000_000_000.0 / nanos;
+  }
+}
@@ -0,0 +1,20 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.example.Determinization")
+@Label("Determinization")
+@Category({"LFA", "Automaton"})
+class DeterminizationEvent extends Event {
+  @Label("Algorithm")
+  String algorithm;
+
+  @Label("Subsets Explored")
+  int subsetsExplored;
+
+  @Label("States Created")
+  int statesCreated;
+}
@@ -0,0 +1,107 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.function.Supplier;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import org.example.lexer.Token;
+
+/**
+ * Emits every measurement as a custom JFR event whose duration spans the measured operation. An
+ * event is begun in the {@code before} callback and committed in the matching {@code on} callback
+ * of the same thread; nothing is allocated unless its event type is enabled in a running recording.
+ * Each {@code before} callback drops whatever event an operation that threw left on the thread, so
+ * it is never paired with a later operation's callback.
+ */
+public class JfrMetricsListener implements AutomatonMetricsListener {
+
+  private static final EventType TOKENIZE = EventType.getEventType(TokenizeEvent.class);
+  private static final EventType MATCH = EventType.getEventType(MatchEvent.class);
+  private static final EventType DETERMINIZATION =
+      EventType.getEventType(DeterminizationEvent.class);
+
+  // The event begun on each thread, until its operation reports back.
+  private final ThreadLocal<TokenizeEvent> tokenizing = new ThreadLocal<>();
+  private final ThreadLocal<MatchEvent> matching = new ThreadLocal<>();
+  private final ThreadLocal<DeterminizationEvent> determinizing = new ThreadLocal<>();
+
+  @Override
+  public void beforeTokenize() {
+    begin(TOKENIZE, tokenizing, TokenizeEvent::new);
+  }
+
+  @Override
+  public void beforeMatch() {
+    begin(MATCH, matching, MatchEvent::new);
+  }
+
+  @Override
+  public void beforeDeterminization() {
+    begin(DETERMINIZATION, determinizing, DeterminizationEvent::new);
+  }
+
+  @Override
+  public void onTokenize(int characters, List<Token> tokens, long nanos) {
+    TokenizeEvent event = take(tokenizing);
+    if (event == null) {
+      return;
+    }
+    event.characters = characters;
+    event.tokens = tokens.size();
+    for (Token token : tokens) {
+      switch (token.getType()) {
+        case NUMBER -> event.numbers++;
+        case OPERATOR -> event.operators++;
+        case IDENTIFIER -> event.identifiers++;
+        case PARENTHESIS -> event.parentheses++;
+      }
+    }
+    event.commit();
+  }
+
+  @Override
+  public void onMatch(int inputLength, boolean accepted, long nanos) {
+    MatchEvent event = take(matching);
+    if (event == null) {
+      return;
+    }
+    event.inputLength = inputLength;
+    event.accepted = accepted;
+    event.commit();
+  }
+
+  @Override
+  public void onDeterminization(
+      String algorithm, int subsetsExplored, int statesCreated, long nanos) {
+    DeterminizationEvent event = take(determinizing);
+    if (event == null) {
+      return;
+    }
+    event.algorithm = algorithm;
+    event.subsetsExplored = subsetsExplored;
+    event.statesCreated = statesCreated;
+    event.commit();
+  }
+
+  private static <E extends Event> void begin(
+      EventType type, ThreadLocal<E> current, Supplier<E> create) {
+    if (!type.isEnabled()) {
+      current.remove();
+      return;
+    }
+    E event = create.get();
+    event.begin();
+    current.set(event);
+  }
+
+  /** Removes the event begun on this thread and ends it, unless it falls below the threshold. */
+  private static <E extends Event> E take(ThreadLocal<E> current) {
+    E event = current.get();
+    if (event == null) {
+      return null;
+    }
+    current.remove();
+    event.end();
+    return event.shouldCommit() ? event : null;
+  }
+}
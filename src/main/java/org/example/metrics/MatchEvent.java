@@ -0,0 +1,17 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.example.Match")
+@Label("Match")
+@Category({"LFA", "Automaton"})
+class MatchEvent extends Event {
+  @Label("Input Length")
+  int inputLength;
+
+  @Label("Accepted")
+  boolean accepted;
+}
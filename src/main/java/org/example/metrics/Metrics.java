@@ -0,0 +1,31 @@
+package org.example.metrics;
+
+/**
+ * Holds the globally installed {@link AutomatonMetricsListener}. Instrumented code reads the
+ * listener once per call and skips all measurement when it is {@code null}, so disabled metrics
+ * cost a single volatile read.
+ */
+public final class Metrics {
+
+  private static volatile AutomatonMetricsListener listener;
+
+  private Metrics() {}
+
+  /**
+   * Installs a listener, replacing any previous one.
+   *
+   * @param newListener the listener, or {@code null} to disable metrics
+   */
+  public static void setListener(AutomatonMetricsListener newListener) {
+    listener = newListener;
+  }
+
+  /**
+   * Returns the installed listener.
+   *
+   * @return the listener, or {@code null} if metrics are disabled
+   */
+  public static AutomatonMetricsListener listener() {
+    return listener;
+  }
+}
@@ -0,0 +1,29 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.example.Tokenize")
+@Label("Tokenize")
+@Category({"LFA", "Lexer"})
+class TokenizeEvent extends Event {
+  @Label("Characters")
+  int characters;
+
+  @Label("Tokens")
+  int tokens;
+
+  @Label("Numbers")
+  int numbers;
+
+  @Label("Operators")
+  int operators;
+
+  @Label("Identifiers")
+  int identifiers;
+
+  @Label("Parentheses")
+  int parentheses;
+}
@@ -0,0 +1,139 @@
+package org.example.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An arithmetic expression compiled into a flat stack-machine program.
+ *
+ * <p>Each instruction is packed into a single {@code int}: the low byte holds the opcode and the
+ * remaining bits hold the operand (a constant-pool index or a variable slot). Evaluation walks the
+ * program once over a pre-sized operand stack, so it does not allocate.
+ */
+public final class CompiledExpression {
+
+  static final int CONST = 0;
+  static final int LOAD = 1;
+  static final int ADD = 2;
+  static final int SUB = 3;
+  static final int MUL = 4;
+  static final int DIV = 5;
+  static final int NEG = 6;
+
+  private final int[] code;
+  private final double[] constants;
+  private final List<String> variables;
+  private final int stackSize;
+
+  // Scratch stack for the single-threaded evaluate(double[]) overload.
+  private final double[] stack;
+
+  CompiledExpression(
+      final int[] code,
+      final double[] constants,
+      final List<String> variables,
+      final int stackSize) {
+    this.code = code;
+    this.constants = constants;
+    this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+    this.stackSize = stackSize;
+    this.stack = new double[stackSize];
+  }
+
+  /**
+   * Evaluates the expression using an internal operand stack. This overload is not thread-safe;
+   * concurrent callers should use {@link #evaluate(double[], double[])} with their own stack.
+   *
+   * @param slots the variable values, indexed by {@link #slotOf(String)}
+   * @return the value of the expression
+   */
+  public double evaluate(final double[] slots) {
+    return evaluate(slots, stack);
+  }
+
+  /**
+   * Evaluates the expression using a caller-provided operand stack.
+   *
+   * @param slots the variable values, indexed by {@link #slotOf(String)}
+   * @param stack scratch space of at least {@link #getStackSize()} elements
+   * @return the value of the expression
+   */
+  public double evaluate(final double[] slots, final double[] stack) {
+    int sp = 0;
+    for (int instruction : code) {
+      switch (instruction & 0xFF) {
+        case CONST -> stack[sp++] = constants[instruction >>> 8];
+        case LOAD -> stack[sp++] = slots[instruction >>> 8];
+        case ADD -> {
+          sp--;
+          stack[sp - 1] += stack[sp];
+        }
+        case SUB -> {
+          sp--;
+          stack[sp - 1] -= stack[sp];
+        }
+        case MUL -> {
+          sp--;
+          stack[sp - 1] *= stack[sp];
+        }
+        case DIV -> {
+          sp--;
+          stack[sp - 1] /= stack[sp];
+        }
+        case NEG -> stack[sp - 1] = -stack[sp - 1];
+        default -> throw new IllegalStateException("Unknown opcode: " + (instruction & 0xFF));
+      }
+    }
+    return stack[0];
+  }
+
+  /**
+   * Returns the slot assigned to a variable.
+   *
+   * @param name the variable name
+   * @return the slot index, or -1 if the expression does not reference the variable
+   */
+  public int slotOf(final String name) {
+    return variables.indexOf(name);
+  }
+
+  /**
+   * Returns the referenced variables in slot order.
+   *
+   * @return the variable names
+   */
+  public List<String> getVariables() {
+    return variables;
+  }
+
+  /**
+   * Returns the number of stack elements required to evaluate the expression.
+   *
+   * @return the maximum stack depth
+   */
+  public int getStackSize() {
+    return stackSize;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("CompiledExpression{\n");
+    for (int instruction : code) {
+      int operand = instruction >>> 8;
+      sb.append("  ");
+      switch (instruction & 0xFF) {
+        case CONST -> sb.append("CONST ").append(constants[operand]);
+        case LOAD -> sb.append("LOAD ").append(variables.get(operand));
+        case ADD -> sb.append("ADD");
+        case SUB -> sb.append("SUB");
+        case MUL -> sb.append("MUL");
+        case DIV -> sb.append("DIV");
+        case NEG -> sb.append("NEG");
+        default -> sb.append("?");
+      }
+      sb.append('\n');
+    }
+    return sb.append('}').toString();
+  }
+}
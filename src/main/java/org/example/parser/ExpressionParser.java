@@ -0,0 +1,191 @@
+package org.example.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.example.lexer.Lexer;
+import org.example.lexer.Token;
+import org.example.lexer.enums.Type;
+
+/** A precedence-climbing parser that compiles a token stream into a {@link CompiledExpression}. */
+public class ExpressionParser {
+  private final List<Token> tokens;
+  private int pos = 0;
+
+  private int[] code = new int[16];
+  private int codeLength = 0;
+  private final List<Double> constants = new ArrayList<>();
+  private final List<String> variables = new ArrayList<>();
+  private int depth = 0;
+  private int maxDepth = 0;
+
+  public ExpressionParser(List<Token> tokens) {
+    this.tokens = tokens;
+  }
+
+  /**
+   * Tokenizes and compiles an expression.
+   *
+   * @param input the expression source
+   * @return the compiled expression
+   */
+  public static CompiledExpression compile(String input) {
+    return new ExpressionParser(new Lexer(input).tokenize()).parse();
+  }
+
+  /**
+   * Parses the whole token stream.
+   *
+   * @return the compiled expression
+   */
+  public CompiledExpression parse() {
+    if (tokens.isEmpty()) {
+      throw new IllegalArgumentException("Empty expression");
+    }
+    parseExpression(0);
+    if (pos < tokens.size()) {
+      throw new IllegalArgumentException("Unexpected token: " + tokens.get(pos));
+    }
+
+    int[] program = new int[codeLength];
+    System.arraycopy(code, 0, program, 0, codeLength);
+    double[] pool = new double[constants.size()];
+    for (int i = 0; i < pool.length; i++) {
+      pool[i] = constants.get(i);
+    }
+    return new CompiledExpression(program, pool, variables, maxDepth);
+  }
+
+  /**
+   * Parses a sequence of binary operations whose precedence is at least {@code minPrecedence}.
+   *
+   * @param minPrecedence the minimum operator precedence to consume
+   */
+  private void parseExpression(int minPrecedence) {
+    parseUnary();
+    while (pos < tokens.size()) {
+      Token token = tokens.get(pos);
+      int precedence = precedenceOf(token);
+      if (precedence < minPrecedence) {
+        break;
+      }
+      pos++;
+      // All operators are left-associative.
+      parseExpression(precedence + 1);
+      emit(opcodeOf(token.getText().charAt(0)), 0, -1);
+    }
+  }
+
+  /** Parses an optionally negated primary expression. */
+  private void parseUnary() {
+    Token token = peek();
+    if (token.getType() == Type.OPERATOR && token.getText().equals("-")) {
+      pos++;
+      parseUnary();
+      emit(CompiledExpression.NEG, 0, 0);
+    } else if (token.getType() == Type.OPERATOR && token.getText().equals("+")) {
+      pos++;
+      parseUnary();
+    } else {
+      parsePrimary();
+    }
+  }
+
+  /** Parses a number, an identifier or a parenthesized expression. */
+  private void parsePrimary() {
+    Token token = peek();
+    pos++;
+    switch (token.getType()) {
+      case NUMBER -> {
+        try {
+          constants.add(Double.parseDouble(token.getText()));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid number: " + token.getText());
+        }
+        emit(CompiledExpression.CONST, constants.size() - 1, 1);
+      }
+      case IDENTIFIER -> {
+        int slot = variables.indexOf(token.getText());
+        if (slot == -1) {
+          variables.add(token.getText());
+          slot = variables.size() - 1;
+        }
+        emit(CompiledExpression.LOAD, slot, 1);
+      }
+      case PARENTHESIS -> {
+        if (!token.getText().equals("(")) {
+          throw new IllegalArgumentException("Unexpected token: " + token);
+        }
+        parseExpression(0);
+        Token closing = peek();
+        if (closing.getType() != Type.PARENTHESIS || !closing.getText().equals(")")) {
+          throw new IllegalArgumentException("Expected ')' but found " + closing);
+        }
+        pos++;
+      }
+      default -> throw new IllegalArgumentException("Unexpected token: " + token);
+    }
+  }
+
+  /**
+   * Returns the current token.
+   *
+   * @return the current token
+   */
+  private Token peek() {
+    if (pos >= tokens.size()) {
+      throw new IllegalArgumentException("Unexpected end of expression");
+    }
+    return tokens.get(pos);
+  }
+
+  /**
+   * Appends an instruction to the program.
+   *
+   * @param opcode the opcode
+   * @param operand the operand
+   * @param stackEffect the change in stack depth caused by the instruction
+   */
+  private void emit(int opcode, int operand, int stackEffect) {
+    if (codeLength == code.length) {
+      int[] grown = new int[code.length * 2];
+      System.arraycopy(code, 0, grown, 0, codeLength);
+      code = grown;
+    }
+    code[codeLength++] = opcode | (operand << 8);
+    depth += stackEffect;
+    maxDepth = Math.max(maxDepth, depth);
+  }
+
+  /**
+   * Returns the precedence of a binary operator token.
+   *
+   * @param token the token
+   * @return the precedence, or -1 if the token is not a binary operator
+   */
+  private static int precedenceOf(Token token) {
+    if (token.getType() != Type.OPERATOR) {
+      return -1;
+    }
+    return switch (token.getText().charAt(0)) {
+      case '+', '-' -> 1;
+      case '*', '/' -> 2;
+      default -> -1;
+    };
+  }
+
+  /**
+   * Maps an operator character to its opcode.
+   *
+   * @param operator the operator character
+   * @return the opcode
+   */
+  private static int opcodeOf(char operator) {
+    return switch (operator) {
+      case '+' -> CompiledExpression.ADD;
+      case '-' -> CompiledExpression.SUB;
+      case '*' -> CompiledExpression.MUL;
+      case '/' -> CompiledExpression.DIV;
+      default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+    };
+  }
+}
@@ -0,0 +1,96 @@
+package org.example.regex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.example.fa.impl.DFiniteAutomaton;
+
+/**
+ * A bounded, least-recently-used cache of compiled patterns. Each pattern is parsed, determinized
+ * and minimized once; later lookups return the same {@linkplain DFiniteAutomaton#seal() sealed}
+ * automaton.
+ *
+ * <p>The lock only guards the map. A pattern is compiled outside it by the first caller that asks
+ * for it, while later callers for the same pattern wait on its future, so a slow pattern does not
+ * hold up lookups of other patterns. A pattern that fails to compile is not cached.
+ */
+public class PatternCache {
+
+  private final int maxSize;
+  private final Map<String, CompletableFuture<DFiniteAutomaton>> compiled;
+  private long hits = 0;
+  private long misses = 0;
+
+  public PatternCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.compiled =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(
+              Map.Entry<String, CompletableFuture<DFiniteAutomaton>> eldest) {
+            return size() > PatternCache.this.maxSize;
+          }
+        };
+  }
+
+  /**
+   * Returns the minimal DFA for a pattern, compiling it on a cache miss.
+   *
+   * @param pattern the regular expression
+   * @return the minimal DFA, which is sealed
+   * @throws IllegalArgumentException if the pattern is malformed
+   */
+  public DFiniteAutomaton get(String pattern) {
+    CompletableFuture<DFiniteAutomaton> future;
+    boolean owner = false;
+    synchronized (this) {
+      future = compiled.get(pattern);
+      if (future != null) {
+        hits++;
+      } else {
+        misses++;
+        future = new CompletableFuture<>();
+        compiled.put(pattern, future);
+        owner = true;
+      }
+    }
+    if (owner) {
+      try {
+        future.complete(RegexParser.parse(pattern).convertEpsilonNfaToDfa().minimize().seal());
+      } catch (RuntimeException | Error e) {
+        synchronized (this) {
+          compiled.remove(pattern, future);
+        }
+        future.completeExceptionally(e);
+        throw e;
+      }
+    }
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  public synchronized int size() {
+    return compiled.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+}
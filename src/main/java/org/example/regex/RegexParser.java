@@ -0,0 +1,336 @@
+package org.example.regex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.NDFiniteAutomaton;
+
+/**
+ * Parses regular expressions and builds ε-NFAs from them with Thompson's construction.
+ *
+ * <p>Supported syntax: literals, concatenation, alternation {@code |}, the postfix operators
+ * {@code *}, {@code +} and {@code ?}, grouping with parentheses, character classes such as {@code
+ * [a-z0-9_]}, and backslash escapes. Negated classes {@code [^...]} and the wildcard {@code .} are
+ * only available when an explicit alphabet is given.
+ */
+public class RegexParser {
+
+  // The symbol NDFiniteAutomaton uses for ε-transitions, which is therefore not a valid literal.
+  private static final char EPSILON = 'ε';
+  private static final PatternCache SHARED_CACHE = new PatternCache(256);
+
+  private final String pattern;
+  private final Set<Character> alphabet;
+  private int pos = 0;
+
+  private NDFiniteAutomaton nfa;
+  private int stateCounter = 0;
+
+  /**
+   * Creates a parser for a pattern.
+   *
+   * @param pattern the regular expression
+   * @param alphabet the alphabet used for {@code .} and negated classes, or {@code null}
+   */
+  public RegexParser(String pattern, Set<Character> alphabet) {
+    if (alphabet != null && alphabet.contains(EPSILON)) {
+      throw new IllegalArgumentException("The alphabet must not contain 'ε'");
+    }
+    this.pattern = pattern;
+    this.alphabet = alphabet;
+  }
+
+  /**
+   * Builds an ε-NFA for a pattern whose alphabet is the set of characters it mentions.
+   *
+   * @param pattern the regular expression
+   * @return the ε-NFA
+   */
+  public static NDFiniteAutomaton parse(String pattern) {
+    return new RegexParser(pattern, null).toNfa();
+  }
+
+  /**
+   * Returns the minimal DFA for a pattern, compiling it only on the first request in this process.
+   * The returned automaton is shared and {@linkplain DFiniteAutomaton#seal() sealed}.
+   *
+   * @param pattern the regular expression
+   * @return the minimal DFA
+   */
+  public static DFiniteAutomaton compile(String pattern) {
+    return SHARED_CACHE.get(pattern);
+  }
+
+  /**
+   * Parses the pattern and emits the ε-NFA.
+   *
+   * @return the ε-NFA, whose ε-transitions use the {@code 'ε'} symbol
+   */
+  public NDFiniteAutomaton toNfa() {
+    Node root = parseAlternation();
+    if (pos < pattern.length()) {
+      throw error("Unexpected ')'");
+    }
+
+    Set<Character> sigma = new TreeSet<>();
+    if (alphabet != null) {
+      sigma.addAll(alphabet);
+    }
+    root.collectSymbols(sigma);
+
+    nfa = new NDFiniteAutomaton(sigma);
+    stateCounter = 0;
+    Fragment fragment = root.emit(this);
+    nfa.setStartState(fragment.start);
+    nfa.addState(fragment.accept, true);
+    return nfa;
+  }
+
+  private Node parseAlternation() {
+    List<Node> alternatives = new ArrayList<>();
+    alternatives.add(parseConcatenation());
+    while (pos < pattern.length() && pattern.charAt(pos) == '|') {
+      pos++;
+      alternatives.add(parseConcatenation());
+    }
+    return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+  }
+
+  private Node parseConcatenation() {
+    List<Node> parts = new ArrayList<>();
+    while (pos < pattern.length() && pattern.charAt(pos) != '|' && pattern.charAt(pos) != ')') {
+      parts.add(parseRepetition());
+    }
+    return parts.size() == 1 ? parts.get(0) : new Concatenation(parts);
+  }
+
+  private Node parseRepetition() {
+    Node node = parseAtom();
+    while (pos < pattern.length()) {
+      char c = pattern.charAt(pos);
+      if (c == '*' || c == '+' || c == '?') {
+        node = new Repetition(node, c);
+        pos++;
+      } else {
+        break;
+      }
+    }
+    return node;
+  }
+
+  private Node parseAtom() {
+    char c = pattern.charAt(pos++);
+    switch (c) {
+      case '(':
+        Node inner = parseAlternation();
+        if (pos >= pattern.length() || pattern.charAt(pos) != ')') {
+          throw error("Missing ')'");
+        }
+        pos++;
+        return inner;
+      case '[':
+        return parseClass();
+      case '.':
+        return new CharSet(requireAlphabet("'.'"));
+      case '\\':
+        return new CharSet(Set.of(requireLiteral(parseEscaped())));
+      case '*':
+      case '+':
+      case '?':
+        throw error("Nothing to repeat before '" + c + "'");
+      default:
+        return new CharSet(Set.of(requireLiteral(c)));
+    }
+  }
+
+  private Node parseClass() {
+    boolean negated = pos < pattern.length() && pattern.charAt(pos) == '^';
+    if (negated) {
+      pos++;
+    }
+    Set<Character> members = new LinkedHashSet<>();
+    boolean first = true;
+    while (pos < pattern.length() && (first || pattern.charAt(pos) != ']')) {
+      first = false;
+      char low = pattern.charAt(pos) == '\\' ? escapedAt() : pattern.charAt(pos++);
+      if (pos + 1 < pattern.length()
+          && pattern.charAt(pos) == '-'
+          && pattern.charAt(pos + 1) != ']') {
+        pos++;
+        char high = pattern.charAt(pos) == '\\' ? escapedAt() : pattern.charAt(pos++);
+        if (high < low) {
+          throw error("Invalid range " + low + "-" + high);
+        }
+        for (int member = low; member <= high; member++) {
+          members.add((char) member);
+        }
+      } else {
+        members.add(low);
+      }
+    }
+    if (pos >= pattern.length()) {
+      throw error("Missing ']'");
+    }
+    if (members.contains(EPSILON)) {
+      throw error("Character class contains 'ε'");
+    }
+    pos++;
+
+    if (!negated) {
+      return new CharSet(members);
+    }
+    Set<Character> complement = new LinkedHashSet<>(requireAlphabet("'[^'"));
+    complement.removeAll(members);
+    return new CharSet(complement);
+  }
+
+  /** Parses the escape sequence that starts at the backslash under the cursor. */
+  private char escapedAt() {
+    pos++;
+    return parseEscaped();
+  }
+
+  /** Parses the character following a backslash. */
+  private char parseEscaped() {
+    if (pos >= pattern.length()) {
+      throw error("Dangling '\\'");
+    }
+    char c = pattern.charAt(pos++);
+    return switch (c) {
+      case 'n' -> '\n';
+      case 't' -> '\t';
+      case 'r' -> '\r';
+      default -> c;
+    };
+  }
+
+  /** Rejects the symbol that the automata reserve for ε-transitions. */
+  private char requireLiteral(char c) {
+    if (c == EPSILON) {
+      throw error("'ε' cannot be used as a literal");
+    }
+    return c;
+  }
+
+  private Set<Character> requireAlphabet(String construct) {
+    if (alphabet == null) {
+      throw error(construct + " requires an explicit alphabet");
+    }
+    return alphabet;
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at index " + pos + " in \"" + pattern + "\"");
+  }
+
+  private String newState() {
+    String state = "q" + stateCounter++;
+    nfa.addState(state, false);
+    return state;
+  }
+
+  /** Emits a fragment that accepts only the empty string. */
+  private Fragment epsilon() {
+    String start = newState();
+    String accept = newState();
+    nfa.addTransition(start, 'ε', accept);
+    return new Fragment(start, accept);
+  }
+
+  /** A partially built automaton with a single entry and a single exit state. */
+  private record Fragment(String start, String accept) {}
+
+  /** A node of the parsed expression tree. */
+  private interface Node {
+    void collectSymbols(Set<Character> sigma);
+
+    Fragment emit(RegexParser parser);
+  }
+
+  private record CharSet(Set<Character> symbols) implements Node {
+    @Override
+    public void collectSymbols(Set<Character> sigma) {
+      sigma.addAll(symbols);
+    }
+
+    @Override
+    public Fragment emit(RegexParser parser) {
+      String start = parser.newState();
+      String accept = parser.newState();
+      for (char symbol : symbols) {
+        parser.nfa.addTransition(start, symbol, accept);
+      }
+      return new Fragment(start, accept);
+    }
+  }
+
+  private record Concatenation(List<Node> parts) implements Node {
+    @Override
+    public void collectSymbols(Set<Character> sigma) {
+      parts.forEach(part -> part.collectSymbols(sigma));
+    }
+
+    @Override
+    public Fragment emit(RegexParser parser) {
+      if (parts.isEmpty()) {
+        return parser.epsilon();
+      }
+      Fragment first = parts.get(0).emit(parser);
+      String accept = first.accept;
+      for (Node part : parts.subList(1, parts.size())) {
+        Fragment next = part.emit(parser);
+        parser.nfa.addTransition(accept, 'ε', next.start);
+        accept = next.accept;
+      }
+      return new Fragment(first.start, accept);
+    }
+  }
+
+  private record Alternation(List<Node> alternatives) implements Node {
+    @Override
+    public void collectSymbols(Set<Character> sigma) {
+      alternatives.forEach(alternative -> alternative.collectSymbols(sigma));
+    }
+
+    @Override
+    public Fragment emit(RegexParser parser) {
+      String start = parser.newState();
+      List<Fragment> branches = new ArrayList<>();
+      for (Node alternative : alternatives) {
+        branches.add(alternative.emit(parser));
+      }
+      String accept = parser.newState();
+      for (Fragment branch : branches) {
+        parser.nfa.addTransition(start, 'ε', branch.start);
+        parser.nfa.addTransition(branch.accept, 'ε', accept);
+      }
+      return new Fragment(start, accept);
+    }
+  }
+
+  private record Repetition(Node body, char operator) implements Node {
+    @Override
+    public void collectSymbols(Set<Character> sigma) {
+      body.collectSymbols(sigma);
+    }
+
+    @Override
+    public Fragment emit(RegexParser parser) {
+      String start = parser.newState();
+      Fragment inner = body.emit(parser);
+      String accept = parser.newState();
+      parser.nfa.addTransition(start, 'ε', inner.start);
+      parser.nfa.addTransition(inner.accept, 'ε', accept);
+      if (operator != '+') {
+        parser.nfa.addTransition(start, 'ε', accept);
+      }
+      if (operator != '?') {
+        parser.nfa.addTransition(inner.accept, 'ε', inner.start);
+      }
+      return new Fragment(start, accept);
+    }
+  }
+}
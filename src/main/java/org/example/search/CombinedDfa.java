@@ -0,0 +1,325 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.example.fa.CompiledDfa;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.DeterminizationBudget;
+import org.example.fa.impl.DeterminizationResult;
+import org.example.fa.impl.DfaTable;
+import org.example.fa.impl.NDFiniteAutomaton;
+
+/**
+ * The two automata behind leftmost-longest search over a set of patterns, each a single DFA for all
+ * patterns together.
+ *
+ * <p>The reverse automaton recognizes the reversed union of the patterns preceded by anything, so a
+ * backward pass over the text marks every offset at which some non-empty match starts. The forward
+ * automaton is the product of the patterns, anchored at one offset; each of its states knows the
+ * lowest pattern id accepting there, so a forward run from a marked offset yields the longest match
+ * and its pattern. {@link #reportMatches} keeps those runs from rescanning the same stretch of
+ * text.
+ */
+final class CombinedDfa {
+
+  // Both constructions are subset constructions that can blow up; past this size, give up.
+  static final int MAX_STATES = 1 << 16;
+
+  private final DfaTable forward;
+  private final int[] acceptingPattern;
+  private final DfaTable reverse;
+
+  private CombinedDfa(DfaTable forward, int[] acceptingPattern, DfaTable reverse) {
+    this.forward = forward;
+    this.acceptingPattern = acceptingPattern;
+    this.reverse = reverse;
+  }
+
+  /**
+   * Combines the patterns.
+   *
+   * @param patterns the patterns
+   * @param alphabets the symbols of each pattern, or null where unknown
+   * @return the combined automata
+   * @throws IllegalStateException if the alphabet of a pattern is unknown, or if either automaton
+   *     needs more than {@link #MAX_STATES} states
+   */
+  static CombinedDfa of(CompiledDfa[] patterns, char[][] alphabets) {
+    TreeSet<Character> sigma = new TreeSet<>();
+    for (int p = 0; p < patterns.length; p++) {
+      if (alphabets[p] == null) {
+        throw new IllegalStateException(
+            "The alphabet of pattern " + p + " is unknown; add it with its alphabet or search "
+                + "with Mode.OVERLAPPING instead");
+      }
+      for (char symbol : alphabets[p]) {
+        sigma.add(symbol);
+      }
+    }
+    char[] symbols = new char[sigma.size()];
+    int a = 0;
+    for (char symbol : sigma) {
+      symbols[a++] = symbol;
+    }
+
+    List<Integer> accepting = new ArrayList<>();
+    DfaTable forward = DfaTable.of(product(patterns, symbols, sigma, accepting));
+    int[] acceptingPattern = new int[forward.getStateCount()];
+    for (int s = 0; s < acceptingPattern.length; s++) {
+      acceptingPattern[s] = accepting.get(Integer.parseInt(forward.getStateName(s).substring(1)));
+    }
+    DfaTable reverse = DfaTable.of(reverse(patterns, symbols, sigma));
+    return new CombinedDfa(forward, acceptingPattern, reverse);
+  }
+
+  /**
+   * Marks the offsets at which a non-empty match of some pattern starts.
+   *
+   * @param text the text
+   * @return the set of match start offsets
+   */
+  BitSet matchStarts(CharSequence text) {
+    BitSet starts = new BitSet(text.length());
+    int start = reverse.getStartState();
+    if (start == -1) {
+      return starts;
+    }
+    int state = start;
+    for (int i = text.length() - 1; i >= 0; i--) {
+      state = reverse.next(state, text.charAt(i));
+      if (state == -1) {
+        // Only a symbol outside every pattern kills the start's self-loops.
+        state = start;
+      } else if (reverse.isAccepting(state)) {
+        starts.set(i);
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * Reports the leftmost-longest matches, running the forward automaton from the first marked
+   * start, then from the first one at or after the end of each match.
+   *
+   * <p>A run that overshoots its match end leaves its states past that end behind. A later run
+   * that reaches one of those states at the same offset stops there: from then on it repeats the
+   * earlier run, which accepted nothing past its own match and so nothing past the later start.
+   * Each offset is therefore stepped through at most once per forward state, and in the common
+   * case only once.
+   *
+   * @param text the text
+   * @param starts the offsets from {@link #matchStarts(CharSequence)}
+   * @param listener the callback that receives the matches
+   * @return the number of forward steps taken
+   */
+  long reportMatches(CharSequence text, BitSet starts, MatchListener listener) {
+    long steps = 0;
+    int[] trail = new int[16];
+    Visited visited = new Visited();
+    // No earlier run went past this offset, so nothing at or beyond it is in visited.
+    int horizon = 0;
+    for (int from = starts.nextSetBit(0); from >= 0; from = starts.nextSetBit(from)) {
+      if (from >= horizon) {
+        visited.clear();
+      }
+      int state = forward.getStartState();
+      int end = -1;
+      int pattern = -1;
+      int i = from;
+      while (i < text.length()) {
+        state = forward.next(state, text.charAt(i));
+        steps++;
+        if (state == -1 || (i < horizon && visited.contains(i + 1, state))) {
+          break;
+        }
+        if (trail.length == i - from) {
+          trail = Arrays.copyOf(trail, trail.length * 2);
+        }
+        trail[i - from] = state;
+        i++;
+        if (acceptingPattern[state] >= 0) {
+          end = i;
+          pattern = acceptingPattern[state];
+        }
+      }
+      // Later runs start at or after end, so only the states after it can be met again.
+      for (int j = end + 1; j <= i; j++) {
+        visited.add(j, trail[j - from - 1]);
+      }
+      horizon = Math.max(horizon, i);
+      listener.onMatch(pattern, from, end);
+      from = end;
+    }
+    return steps;
+  }
+
+  /** Builds the product of the patterns, recording the lowest accepting pattern of each state. */
+  private static DFiniteAutomaton product(
+      CompiledDfa[] patterns, char[] symbols, TreeSet<Character> sigma, List<Integer> accepting) {
+    DFiniteAutomaton product = new DFiniteAutomaton(sigma);
+    Map<Tuple, Integer> index = new HashMap<>();
+    List<int[]> tuples = new ArrayList<>();
+    int[] initial = new int[patterns.length];
+    for (int p = 0; p < patterns.length; p++) {
+      initial[p] = patterns[p].getStartState();
+    }
+    index.put(new Tuple(initial), 0);
+    tuples.add(initial);
+    for (int t = 0; t < tuples.size(); t++) {
+      int[] tuple = tuples.get(t);
+      int pattern = -1;
+      for (int p = 0; p < patterns.length && pattern < 0; p++) {
+        pattern = tuple[p] != -1 && patterns[p].isAccepting(tuple[p]) ? p : -1;
+      }
+      accepting.add(pattern);
+      product.addState("q" + t, pattern >= 0);
+      for (char symbol : symbols) {
+        int[] next = new int[patterns.length];
+        boolean alive = false;
+        for (int p = 0; p < patterns.length; p++) {
+          next[p] = tuple[p] == -1 ? -1 : patterns[p].next(tuple[p], symbol);
+          alive |= next[p] != -1;
+        }
+        if (!alive) {
+          continue;
+        }
+        Integer target = index.get(new Tuple(next));
+        if (target == null) {
+          if (tuples.size() == MAX_STATES) {
+            throw tooLarge();
+          }
+          target = tuples.size();
+          index.put(new Tuple(next), target);
+          tuples.add(next);
+        }
+        product.addTransition("q" + t, symbol, "q" + target);
+      }
+    }
+    product.setStartState("q0");
+    return product;
+  }
+
+  /**
+   * Builds the DFA of the reversed patterns behind a start state that loops on every symbol, so
+   * that it accepts after reading the reverse of any text that ends with a non-empty match.
+   */
+  private static DFiniteAutomaton reverse(
+      CompiledDfa[] patterns, char[] symbols, TreeSet<Character> sigma) {
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(sigma);
+    nfa.addState("start", false);
+    nfa.setStartState("start");
+    // Entered only over a symbol, so that empty matches never count.
+    nfa.addState("matched", true);
+    for (char symbol : symbols) {
+      nfa.addTransition("start", symbol, "start");
+    }
+    for (int p = 0; p < patterns.length; p++) {
+      CompiledDfa dfa = patterns[p];
+      for (int s = 0; s < dfa.getStateCount(); s++) {
+        nfa.addState(p + "." + s, false);
+      }
+      for (int s = 0; s < dfa.getStateCount(); s++) {
+        if (dfa.isAccepting(s)) {
+          nfa.addTransition("start", 'ε', p + "." + s);
+        }
+        for (char symbol : symbols) {
+          int target = dfa.next(s, symbol);
+          if (target != -1) {
+            nfa.addTransition(p + "." + target, symbol, p + "." + s);
+            if (s == dfa.getStartState()) {
+              nfa.addTransition(p + "." + target, symbol, "matched");
+            }
+          }
+        }
+      }
+    }
+    DeterminizationResult result =
+        nfa.determinize(DeterminizationBudget.builder().maxStates(MAX_STATES).build(), null);
+    return result.getDfa().orElseThrow(CombinedDfa::tooLarge);
+  }
+
+  private static IllegalStateException tooLarge() {
+    return new IllegalStateException(
+        "The patterns need more than " + MAX_STATES + " combined states; search with "
+            + "Mode.OVERLAPPING instead");
+  }
+
+  /** A set of (offset, state) pairs, open addressing over packed longs. */
+  private static final class Visited {
+    private static final long EMPTY = -1;
+
+    private long[] slots = new long[64];
+    private int size;
+
+    Visited() {
+      Arrays.fill(slots, EMPTY);
+    }
+
+    boolean contains(int offset, int state) {
+      long key = (long) offset << 32 | state;
+      int mask = slots.length - 1;
+      for (int slot = slot(key, mask); slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+        if (slots[slot] == key) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void add(int offset, int state) {
+      if (contains(offset, state)) {
+        return;
+      }
+      if (++size * 2 > slots.length) {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        Arrays.fill(slots, EMPTY);
+        for (long key : old) {
+          if (key != EMPTY) {
+            insert(key);
+          }
+        }
+      }
+      insert((long) offset << 32 | state);
+    }
+
+    void clear() {
+      if (size > 0) {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+      }
+    }
+
+    private void insert(long key) {
+      int mask = slots.length - 1;
+      int slot = slot(key, mask);
+      while (slots[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = key;
+    }
+
+    private static int slot(long key, int mask) {
+      long hash = key * 0x9E3779B97F4A7C15L;
+      return (int) (hash >>> 32) & mask;
+    }
+  }
+
+  /** A state tuple compared by content. */
+  private record Tuple(int[] states) {
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Tuple other && Arrays.equals(states, other.states);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(states);
+    }
+  }
+}
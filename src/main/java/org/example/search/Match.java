@@ -0,0 +1,10 @@
+package org.example.search;
+
+/**
+ * A match of a pattern in a text.
+ *
+ * @param patternId the index of the matching pattern
+ * @param start the offset of the first matched character
+ * @param end the offset after the last matched character
+ */
+public record Match(int patternId, int start, int end) {}
@@ -0,0 +1,15 @@
+package org.example.search;
+
+/** Receives the matches reported by a {@link MultiPatternSearcher}. */
+@FunctionalInterface
+public interface MatchListener {
+
+  /**
+   * Called for every match, in order of increasing end offset.
+   *
+   * @param patternId the index of the matching pattern
+   * @param start the offset of the first matched character
+   * @param end the offset after the last matched character
+   */
+  void onMatch(int patternId, int start, int end);
+}
@@ -0,0 +1,411 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.example.fa.CompiledDfa;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.DfaTable;
+import org.example.fa.impl.MappedDfaTable;
+import org.example.fa.impl.NDFiniteAutomaton;
+import org.example.regex.RegexParser;
+
+/**
+ * Finds the matches of many patterns in a text. Empty matches are never reported.
+ *
+ * <p>By default the search reports {@linkplain Mode#LEFTMOST_LONGEST leftmost-longest} matches:
+ * scanning from the left, it takes the match with the leftmost start, the longest of those, and
+ * the lowest pattern id on a tie, then continues after it. All patterns share one reverse DFA, used
+ * in a backward pass that marks the offsets where a match starts, and one forward product DFA,
+ * which is run only from those offsets. The backward pass costs one table step per character
+ * however many patterns there are. The forward pass may run past the end of a match, but a later
+ * run stops as soon as it falls into step with an earlier one, so it takes about one step per
+ * character as well, and never more than one per character and product state. The combined
+ * automata are built on the first such search.
+ *
+ * <p>{@linkplain Mode#OVERLAPPING Overlapping} search instead reports, for each pattern and end
+ * offset, the match with the leftmost start, like the output of Aho–Corasick. Every pattern is run
+ * as a set of threads, one per DFA state, each remembering the leftmost offset at which it could
+ * have started, so a character costs up to the total number of pattern states.
+ *
+ * <p>Patterns added as automata or regular expressions also get a {@link Prefilter}. In
+ * overlapping search, while such a pattern has no live threads, the search skips it up to the
+ * first offset where a match could start given the next occurrence of its required literal, and
+ * stops scanning altogether once no pattern can match in the rest of the text. In leftmost-longest
+ * search, a text that no prefilter admits is skipped when every pattern has one.
+ */
+public class MultiPatternSearcher {
+
+  /** Which matches a search reports. */
+  public enum Mode {
+    /** Non-overlapping matches, each the longest of those with the leftmost start. */
+    LEFTMOST_LONGEST,
+    /** For each pattern and end offset, the match with the leftmost start. */
+    OVERLAPPING
+  }
+
+  private final CompiledDfa[] patterns;
+  // The prefilter of each pattern, or null if it has none.
+  private final Prefilter[] prefilters;
+  // The symbols of each pattern, or null if unknown.
+  private final char[][] alphabets;
+  private volatile CombinedDfa combined;
+
+  /**
+   * Creates a searcher for compiled automata. Leftmost-longest search needs the alphabet of every
+   * pattern, which only {@link DfaTable} and {@link MappedDfaTable} patterns provide; add others
+   * with {@link Builder#add(CompiledDfa, Collection)}.
+   *
+   * @param patterns the automata; pattern ids follow the list order
+   */
+  public MultiPatternSearcher(List<? extends CompiledDfa> patterns) {
+    this(
+        patterns,
+        new Prefilter[patterns.size()],
+        patterns.stream().map(MultiPatternSearcher::knownSymbols).toArray(char[][]::new));
+  }
+
+  private MultiPatternSearcher(
+      List<? extends CompiledDfa> patterns, Prefilter[] prefilters, char[][] alphabets) {
+    this.patterns = patterns.toArray(new CompiledDfa[0]);
+    this.prefilters = prefilters;
+    this.alphabets = alphabets;
+  }
+
+  /**
+   * Creates a searcher for regular expressions; pattern ids follow the argument order.
+   *
+   * @param patterns the regular expressions
+   * @return the searcher
+   */
+  public static MultiPatternSearcher compile(String... patterns) {
+    Builder builder = new Builder();
+    for (String pattern : patterns) {
+      builder.add(pattern);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Scans a text and reports its leftmost-longest matches through a callback.
+   *
+   * @param text the text to scan
+   * @param listener the callback that receives the matches
+   */
+  public void search(CharSequence text, MatchListener listener) {
+    search(text, Mode.LEFTMOST_LONGEST, listener);
+  }
+
+  /**
+   * Scans a text and reports its matches through a callback.
+   *
+   * @param text the text to scan
+   * @param mode which matches to report
+   * @param listener the callback that receives the matches
+   * @throws IllegalStateException if the patterns are too large to combine for leftmost-longest
+   *     search, or the alphabet of one is unknown
+   */
+  public void search(CharSequence text, Mode mode, MatchListener listener) {
+    if (mode == Mode.OVERLAPPING) {
+      searchOverlapping(text, listener);
+      return;
+    }
+    if (!mayMatch(text)) {
+      return;
+    }
+    CombinedDfa dfa = combined();
+    dfa.reportMatches(text, dfa.matchStarts(text), listener);
+  }
+
+  private void searchOverlapping(CharSequence text, MatchListener listener) {
+    Threads[] threads = new Threads[patterns.length];
+    // Pattern p is skipped before offset resume[p]; hits[p] caches its next prefilter hit.
+    int[] resume = new int[patterns.length];
+    int[] hits = new int[patterns.length];
+    Arrays.fill(hits, -1);
+    boolean prefiltered = false;
+    for (int p = 0; p < patterns.length; p++) {
+      threads[p] = new Threads(patterns[p].getStateCount());
+      if (prefilters[p] != null) {
+        resume[p] = resumeOffset(p, text, 0, hits);
+        prefiltered = true;
+      }
+    }
+
+    for (int i = 0; i < text.length(); i++) {
+      char symbol = text.charAt(i);
+      for (int p = 0; p < patterns.length; p++) {
+        if (i < resume[p]) {
+          continue;
+        }
+        CompiledDfa dfa = patterns[p];
+        Threads current = threads[p];
+        if (dfa.getStartState() != -1) {
+          current.add(dfa.getStartState(), i);
+        }
+        int leftmost = current.step(dfa, symbol);
+        if (leftmost != -1) {
+          listener.onMatch(p, leftmost, i + 1);
+        }
+        if (prefilters[p] != null && current.isEmpty()) {
+          resume[p] = resumeOffset(p, text, i + 1, hits);
+        }
+      }
+      if (prefiltered) {
+        int next = Integer.MAX_VALUE;
+        for (int p = 0; p < patterns.length && next > i + 1; p++) {
+          next = Math.min(next, resume[p]);
+        }
+        if (next == Integer.MAX_VALUE) {
+          return;
+        }
+        i = Math.max(i, next - 1);
+      }
+    }
+  }
+
+  /**
+   * Scans a text and collects its leftmost-longest matches.
+   *
+   * @param text the text to scan
+   * @return the matches from left to right
+   */
+  public List<Match> findAll(CharSequence text) {
+    return findAll(text, Mode.LEFTMOST_LONGEST);
+  }
+
+  /**
+   * Scans a text and collects its matches.
+   *
+   * @param text the text to scan
+   * @param mode which matches to report
+   * @return the matches in order of increasing end offset, then pattern id
+   */
+  public List<Match> findAll(CharSequence text, Mode mode) {
+    List<Match> matches = new ArrayList<>();
+    search(text, mode, (patternId, start, end) -> matches.add(new Match(patternId, start, end)));
+    return matches;
+  }
+
+  public int getPatternCount() {
+    return patterns.length;
+  }
+
+  private CombinedDfa combined() {
+    CombinedDfa dfa = combined;
+    if (dfa == null) {
+      synchronized (this) {
+        dfa = combined;
+        if (dfa == null) {
+          dfa = CombinedDfa.of(patterns, alphabets);
+          combined = dfa;
+        }
+      }
+    }
+    return dfa;
+  }
+
+  /** Returns the alphabet of a compiled automaton if it records one, or null. */
+  private static char[] knownSymbols(CompiledDfa dfa) {
+    if (dfa instanceof DfaTable table) {
+      return table.getSymbols();
+    }
+    if (dfa instanceof MappedDfaTable table) {
+      return table.getSymbols();
+    }
+    return null;
+  }
+
+  /** Checks the prefilters, which can only rule a text out if every pattern has one. */
+  private boolean mayMatch(CharSequence text) {
+    for (Prefilter prefilter : prefilters) {
+      if (prefilter == null || prefilter.mayMatch(text)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the first offset at which an idle pattern may start a match, based on the next
+   * occurrence of its prefilter at or after {@code from}.
+   */
+  private int resumeOffset(int p, CharSequence text, int from, int[] hits) {
+    if (hits[p] != Integer.MAX_VALUE && hits[p] < from) {
+      int hit = prefilters[p].indexIn(text, from);
+      hits[p] = hit < 0 ? Integer.MAX_VALUE : hit;
+    }
+    if (hits[p] == Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    }
+    int maxOffset = prefilters[p].getMaxOffset();
+    return maxOffset < 0 ? from : Math.max(from, hits[p] - maxOffset);
+  }
+
+  /**
+   * The live threads of one pattern, stored as two swapped buffers of (state, start) pairs.
+   * Generation stamps let each state be deduplicated without clearing arrays between characters.
+   */
+  private static final class Threads {
+    private int[] states;
+    private int[] starts;
+    private int count = 0;
+    private int[] nextStates;
+    private int[] nextStarts;
+
+    private final int[] slot;
+    private final int[] seen;
+    private int generation = 1;
+
+    Threads(int stateCount) {
+      states = new int[stateCount];
+      starts = new int[stateCount];
+      nextStates = new int[stateCount];
+      nextStarts = new int[stateCount];
+      slot = new int[stateCount];
+      seen = new int[stateCount];
+    }
+
+    boolean isEmpty() {
+      return count == 0;
+    }
+
+    /** Adds a thread to the current generation, keeping the leftmost start per state. */
+    void add(int state, int start) {
+      if (seen[state] == generation) {
+        starts[slot[state]] = Math.min(starts[slot[state]], start);
+        return;
+      }
+      seen[state] = generation;
+      slot[state] = count;
+      states[count] = state;
+      starts[count] = start;
+      count++;
+    }
+
+    /**
+     * Advances every thread over a symbol.
+     *
+     * @return the leftmost start among threads that now accept, or -1 if none does
+     */
+    int step(CompiledDfa dfa, char symbol) {
+      generation++;
+      int nextCount = 0;
+      int leftmost = -1;
+      for (int t = 0; t < count; t++) {
+        int target = dfa.next(states[t], symbol);
+        if (target == -1) {
+          continue;
+        }
+        int start = starts[t];
+        if (seen[target] == generation) {
+          int existing = slot[target];
+          nextStarts[existing] = Math.min(nextStarts[existing], start);
+        } else {
+          seen[target] = generation;
+          slot[target] = nextCount;
+          nextStates[nextCount] = target;
+          nextStarts[nextCount] = start;
+          nextCount++;
+        }
+        if (dfa.isAccepting(target) && (leftmost == -1 || start < leftmost)) {
+          leftmost = start;
+        }
+      }
+
+      int[] swap = states;
+      states = nextStates;
+      nextStates = swap;
+      swap = starts;
+      starts = nextStarts;
+      nextStarts = swap;
+      count = nextCount;
+      return leftmost;
+    }
+  }
+
+  /** Collects patterns from automata or regular expressions; ids are assigned in order. */
+  public static class Builder {
+    private final List<CompiledDfa> patterns = new ArrayList<>();
+    private final List<Prefilter> prefilters = new ArrayList<>();
+    private final List<char[]> alphabets = new ArrayList<>();
+
+    /**
+     * Adds a deterministic automaton.
+     *
+     * @param dfa the automaton
+     * @return this builder
+     */
+    public Builder add(DFiniteAutomaton dfa) {
+      Prefilter prefilter = Prefilter.of(dfa);
+      patterns.add(DfaTable.of(dfa));
+      prefilters.add(prefilter.isSelective() ? prefilter : null);
+      char[] symbols = new char[dfa.getSigma().size()];
+      int a = 0;
+      for (char symbol : dfa.getSigma()) {
+        symbols[a++] = symbol;
+      }
+      alphabets.add(symbols);
+      return this;
+    }
+
+    /**
+     * Adds a non-deterministic automaton, which may use ε-transitions.
+     *
+     * @param nfa the automaton
+     * @return this builder
+     */
+    public Builder add(NDFiniteAutomaton nfa) {
+      return add(nfa.convertEpsilonNfaToDfa());
+    }
+
+    /**
+     * Adds a regular expression, compiled through the shared pattern cache.
+     *
+     * @param pattern the regular expression
+     * @return this builder
+     */
+    public Builder add(String pattern) {
+      return add(RegexParser.compile(pattern));
+    }
+
+    /**
+     * Adds an already compiled automaton. Unless it is a {@link DfaTable} or a {@link
+     * MappedDfaTable}, its alphabet is unknown and only overlapping search is possible.
+     *
+     * @param dfa the compiled automaton
+     * @return this builder
+     */
+    public Builder add(CompiledDfa dfa) {
+      patterns.add(dfa);
+      prefilters.add(null);
+      alphabets.add(knownSymbols(dfa));
+      return this;
+    }
+
+    /**
+     * Adds an already compiled automaton together with its alphabet.
+     *
+     * @param dfa the compiled automaton
+     * @param alphabet every symbol on which the automaton has a transition
+     * @return this builder
+     */
+    public Builder add(CompiledDfa dfa, Collection<Character> alphabet) {
+      char[] symbols = new char[alphabet.size()];
+      int a = 0;
+      for (char symbol : alphabet) {
+        symbols[a++] = symbol;
+      }
+      patterns.add(dfa);
+      prefilters.add(null);
+      alphabets.add(symbols);
+      return this;
+    }
+
+    public MultiPatternSearcher build() {
+      return new MultiPatternSearcher(
+          patterns, prefilters.toArray(new Prefilter[0]), alphabets.toArray(new char[0][]));
+    }
+  }
+}
@@ -0,0 +1,549 @@
+package org.example.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.NDFiniteAutomaton;
+
+/**
+ * A cheap test that rules out texts, or parts of texts, that cannot contain a match of a pattern.
+ *
+ * <p>The prefilter is derived from the states every accepting path of the DFA must pass through:
+ * the dominators of the accept states. Around each dominator, the analysis walks forwards and
+ * backwards over sets of states for as long as all their live transitions share one label; those
+ * labels spell a literal that every accepted string contains. Failing that, the labels entering or
+ * leaving a dominator form a set of which every accepted string contains at least one character.
+ * The longest literal is used if it has two or more characters, otherwise the smallest set.
+ *
+ * <p>Literals are located with {@link String#indexOf(String, int)}, which the JIT compiles to a
+ * vectorized scan, and character sets with a Latin-1 lookup table.
+ */
+public final class Prefilter {
+
+  private static final Prefilter NONE = new Prefilter(null, null, 0);
+  private static final Prefilter NEVER = new Prefilter(null, new char[0], 0);
+
+  private final String literal;
+  private final char[] set;
+  private final boolean[] latin1 = new boolean[256];
+  private final int maxOffset;
+
+  private Prefilter(String literal, char[] set, int maxOffset) {
+    this.literal = literal;
+    this.set = set;
+    this.maxOffset = maxOffset;
+    if (set != null) {
+      for (char c : set) {
+        if (c < 256) {
+          latin1[c] = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Derives the prefilter of a DFA.
+   *
+   * @param dfa the automaton
+   * @return the prefilter, which accepts every text if nothing is required
+   */
+  public static Prefilter of(DFiniteAutomaton dfa) {
+    Set<String> live = dfa.getLiveStates();
+    if (dfa.getStartState() == null || !live.contains(dfa.getStartState())) {
+      return NEVER;
+    }
+    return new Analysis(dfa, live).run();
+  }
+
+  /**
+   * Derives the prefilter of an NFA, which may use ε-transitions, through its subset automaton.
+   *
+   * @param nfa the automaton
+   * @return the prefilter
+   */
+  public static Prefilter of(NDFiniteAutomaton nfa) {
+    return of(nfa.convertEpsilonNfaToDfa());
+  }
+
+  /**
+   * Returns the required literal.
+   *
+   * @return the literal, or null if the prefilter uses a character set or requires nothing
+   */
+  public String getLiteral() {
+    return literal;
+  }
+
+  /**
+   * Returns the required characters, of which every match contains at least one.
+   *
+   * @return the sorted characters, or null if the prefilter uses a literal or requires nothing
+   */
+  public char[] getRequiredCharacters() {
+    return set == null ? null : set.clone();
+  }
+
+  /**
+   * Returns how far from the start of a match the required literal or character may begin.
+   *
+   * @return the maximum offset, or -1 if it is unbounded
+   */
+  public int getMaxOffset() {
+    return maxOffset;
+  }
+
+  /**
+   * Checks if the prefilter can rule anything out.
+   *
+   * @return false if every text is a candidate
+   */
+  public boolean isSelective() {
+    return this != NONE;
+  }
+
+  /**
+   * Checks if a text may contain a match, or may be matched as a whole.
+   *
+   * @param text the text
+   * @return false if the text certainly holds no match
+   */
+  public boolean mayMatch(CharSequence text) {
+    return indexIn(text, 0) >= 0;
+  }
+
+  /**
+   * Finds the next occurrence of the required literal or of a required character.
+   *
+   * @param text the text
+   * @param from the offset to search from
+   * @return the offset of the occurrence, {@code from} if nothing is required, or -1 if none
+   */
+  public int indexIn(CharSequence text, int from) {
+    if (literal != null) {
+      if (text instanceof String string) {
+        return string.indexOf(literal, from);
+      }
+      return indexOfLiteral(text, from);
+    }
+    if (set == null) {
+      return from <= text.length() ? from : -1;
+    }
+    for (int i = from; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c < 256 ? latin1[c] : Arrays.binarySearch(set, c) >= 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    if (literal != null) {
+      return "Prefilter{literal=\"" + literal + "\", maxOffset=" + maxOffset + "}";
+    }
+    if (set != null) {
+      return "Prefilter{set=" + Arrays.toString(set) + ", maxOffset=" + maxOffset + "}";
+    }
+    return "Prefilter{none}";
+  }
+
+  private int indexOfLiteral(CharSequence text, int from) {
+    char first = literal.charAt(0);
+    int last = text.length() - literal.length();
+    for (int i = Math.max(from, 0); i <= last; i++) {
+      if (text.charAt(i) != first) {
+        continue;
+      }
+      int j = 1;
+      while (j < literal.length() && text.charAt(i + j) == literal.charAt(j)) {
+        j++;
+      }
+      if (j == literal.length()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** The must-pass analysis over the live, reachable states of a DFA. */
+  private static final class Analysis {
+    private final DFiniteAutomaton dfa;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<int[]> successors = new ArrayList<>();
+    private final List<List<Integer>> predecessors = new ArrayList<>();
+    private int sink;
+
+    Analysis(DFiniteAutomaton dfa, Set<String> live) {
+      this.dfa = dfa;
+      ArrayDeque<String> queue = new ArrayDeque<>();
+      id(dfa.getStartState(), queue);
+      while (!queue.isEmpty()) {
+        String state = queue.poll();
+        TreeSet<Integer> targets = new TreeSet<>();
+        for (String target : row(state).values()) {
+          if (live.contains(target)) {
+            targets.add(id(target, queue));
+          }
+        }
+        successors.set(ids.get(state), targets.stream().mapToInt(Integer::intValue).toArray());
+      }
+      sink = names.size();
+      predecessors.add(new ArrayList<>());
+      for (int s = 0; s < sink; s++) {
+        for (int t : successors.get(s)) {
+          predecessors.get(t).add(s);
+        }
+        if (dfa.getAcceptStates().contains(names.get(s))) {
+          predecessors.get(sink).add(s);
+        }
+      }
+    }
+
+    Prefilter run() {
+      int[] idom = dominators();
+      List<Integer> chain = new ArrayList<>();
+      for (int d = idom[sink]; d != 0; d = idom[d]) {
+        chain.add(d);
+      }
+      chain.add(0);
+      Collections.reverse(chain);
+
+      // Candidates are anchored at a dominator and start `shift` characters before reaching it.
+      String bestLiteral = "";
+      int literalAnchor = -1;
+      int literalShift = 0;
+      char[] bestSet = null;
+      int setAnchor = -1;
+      int setShift = 0;
+      for (int d : chain) {
+        String before = before(d);
+        String literal = before + after(d);
+        if (literal.length() > bestLiteral.length()) {
+          bestLiteral = literal;
+          literalAnchor = d;
+          literalShift = before.length();
+        }
+        if (d != 0) {
+          char[] incoming = incomingLabels(d);
+          if (bestSet == null || incoming.length < bestSet.length) {
+            bestSet = incoming;
+            setAnchor = d;
+            setShift = 1;
+          }
+        }
+        if (!isAccepting(d)) {
+          char[] outgoing = outgoingLabels(d);
+          if (bestSet == null || outgoing.length < bestSet.length) {
+            bestSet = outgoing;
+            setAnchor = d;
+            setShift = 0;
+          }
+        }
+      }
+
+      if (bestLiteral.length() >= 2) {
+        return new Prefilter(bestLiteral, null, offset(literalAnchor, literalShift));
+      }
+      if (bestSet != null) {
+        return new Prefilter(null, bestSet, offset(setAnchor, setShift));
+      }
+      return NONE;
+    }
+
+    /**
+     * Returns the characters that follow every visit of a dominator. Starting from the dominator,
+     * as long as a set of states holds no accept state and all live transitions leaving it share
+     * one label, that label is forced and the set moves on to their targets.
+     */
+    private String after(int dominator) {
+      StringBuilder forced = new StringBuilder();
+      BitSet current = new BitSet();
+      current.set(dominator);
+      while (forced.length() < sink) {
+        BitSet next = new BitSet();
+        int label = -1;
+        for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+          if (isAccepting(s)) {
+            return forced.toString();
+          }
+          for (Map.Entry<Character, String> edge : row(names.get(s)).entrySet()) {
+            Integer target = ids.get(edge.getValue());
+            if (target == null) {
+              continue;
+            }
+            if (label >= 0 && label != edge.getKey()) {
+              return forced.toString();
+            }
+            label = edge.getKey();
+            next.set(target);
+          }
+        }
+        if (label < 0) {
+          break;
+        }
+        forced.append((char) label);
+        current = next;
+      }
+      return forced.toString();
+    }
+
+    /**
+     * Returns the characters that precede every visit of a dominator, found the same way as {@link
+     * #after(int)} but walking transitions backwards. The walk stops at a set holding the start
+     * state, which is also visited with nothing before it.
+     */
+    private String before(int dominator) {
+      StringBuilder forced = new StringBuilder();
+      BitSet current = new BitSet();
+      current.set(dominator);
+      while (!current.get(0) && forced.length() < sink) {
+        BitSet previous = new BitSet();
+        int label = -1;
+        for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+          for (int p : predecessors.get(s)) {
+            for (Map.Entry<Character, String> edge : row(names.get(p)).entrySet()) {
+              if (!edge.getValue().equals(names.get(s))) {
+                continue;
+              }
+              if (label >= 0 && label != edge.getKey()) {
+                return forced.reverse().toString();
+              }
+              label = edge.getKey();
+              previous.set(p);
+            }
+          }
+        }
+        if (label < 0) {
+          break;
+        }
+        forced.append((char) label);
+        current = previous;
+      }
+      return forced.reverse().toString();
+    }
+
+    private boolean isAccepting(int state) {
+      return dfa.getAcceptStates().contains(names.get(state));
+    }
+
+    private int offset(int anchor, int shift) {
+      int distance = maxDistance(anchor);
+      return distance < 0 ? -1 : distance - shift;
+    }
+
+    /** Computes immediate dominators with the iterative algorithm of Cooper, Harvey and Kennedy. */
+    private int[] dominators() {
+      int[] order = reversePostorder();
+      int[] rank = new int[sink + 1];
+      for (int i = 0; i < order.length; i++) {
+        rank[order[i]] = i;
+      }
+      int[] idom = new int[sink + 1];
+      Arrays.fill(idom, -1);
+      idom[0] = 0;
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (int i = 1; i < order.length; i++) {
+          int b = order[i];
+          int dominator = -1;
+          for (int p : predecessors.get(b)) {
+            if (idom[p] < 0) {
+              continue;
+            }
+            if (dominator < 0) {
+              dominator = p;
+              continue;
+            }
+            int x = p;
+            while (x != dominator) {
+              while (rank[x] > rank[dominator]) {
+                x = idom[x];
+              }
+              while (rank[dominator] > rank[x]) {
+                dominator = idom[dominator];
+              }
+            }
+          }
+          if (idom[b] != dominator) {
+            idom[b] = dominator;
+            changed = true;
+          }
+        }
+      }
+      return idom;
+    }
+
+    private int[] reversePostorder() {
+      int[] order = new int[sink + 1];
+      int position = sink + 1;
+      boolean[] visited = new boolean[sink + 1];
+      int[] stack = new int[sink + 1];
+      int[] edge = new int[sink + 1];
+      int depth = 0;
+      stack[depth++] = 0;
+      visited[0] = true;
+      while (depth > 0) {
+        int node = stack[depth - 1];
+        int next = -1;
+        while (next < 0 && edge[node] <= degree(node)) {
+          int candidate = successor(node, edge[node]++);
+          if (candidate >= 0 && !visited[candidate]) {
+            next = candidate;
+          }
+        }
+        if (next < 0) {
+          order[--position] = node;
+          depth--;
+        } else {
+          visited[next] = true;
+          stack[depth++] = next;
+        }
+      }
+      return Arrays.copyOfRange(order, position, order.length);
+    }
+
+    /** Returns edge {@code e} of a node in the graph with the sink, or -1 if there is none. */
+    private int successor(int node, int e) {
+      if (node == sink) {
+        return -1;
+      }
+      int[] targets = successors.get(node);
+      if (e < targets.length) {
+        return targets[e];
+      }
+      return e == targets.length && dfa.getAcceptStates().contains(names.get(node)) ? sink : -1;
+    }
+
+    private int degree(int node) {
+      return node == sink ? 0 : successors.get(node).length;
+    }
+
+    /**
+     * Returns the length of the longest path from the start to the first visit of a state, or -1
+     * if a cycle makes it unbounded.
+     */
+    private int maxDistance(int anchor) {
+      if (anchor == 0) {
+        return 0;
+      }
+      // Only states between the start and the first visit of the anchor matter.
+      boolean[] reaches = new boolean[sink];
+      ArrayDeque<Integer> stack = new ArrayDeque<>(List.of(anchor));
+      reaches[anchor] = true;
+      while (!stack.isEmpty()) {
+        for (int p : predecessors.get(stack.pop())) {
+          if (!reaches[p]) {
+            reaches[p] = true;
+            stack.push(p);
+          }
+        }
+      }
+      boolean[] relevant = new boolean[sink];
+      relevant[0] = true;
+      stack.push(0);
+      int nodes = 0;
+      int[] indegree = new int[sink];
+      while (!stack.isEmpty()) {
+        int s = stack.pop();
+        if (s == anchor) {
+          continue;
+        }
+        nodes++;
+        for (int t : successors.get(s)) {
+          if (reaches[t]) {
+            indegree[t]++;
+            if (!relevant[t]) {
+              relevant[t] = true;
+              stack.push(t);
+            }
+          }
+        }
+      }
+      int[] distance = new int[sink];
+      ArrayDeque<Integer> ready = new ArrayDeque<>();
+      if (indegree[0] == 0) {
+        ready.add(0);
+      }
+      int processed = 0;
+      while (!ready.isEmpty()) {
+        int s = ready.poll();
+        if (s == anchor) {
+          continue;
+        }
+        processed++;
+        for (int t : successors.get(s)) {
+          if (relevant[t]) {
+            distance[t] = Math.max(distance[t], distance[s] + 1);
+            if (--indegree[t] == 0) {
+              ready.add(t);
+            }
+          }
+        }
+      }
+      return processed == nodes ? distance[anchor] : -1;
+    }
+
+    private char[] outgoingLabels(int state) {
+      TreeSet<Character> labels = new TreeSet<>();
+      row(names.get(state))
+          .forEach(
+              (symbol, target) -> {
+                if (ids.containsKey(target)) {
+                  labels.add(symbol);
+                }
+              });
+      return toArray(labels);
+    }
+
+    private char[] incomingLabels(int state) {
+      TreeSet<Character> labels = new TreeSet<>();
+      for (int p : predecessors.get(state)) {
+        row(names.get(p))
+            .forEach(
+                (symbol, target) -> {
+                  if (target.equals(names.get(state))) {
+                    labels.add(symbol);
+                  }
+                });
+      }
+      return toArray(labels);
+    }
+
+    private static char[] toArray(Set<Character> labels) {
+      char[] result = new char[labels.size()];
+      int i = 0;
+      for (char c : labels) {
+        result[i++] = c;
+      }
+      return result;
+    }
+
+    private Map<Character, String> row(String state) {
+      return dfa.getTransitions().getOrDefault(state, Collections.emptyMap());
+    }
+
+    private int id(String state, ArrayDeque<String> queue) {
+      Integer id = ids.get(state);
+      if (id == null) {
+        id = names.size();
+        ids.put(state, id);
+        names.add(state);
+        successors.add(null);
+        predecessors.add(new ArrayList<>());
+        queue.add(state);
+      }
+      return id;
+    }
+  }
+}
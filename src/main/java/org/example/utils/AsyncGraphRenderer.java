@@ -0,0 +1,254 @@
+package org.example.utils;
+
+import guru.nidi.graphviz.model.MutableGraph;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.NDFiniteAutomaton;
+
+/**
+ * Renders automata to PNG files on a bounded pool of worker threads, backed by an on-disk cache.
+ *
+ * <p>Every image is stored in the cache directory under the SHA-256 hash of a canonical, sorted
+ * serialization of the automaton, so rendering an unchanged automaton again only copies the cached
+ * file. Concurrent requests for the same automaton share a single render. The graph model is only
+ * built on a cache miss, on the calling thread, so the automaton may be modified as soon as a
+ * render method returns.
+ */
+public class AsyncGraphRenderer implements AutoCloseable {
+
+  // Bump when the rendered output changes, so that stale images are not reused.
+  private static final String CACHE_VERSION = "1";
+
+  private final Path cacheDirectory;
+  private final ExecutorService executor;
+  private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a renderer.
+   *
+   * @param cacheDirectory the directory holding cached images, created if missing
+   * @param threads the number of rendering threads
+   * @throws IOException if the cache directory cannot be created
+   */
+  public AsyncGraphRenderer(Path cacheDirectory, int threads) throws IOException {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Thread count must be positive: " + threads);
+    }
+    this.cacheDirectory = Files.createDirectories(cacheDirectory);
+    this.executor =
+        Executors.newFixedThreadPool(
+            threads,
+            task -> {
+              Thread thread = new Thread(task, "graph-renderer");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Renders a deterministic finite automaton to a PNG file.
+   *
+   * @param dfa the deterministic finite automaton
+   * @param output the path to save the graph
+   * @return a future completed with the output path once the file is written
+   */
+  public CompletableFuture<Path> render(DFiniteAutomaton dfa, Path output) {
+    return render(canonicalKey(dfa), () -> GraphUtils.buildGraph(dfa), output);
+  }
+
+  /**
+   * Renders a non-deterministic finite automaton to a PNG file.
+   *
+   * @param nfa the non-deterministic finite automaton
+   * @param output the path to save the graph
+   * @return a future completed with the output path once the file is written
+   */
+  public CompletableFuture<Path> render(NDFiniteAutomaton nfa, Path output) {
+    return render(canonicalKey(nfa), () -> GraphUtils.buildNfaGraph(nfa), output);
+  }
+
+  private CompletableFuture<Path> render(
+      String key, Supplier<MutableGraph> buildGraph, Path output) {
+    Path cached = cacheDirectory.resolve(key + ".png");
+    if (Files.exists(cached)) {
+      hits.incrementAndGet();
+      return CompletableFuture.supplyAsync(() -> copy(cached, output), executor);
+    }
+    CompletableFuture<Path> created = new CompletableFuture<>();
+    CompletableFuture<Path> pending = inFlight.putIfAbsent(key, created);
+    if (pending == null) {
+      // Only start the render once the future is in the map, so that its cleanup cannot run
+      // while the map is being updated.
+      misses.incrementAndGet();
+      pending = created;
+      try {
+        MutableGraph graph = buildGraph.get();
+        CompletableFuture.supplyAsync(() -> renderToCache(graph, cached), executor)
+            .whenComplete(
+                (path, error) -> {
+                  inFlight.remove(key, created);
+                  if (error != null) {
+                    created.completeExceptionally(error);
+                  } else {
+                    created.complete(path);
+                  }
+                });
+      } catch (RuntimeException e) {
+        inFlight.remove(key, created);
+        created.completeExceptionally(e);
+        throw e;
+      }
+    }
+    return pending.thenApply(path -> copy(path, output));
+  }
+
+  private Path renderToCache(MutableGraph graph, Path cached) {
+    try {
+      // Render next to the final file and move it into place, so readers never see partial images.
+      Path temporary = Files.createTempFile(cacheDirectory, "render", ".png");
+      try {
+        GraphUtils.render(graph, temporary.toFile());
+        Files.move(temporary, cached, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+      return cached;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Path copy(Path cached, Path output) {
+    try {
+      Path parent = output.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      return Files.copy(cached, output, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Computes the cache key of a deterministic finite automaton.
+   *
+   * @param dfa the deterministic finite automaton
+   * @return the hex SHA-256 hash of its canonical serialization
+   */
+  public static String canonicalKey(DFiniteAutomaton dfa) {
+    StringBuilder sb = new StringBuilder("DFA");
+    appendStructure(
+        sb, dfa.getSigma(), dfa.getStates(), dfa.getStartState(), dfa.getAcceptStates());
+    Map<String, Map<Character, String>> transitions = new TreeMap<>();
+    dfa.getTransitions().forEach((state, row) -> transitions.put(state, new TreeMap<>(row)));
+    transitions.forEach(
+        (state, row) ->
+            row.forEach(
+                (symbol, target) -> {
+                  appendField(sb, state);
+                  sb.append(symbol);
+                  appendField(sb, target);
+                }));
+    return sha256(sb);
+  }
+
+  /**
+   * Computes the cache key of a non-deterministic finite automaton.
+   *
+   * @param nfa the non-deterministic finite automaton
+   * @return the hex SHA-256 hash of its canonical serialization
+   */
+  public static String canonicalKey(NDFiniteAutomaton nfa) {
+    StringBuilder sb = new StringBuilder("NFA");
+    appendStructure(
+        sb, nfa.getSigma(), nfa.getStates(), nfa.getStartState(), nfa.getAcceptStates());
+    Map<String, Map<Character, Set<String>>> transitions = new TreeMap<>();
+    nfa.getNfaTransitions()
+        .forEach(
+            (state, row) -> {
+              Map<Character, Set<String>> sorted = new TreeMap<>();
+              row.forEach((symbol, targets) -> sorted.put(symbol, new TreeSet<>(targets)));
+              transitions.put(state, sorted);
+            });
+    transitions.forEach(
+        (state, row) ->
+            row.forEach(
+                (symbol, targets) ->
+                    targets.forEach(
+                        target -> {
+                          appendField(sb, state);
+                          sb.append(symbol);
+                          appendField(sb, target);
+                        })));
+    return sha256(sb);
+  }
+
+  private static void appendStructure(
+      StringBuilder sb,
+      Set<Character> sigma,
+      Set<String> states,
+      String startState,
+      Set<String> acceptStates) {
+    sb.append(CACHE_VERSION).append(':').append(sigma.size()).append(':');
+    new TreeSet<>(sigma).forEach(sb::append);
+    appendField(sb, String.valueOf(startState));
+    List<String> sorted = new ArrayList<>(new TreeSet<>(states));
+    sb.append(sorted.size());
+    for (String state : sorted) {
+      appendField(sb, state);
+      sb.append(acceptStates.contains(state) ? '1' : '0');
+    }
+  }
+
+  /** Appends a length-prefixed field, so that no two serializations collide. */
+  private static void appendField(StringBuilder sb, String field) {
+    sb.append(field.length()).append(':').append(field);
+  }
+
+  private static String sha256(CharSequence text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of()
+          .formatHex(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /** Stops accepting new renders; renders already submitted still complete. */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
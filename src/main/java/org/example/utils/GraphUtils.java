@@ -11,10 +11,18 @@ import guru.nidi.graphviz.model.MutableGraph;
 import guru.nidi.graphviz.model.MutableNode;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import org.example.fa.impl.DFiniteAutomaton;
 import org.example.fa.impl.NDFiniteAutomaton;
 
@@ -27,6 +35,34 @@ public class GraphUtils {
    * @param outputPath the path to save the graph
    */
   public static void generateGraph(DFiniteAutomaton dfa, String outputPath) {
+    try {
+      render(buildGraph(dfa), new File(outputPath));
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Generates a graph for a non-deterministic finite automaton.
+   *
+   * @param nfa the non-deterministic finite automaton
+   * @param outputPath the path to save the graph
+   */
+  public static void generateNfaGraph(NDFiniteAutomaton nfa, String outputPath) {
+    try {
+      render(buildNfaGraph(nfa), new File(outputPath));
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Renders a graph to a PNG file. */
+  static void render(MutableGraph g, File output) throws IOException {
+    Graphviz.fromGraph(g).render(Format.PNG).toFile(output);
+  }
+
+  /** Builds the graphviz model of a deterministic finite automaton. */
+  static MutableGraph buildGraph(DFiniteAutomaton dfa) {
     MutableGraph g =
         mutGraph("finite_automaton").setDirected(true).add(mutNode("start").add(Shape.POINT));
     MutableNode startNode = mutNode(dfa.getStartState()).add(Color.BLACK.fill(), Shape.CIRCLE);
@@ -44,15 +80,21 @@ public class GraphUtils {
               g.add(node);
             });
 
-    // Determine if the empty set state is needed
-    Set<String> definedTransitions = new HashSet<>();
-    dfa.getTransitions().values().forEach(map -> definedTransitions.addAll(map.values()));
-      boolean emptySetNeeded = dfa.getStates().stream()
-              .anyMatch(state -> dfa.getSigma().stream()
-                      .anyMatch(symbol -> !dfa.getTransitions().getOrDefault(state, Collections.emptyMap()).containsKey(symbol)));
-
+    // Collect missing transitions in a single pass; they lead to the empty set state
+    Map<String, List<Character>> missing = new HashMap<>();
+    dfa.getStates()
+        .forEach(
+            state -> {
+              Map<Character, String> row =
+                  dfa.getTransitions().getOrDefault(state, Collections.emptyMap());
+              dfa.getSigma().stream()
+                  .filter(symbol -> !row.containsKey(symbol))
+                  .forEach(
+                      symbol ->
+                          missing.computeIfAbsent(state, key -> new ArrayList<>()).add(symbol));
+            });
 
-      // Add transitions
+    // Add transitions
     dfa.getTransitions().entrySet().stream()
         .flatMap(
             entry ->
@@ -66,38 +108,22 @@ public class GraphUtils {
         .forEach(g::add);
 
     // Handle missing transitions to the empty set state
-    if (emptySetNeeded) {
+    if (!missing.isEmpty()) {
       g.add(mutNode("Ø").add(Shape.CIRCLE, Color.GRAY.fill()));
-      dfa.getStates().stream()
-          .flatMap(
-              state ->
-                  dfa.getSigma().stream()
-                      .filter(
-                          symbol ->
-                              !dfa.getTransitions()
-                                  .getOrDefault(state, new HashMap<>())
-                                  .containsKey(symbol))
-                      .map(
-                          symbol ->
-                              mutNode(state)
-                                  .addLink(to(mutNode("Ø")).with(Label.of(symbol.toString())))))
-          .forEach(g::add);
+      missing.forEach(
+          (state, symbols) ->
+              symbols.forEach(
+                  symbol ->
+                      g.add(
+                          mutNode(state)
+                              .addLink(to(mutNode("Ø")).with(Label.of(symbol.toString()))))));
     }
 
-    try {
-      Graphviz.fromGraph(g).render(Format.PNG).toFile(new File(outputPath));
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+    return g;
   }
 
-  /**
-   * Generates a graph for a non-deterministic finite automaton.
-   *
-   * @param nfa the non-deterministic finite automaton
-   * @param outputPath the path to save the graph
-   */
-  public static void generateNfaGraph(NDFiniteAutomaton nfa, String outputPath) {
+  /** Builds the graphviz model of a non-deterministic finite automaton. */
+  static MutableGraph buildNfaGraph(NDFiniteAutomaton nfa) {
     MutableGraph g =
         mutGraph("non_deterministic_finite_automaton")
             .setDirected(true)
@@ -131,10 +157,269 @@ public class GraphUtils {
                                             to(mutNode(toState))
                                                 .with(Label.of(String.valueOf(input))))))));
 
-    try {
-      Graphviz.fromGraph(g).render(Format.PNG).toFile(new File(outputPath));
-    } catch (IOException e) {
-      e.printStackTrace();
+    return g;
+  }
+
+  /**
+   * Streams a deterministic finite automaton as graphviz DOT text in a single pass over its
+   * transitions, without building a graph in memory. Parallel edges between two states are merged
+   * into one edge labelled with the set of their symbols.
+   *
+   * @param dfa the deterministic finite automaton
+   * @param out the destination, which should be buffered for large automata
+   * @throws IOException if writing fails
+   */
+  public static void writeDot(DFiniteAutomaton dfa, Writer out) throws IOException {
+    writeHeader(out, "finite_automaton", dfa.getStartState());
+    boolean emptySetNeeded = false;
+    for (String state : dfa.getStates()) {
+      writeNode(out, state, dfa.getAcceptStates().contains(state));
+      Map<Character, String> row = dfa.getTransitions().getOrDefault(state, Collections.emptyMap());
+      Map<String, Set<Character>> edges = new TreeMap<>();
+      row.forEach(
+          (symbol, target) -> edges.computeIfAbsent(target, key -> new TreeSet<>()).add(symbol));
+      Set<Character> missing = new TreeSet<>(dfa.getSigma());
+      missing.removeAll(row.keySet());
+      if (!missing.isEmpty()) {
+        edges.computeIfAbsent("Ø", key -> new TreeSet<>()).addAll(missing);
+        emptySetNeeded = true;
+      }
+      writeEdges(out, state, edges);
     }
+    if (emptySetNeeded) {
+      out.write("  \"Ø\" [shape=circle, style=filled, fillcolor=gray];\n");
+    }
+    out.write("}\n");
+    out.flush();
+  }
+
+  /**
+   * Streams a non-deterministic finite automaton as graphviz DOT text in a single pass over its
+   * transitions, merging parallel edges into label sets.
+   *
+   * @param nfa the non-deterministic finite automaton
+   * @param out the destination, which should be buffered for large automata
+   * @throws IOException if writing fails
+   */
+  public static void writeNfaDot(NDFiniteAutomaton nfa, Writer out) throws IOException {
+    writeHeader(out, "non_deterministic_finite_automaton", nfa.getStartState());
+    for (String state : nfa.getStates()) {
+      writeNode(out, state, nfa.getAcceptStates().contains(state));
+      Map<String, Set<Character>> edges = new TreeMap<>();
+      nfa.getNfaTransitions()
+          .getOrDefault(state, Collections.emptyMap())
+          .forEach(
+              (symbol, targets) ->
+                  targets.forEach(
+                      target -> edges.computeIfAbsent(target, key -> new TreeSet<>()).add(symbol)));
+      writeEdges(out, state, edges);
+    }
+    out.write("}\n");
+    out.flush();
+  }
+
+  /**
+   * Streams a summary of a huge automaton that only shows the states within {@code maxDepth}
+   * transitions of the start state. Each state on the boundary that has further successors gets an
+   * edge to an ellipsis node labelled with the number of distinct hidden states it leads to
+   * directly; states further behind those are not counted.
+   *
+   * @param dfa the deterministic finite automaton
+   * @param out the destination
+   * @param maxDepth the number of transitions to follow from the start state
+   * @throws IOException if writing fails
+   */
+  public static void writeDotSummary(DFiniteAutomaton dfa, Writer out, int maxDepth)
+      throws IOException {
+    writeHeader(out, "finite_automaton_summary", dfa.getStartState());
+    Map<String, Integer> depth = new HashMap<>();
+    ArrayDeque<String> queue = new ArrayDeque<>();
+    if (dfa.getStartState() != null) {
+      depth.put(dfa.getStartState(), 0);
+      queue.add(dfa.getStartState());
+    }
+    int hidden = 0;
+    while (!queue.isEmpty()) {
+      String state = queue.poll();
+      int level = depth.get(state);
+      writeNode(out, state, dfa.getAcceptStates().contains(state));
+      Map<String, Set<Character>> edges = new TreeMap<>();
+      Set<String> beyond = new HashSet<>();
+      for (Map.Entry<Character, String> transition :
+          dfa.getTransitions().getOrDefault(state, Collections.emptyMap()).entrySet()) {
+        String target = transition.getValue();
+        if (!depth.containsKey(target)) {
+          if (level == maxDepth) {
+            beyond.add(target);
+            continue;
+          }
+          depth.put(target, level + 1);
+          queue.add(target);
+        }
+        edges.computeIfAbsent(target, key -> new TreeSet<>()).add(transition.getKey());
+      }
+      writeEdges(out, state, edges);
+      if (!beyond.isEmpty()) {
+        String more = "…" + hidden++;
+        out.write(
+            "  " + quote(more) + " [shape=none, label=" + quote("+" + beyond.size()) + "];\n");
+        out.write("  " + quote(state) + " -> " + quote(more) + " [style=dashed];\n");
+      }
+    }
+    out.write("}\n");
+    out.flush();
+  }
+
+  /**
+   * Streams the condensation of an automaton: every strongly connected component is collapsed into
+   * a single node, and edges between components are merged into label sets. A component is drawn
+   * as accepting if it contains an accept state.
+   *
+   * @param dfa the deterministic finite automaton
+   * @param out the destination
+   * @throws IOException if writing fails
+   */
+  public static void writeDotCondensed(DFiniteAutomaton dfa, Writer out) throws IOException {
+    Map<String, Integer> component = stronglyConnectedComponents(dfa);
+    int count = component.isEmpty() ? 0 : Collections.max(component.values()) + 1;
+    int[] sizes = new int[count];
+    boolean[] accepting = new boolean[count];
+    String[] representative = new String[count];
+    component.forEach(
+        (state, c) -> {
+          sizes[c]++;
+          accepting[c] |= dfa.getAcceptStates().contains(state);
+          if (representative[c] == null || state.compareTo(representative[c]) < 0) {
+            representative[c] = state;
+          }
+        });
+
+    String[] names = new String[count];
+    for (int c = 0; c < count; c++) {
+      names[c] =
+          sizes[c] == 1 ? representative[c] : representative[c] + " (+" + (sizes[c] - 1) + ")";
+    }
+    Integer startComponent = component.get(dfa.getStartState());
+    writeHeader(
+        out, "finite_automaton_condensed", startComponent == null ? null : names[startComponent]);
+    List<Map<String, Set<Character>>> edges = new ArrayList<>();
+    for (int c = 0; c < count; c++) {
+      edges.add(new TreeMap<>());
+    }
+    dfa.getTransitions()
+        .forEach(
+            (state, row) ->
+                row.forEach(
+                    (symbol, target) -> {
+                      Integer from = component.get(state);
+                      Integer to = component.get(target);
+                      if (from != null && to != null) {
+                        edges
+                            .get(from)
+                            .computeIfAbsent(names[to], key -> new TreeSet<>())
+                            .add(symbol);
+                      }
+                    }));
+    for (int c = 0; c < count; c++) {
+      writeNode(out, names[c], accepting[c]);
+      writeEdges(out, names[c], edges.get(c));
+    }
+    out.write("}\n");
+    out.flush();
+  }
+
+  /**
+   * Numbers the strongly connected components of the states reachable from the start state with an
+   * iterative version of Tarjan's algorithm.
+   *
+   * @param dfa the deterministic finite automaton
+   * @return the component number of every reachable state
+   */
+  private static Map<String, Integer> stronglyConnectedComponents(DFiniteAutomaton dfa) {
+    Map<String, Integer> component = new HashMap<>();
+    if (dfa.getStartState() == null) {
+      return component;
+    }
+    Map<String, Integer> index = new HashMap<>();
+    Map<String, Integer> lowLink = new HashMap<>();
+    ArrayDeque<String> stack = new ArrayDeque<>();
+    Set<String> onStack = new HashSet<>();
+    // Each frame holds a state and the iterator over its successors.
+    ArrayDeque<Map.Entry<String, Iterator<String>>> frames = new ArrayDeque<>();
+    int counter = 0;
+    int components = 0;
+
+    index.put(dfa.getStartState(), counter);
+    lowLink.put(dfa.getStartState(), counter++);
+    stack.push(dfa.getStartState());
+    onStack.add(dfa.getStartState());
+    frames.push(Map.entry(dfa.getStartState(), successors(dfa, dfa.getStartState())));
+    while (!frames.isEmpty()) {
+      String state = frames.peek().getKey();
+      Iterator<String> it = frames.peek().getValue();
+      if (it.hasNext()) {
+        String target = it.next();
+        if (!index.containsKey(target)) {
+          index.put(target, counter);
+          lowLink.put(target, counter++);
+          stack.push(target);
+          onStack.add(target);
+          frames.push(Map.entry(target, successors(dfa, target)));
+        } else if (onStack.contains(target)) {
+          lowLink.put(state, Math.min(lowLink.get(state), index.get(target)));
+        }
+        continue;
+      }
+      frames.pop();
+      if (!frames.isEmpty()) {
+        String caller = frames.peek().getKey();
+        lowLink.put(caller, Math.min(lowLink.get(caller), lowLink.get(state)));
+      }
+      if (lowLink.get(state).equals(index.get(state))) {
+        String member;
+        do {
+          member = stack.pop();
+          onStack.remove(member);
+          component.put(member, components);
+        } while (!member.equals(state));
+        components++;
+      }
+    }
+    return component;
+  }
+
+  private static Iterator<String> successors(DFiniteAutomaton dfa, String state) {
+    return dfa.getTransitions().getOrDefault(state, Collections.emptyMap()).values().iterator();
+  }
+
+  private static void writeHeader(Writer out, String name, String startState) throws IOException {
+    out.write("digraph " + name + " {\n");
+    out.write("  start [shape=point];\n");
+    if (startState != null) {
+      out.write("  start -> " + quote(startState) + ";\n");
+    }
+  }
+
+  private static void writeNode(Writer out, String state, boolean accepting) throws IOException {
+    out.write("  " + quote(state) + " [shape=" + (accepting ? "doublecircle" : "circle") + "];\n");
+  }
+
+  private static void writeEdges(Writer out, String from, Map<String, Set<Character>> edges)
+      throws IOException {
+    for (Map.Entry<String, Set<Character>> edge : edges.entrySet()) {
+      StringBuilder label = new StringBuilder();
+      for (char symbol : edge.getValue()) {
+        if (label.length() > 0) {
+          label.append(',');
+        }
+        label.append(symbol);
+      }
+      out.write("  " + quote(from) + " -> " + quote(edge.getKey()));
+      out.write(" [label=" + quote(label.toString()) + "];\n");
+    }
+  }
+
+  private static String quote(String id) {
+    return '"' + id.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
   }
 }
@@ -0,0 +1,72 @@
+package org.example.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class BatchProcessorTest {
+
+  @Test
+  void testResultsKeepInputOrder() throws Exception {
+    String input =
+        IntStream.range(0, 5000).mapToObj(i -> "a".repeat(i % 7)).collect(Collectors.joining("\n"));
+    StringWriter out = new StringWriter();
+    BatchProcessor.Stats stats;
+    try (BatchProcessor processor =
+        new BatchProcessor(BatchProcessor.matcher(RegexParser.compile("(aa)*").freeze()), 4)) {
+      stats = processor.process(new BufferedReader(new StringReader(input)), out);
+    }
+
+    String[] results = out.toString().split("\n");
+    assertEquals(5000, stats.lines());
+    assertEquals(5000, results.length);
+    for (int i = 0; i < results.length; i++) {
+      assertEquals(String.valueOf(i % 7 % 2 == 0), results[i], "line " + i);
+    }
+  }
+
+  @Test
+  void testFailingLinesAreReported() throws Exception {
+    StringWriter out = new StringWriter();
+    BatchProcessor.Stats stats;
+    try (BatchProcessor processor = new BatchProcessor(BatchProcessor.tokenizer(), 2)) {
+      stats = processor.process(new BufferedReader(new StringReader("x + 1\n#\n")), out);
+    }
+
+    assertEquals(1, stats.errors());
+    String[] results = out.toString().split("\n");
+    assertTrue(results[0].startsWith("IDENTIFIER: 'x'"), results[0]);
+    assertTrue(results[1].startsWith("error: "), results[1]);
+  }
+
+  @Test
+  void testServerAnswersEachRequest() throws Exception {
+    try (BatchProcessor processor =
+            new BatchProcessor(BatchProcessor.matcher(RegexParser.compile("ab*").freeze()), 2);
+        BatchServer server = new BatchServer(processor, 0);
+        Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        PrintWriter requests =
+            new PrintWriter(
+                new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true);
+        BufferedReader responses =
+            new BufferedReader(
+                new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+      requests.println("abbb");
+      assertEquals("true", responses.readLine());
+      requests.println("ba");
+      assertEquals("false", responses.readLine());
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package org.example.corpus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import org.example.fa.impl.NDFiniteAutomaton;
+import org.example.metrics.AutomatonMetricsListener;
+import org.example.metrics.CountingMetricsListener;
+import org.example.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Determinizes every corpus entry listed in {@code baseline.properties} and checks that it creates
+ * exactly the recorded number of states. Time and allocated bytes are machine-dependent, so they
+ * are compared against the baseline only when run with {@code -Dcorpus.timing=true}. Run with
+ * {@code -Dcorpus.record=true} to measure every entry again and rewrite the baseline file, which is
+ * {@code src/test/resources/org/example/corpus/baseline.properties} unless {@code corpus.baseline}
+ * names another path.
+ */
+class CorpusRegressionTest {
+
+  // Time is noisy on shared machines, so even opted-in runs only fail on large slowdowns.
+  private static final double TIME_FACTOR = 4.0;
+  private static final long TIME_SLACK_NANOS = 50_000_000L;
+  private static final double ALLOCATION_FACTOR = 1.5;
+  private static final long ALLOCATION_SLACK_BYTES = 1 << 20;
+  private static final int RUNS = 3;
+  private static final String BASELINE_FILE =
+      "src/test/resources/org/example/corpus/baseline.properties";
+  private static final String HEADER =
+      """
+      # Determinization baseline for CorpusRegressionTest, one entry per <family>.<size>.
+      # states must match exactly; nanos and bytes are best-of-three measurements, checked only
+      # with -Dcorpus.timing=true. Regenerate with -Dcorpus.record=true after intended changes.
+      """;
+
+  @Test
+  void testDeterminizationStaysWithinBaseline() throws IOException {
+    Properties baseline = new Properties();
+    try (InputStream in = CorpusRegressionTest.class.getResourceAsStream("baseline.properties")) {
+      assertNotNull(in, "Missing corpus baseline");
+      baseline.load(in);
+    }
+    boolean record = Boolean.getBoolean("corpus.record");
+    boolean timing = Boolean.getBoolean("corpus.timing");
+    List<String> failures = new ArrayList<>();
+    StringBuilder recorded = new StringBuilder(HEADER);
+
+    for (String key : new TreeSet<>(baseline.stringPropertyNames())) {
+      if (!key.endsWith(".states")) {
+        continue;
+      }
+      String entry = key.substring(0, key.length() - ".states".length());
+      AutomatonCorpus.Family family =
+          AutomatonCorpus.Family.valueOf(entry.substring(0, entry.indexOf('.')));
+      int size = Integer.parseInt(entry.substring(entry.indexOf('.') + 1));
+      Measurement measured = measure(family, size);
+
+      if (record) {
+        recorded.append(entry).append(".states=").append(measured.states).append('\n');
+        recorded.append(entry).append(".nanos=").append(measured.nanos).append('\n');
+        recorded.append(entry).append(".bytes=").append(measured.bytes).append('\n');
+        continue;
+      }
+      long states = Long.parseLong(baseline.getProperty(entry + ".states"));
+      if (measured.states != states) {
+        failures.add(entry + ": created " + measured.states + " states, expected " + states);
+      }
+      if (!timing) {
+        continue;
+      }
+      long nanos = Long.parseLong(baseline.getProperty(entry + ".nanos"));
+      long bytes = Long.parseLong(baseline.getProperty(entry + ".bytes"));
+      if (measured.nanos > nanos * TIME_FACTOR + TIME_SLACK_NANOS) {
+        failures.add(entry + ": took " + measured.nanos + " ns, baseline " + nanos + " ns");
+      }
+      if (measured.bytes >= 0
+          && measured.bytes > bytes * ALLOCATION_FACTOR + ALLOCATION_SLACK_BYTES) {
+        failures.add(entry + ": allocated " + measured.bytes + " bytes, baseline " + bytes);
+      }
+    }
+    if (record) {
+      Path file = Path.of(System.getProperty("corpus.baseline", BASELINE_FILE));
+      Files.writeString(file, recorded);
+      System.out.println("Recorded corpus baseline to " + file.toAbsolutePath());
+    }
+    assertTrue(failures.isEmpty(), String.join("\n", failures));
+  }
+
+  /** Determinizes an entry a few times after a warm-up and keeps the best time and allocation. */
+  private static Measurement measure(AutomatonCorpus.Family family, int size) {
+    NDFiniteAutomaton nfa = family.generate(size);
+    determinize(family, nfa);
+    AutomatonMetricsListener previous = Metrics.listener();
+    Measurement best = new Measurement(0, Long.MAX_VALUE, Long.MAX_VALUE);
+    try {
+      for (int run = 0; run < RUNS; run++) {
+        CountingMetricsListener counters = new CountingMetricsListener();
+        Metrics.setListener(counters);
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        determinize(family, nfa);
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+        best =
+            new Measurement(
+                counters.getStatesCreated(),
+                Math.min(best.nanos, nanos),
+                Math.min(best.bytes, allocated));
+      }
+    } finally {
+      Metrics.setListener(previous);
+    }
+    return best;
+  }
+
+  private static void determinize(AutomatonCorpus.Family family, NDFiniteAutomaton nfa) {
+    if (family.usesEpsilon()) {
+      nfa.convertEpsilonNfaToDfa();
+    } else {
+      nfa.convertToDFA();
+    }
+  }
+
+  /** Returns the bytes allocated by the current thread, or -1 if the JVM cannot tell. */
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()
+        && threads.isThreadAllocatedMemoryEnabled()) {
+      return threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+    return -1;
+  }
+
+  private record Measurement(long states, long nanos, long bytes) {}
+}
@@ -0,0 +1,57 @@
+package org.example.derivation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DerivationTest {
+
+  // Balanced parentheses: S -> (S)S | ε
+  private static final Map<Character, List<String>> PRODUCTIONS =
+      Map.of('S', List.of("(S)S", "ε"));
+
+  @Test
+  void testLogReplaysToTheDerivedWord() {
+    int[] choices = {0, 0, 1, 1, 0, 1, 1};
+    Derivation derivation =
+        Derivation.leftmost(
+            'S', PRODUCTIONS, symbol -> symbol == 'S', (nonterminal, step) -> choices[step], 10);
+
+    assertEquals(7, derivation.getStepCount());
+    assertTrue(derivation.isComplete());
+    assertEquals("(())()", derivation.getWord());
+    assertEquals(derivation.getWord(), derivation.getSententialForm(7));
+    assertEquals("((S)S)S", derivation.getSententialForm(2));
+    assertEquals(2, derivation.getPosition(2));
+    assertEquals('S', derivation.getNonterminal(2));
+    assertEquals(1, derivation.getProductionIndex(2));
+    assertTrue(derivation.render().startsWith("S -> (S)S -> ((S)S)S -> (()S)S"));
+    assertEquals(
+        "S(( S(( S(ε) ) S(ε)) ) S(( S(ε) ) S(ε)))", derivation.getParseTree().toString());
+    assertEquals(17, derivation.getParseTree().size());
+  }
+
+  @Test
+  void testLongDerivationMatchesNaiveReplacement() {
+    Random random = new Random(9);
+    Derivation derivation =
+        Derivation.leftmost(
+            'S',
+            PRODUCTIONS,
+            symbol -> symbol == 'S',
+            (nonterminal, step) -> random.nextInt(3) == 0 ? 1 : 0,
+            20000);
+
+    StringBuilder form = new StringBuilder("S");
+    for (int step = 0; step < derivation.getStepCount(); step++) {
+      int position = derivation.getPosition(step);
+      assertEquals(form.indexOf("S"), position);
+      String rhs = derivation.getProductionIndex(step) == 0 ? "(S)S" : "";
+      form.replace(position, position + 1, rhs);
+    }
+    assertEquals(form.toString(), derivation.getWord());
+  }
+}
@@ -0,0 +1,60 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.example.fa.CompiledDfa;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class AutomatonRegistryTest {
+
+  @Test
+  void testEqualLanguagesShareAnEntry() {
+    AutomatonRegistry registry = new AutomatonRegistry();
+    AutomatonRegistry.Entry first =
+        registry.register(RegexParser.parse("ab|cb").convertEpsilonNfaToDfa());
+    AutomatonRegistry.Entry second = registry.register(RegexParser.compile("(a|c)b"));
+
+    assertSame(first, second);
+    assertEquals(2, first.getReferenceCount());
+    assertEquals(1, registry.size());
+    assertTrue(first.getDfa().matches("cb"));
+    assertFalse(first.getDfa().matches("ac"));
+
+    registry.release(first);
+    assertEquals(1, registry.size());
+    registry.release(first);
+    assertEquals(0, registry.size());
+    assertThrows(IllegalStateException.class, () -> registry.release(first));
+  }
+
+  @Test
+  void testSuffixEquivalentStatesAreStoredOnce() {
+    AutomatonRegistry registry = new AutomatonRegistry();
+    CompiledDfa ab = registry.register(RegexParser.compile("ab")).getDfa();
+    CompiledDfa cab = registry.register(RegexParser.compile("cab")).getDfa();
+    CompiledDfa star = registry.register(RegexParser.compile("x(ab)*")).getDfa();
+
+    // "ab" needs 3 states; "cab" adds only its start and "x(ab)*" adds three more.
+    assertEquals(7, registry.getStats().sharedStates());
+    int afterCa = cab.next(cab.next(cab.getStartState(), 'c'), 'a');
+    assertEquals(ab.next(ab.getStartState(), 'a'), afterCa);
+    assertTrue(ab.matches("ab"));
+    assertTrue(cab.matches("cab"));
+    assertFalse(cab.matches("ab"));
+    assertTrue(star.matches("xabab"));
+    assertFalse(star.matches("xaba"));
+  }
+
+  @Test
+  void testReportsMemorySaved() {
+    AutomatonRegistry registry = new AutomatonRegistry();
+    for (int i = 0; i < 100; i++) {
+      registry.register(RegexParser.compile("(ab|cd)*e" + (char) ('a' + i % 5)));
+    }
+    AutomatonRegistry.Stats stats = registry.getStats();
+    assertEquals(100, stats.registrations());
+    assertEquals(5, stats.liveEntries());
+    assertTrue(stats.bytesSaved() > stats.sharedBytes(), stats.toString());
+  }
+}
@@ -0,0 +1,52 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class DawgBuilderTest {
+
+  @Test
+  void testSharedSuffixesAreMerged() {
+    DawgBuilder builder = new DawgBuilder().addAll(List.of("tap", "taps", "top", "tops"));
+    DFiniteAutomaton dfa = builder.toDFA();
+    assertEquals(5, dfa.getStates().size());
+    assertTrue(dfa.isStringAccepted("tops"));
+    assertFalse(dfa.isStringAccepted("to"));
+  }
+
+  @Test
+  void testRandomWordListIsMinimal() {
+    Random random = new Random(3);
+    TreeSet<String> words = new TreeSet<>();
+    while (words.size() < 2000) {
+      StringBuilder word = new StringBuilder();
+      for (int i = random.nextInt(8); i >= 0; i--) {
+        word.append((char) ('a' + random.nextInt(4)));
+      }
+      words.add(word.toString());
+    }
+    List<String> sorted = new ArrayList<>(words);
+
+    DFiniteAutomaton dfa = new DawgBuilder().addAll(sorted).toDFA();
+    assertEquals(dfa.minimize().getStates().size(), dfa.getStates().size());
+
+    Dawg dawg = new DawgBuilder().addAll(sorted).freeze();
+    assertEquals(dfa.getStates().size(), dawg.getStateCount());
+    assertEquals(2000, dawg.getWordCount());
+    for (String word : sorted) {
+      assertTrue(dawg.contains(word), word);
+      assertFalse(dawg.contains(word + "e"), word + "e");
+    }
+  }
+
+  @Test
+  void testUnsortedInputIsRejected() {
+    DawgBuilder builder = new DawgBuilder().add("b").add("b");
+    assertThrows(IllegalArgumentException.class, () -> builder.add("a"));
+  }
+}
@@ -0,0 +1,92 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.example.corpus.AutomatonCorpus;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class DeterminizationTest {
+
+  @Test
+  void testStateNamesStayUniquePastTheAlphabet() {
+    DFiniteAutomaton dfa = AutomatonCorpus.nthFromLast(5).convertToDFA();
+    assertEquals(64, dfa.getStates().size());
+    assertTrue(dfa.getStates().contains("T"));
+    assertTrue(dfa.getStates().contains("q63"));
+    assertTrue(dfa.isEquivalent(RegexParser.compile("(a|b)*a(a|b)(a|b)(a|b)(a|b)(a|b)")));
+  }
+
+  @Test
+  void testBudgetedDeterminizationCompletes() {
+    DeterminizationResult result =
+        RegexParser.parse("(a|b)*abb").determinize(DeterminizationBudget.unlimited(), null);
+    assertTrue(result.isComplete());
+    assertTrue(result.getDfa().orElseThrow().isEquivalent(RegexParser.compile("(a|b)*abb")));
+    assertEquals(result.getDfa().orElseThrow().getStates().size(), result.getStatesCreated());
+  }
+
+  @Test
+  void testStateLimitStopsTheConstruction() {
+    NDFiniteAutomaton nfa = AutomatonCorpus.nthFromLast(12);
+    DeterminizationResult states =
+        nfa.determinize(DeterminizationBudget.builder().maxStates(100).build(), null);
+    assertEquals(DeterminizationResult.Status.STATE_LIMIT_EXCEEDED, states.getStatus());
+    assertTrue(states.getDfa().isEmpty());
+    assertEquals(100, states.getStatesCreated());
+  }
+
+  @Test
+  void testMemoryLimitStopsTheConstruction() {
+    NDFiniteAutomaton nfa = AutomatonCorpus.nthFromLast(12);
+    DeterminizationResult memory =
+        nfa.determinize(DeterminizationBudget.builder().maxMemoryBytes(10_000).build(), null);
+    assertEquals(DeterminizationResult.Status.MEMORY_LIMIT_EXCEEDED, memory.getStatus());
+    assertTrue(memory.getMemoryEstimate() > 10_000);
+
+    // The start state alone exceeds one byte, so nothing is expanded.
+    DeterminizationResult tiny =
+        nfa.determinize(DeterminizationBudget.builder().maxMemoryBytes(1).build(), null);
+    assertEquals(DeterminizationResult.Status.MEMORY_LIMIT_EXCEEDED, tiny.getStatus());
+    assertEquals(0, tiny.getSubsetsExplored());
+  }
+
+  @Test
+  void testDeadlineStopsTheConstruction() {
+    // Preparing the successor lists alone takes longer than a nanosecond.
+    DeterminizationResult result =
+        AutomatonCorpus.nthFromLast(12)
+            .determinize(
+                DeterminizationBudget.builder().timeout(Duration.ofNanos(1)).build(), null);
+    assertEquals(DeterminizationResult.Status.DEADLINE_EXCEEDED, result.getStatus());
+    assertTrue(result.getDfa().isEmpty());
+    assertEquals(0, result.getSubsetsExplored());
+  }
+
+  @Test
+  void testCancelledTokenStopsTheConstruction() {
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    DeterminizationResult cancelled =
+        AutomatonCorpus.nthFromLast(12).determinize(DeterminizationBudget.unlimited(), token);
+    assertEquals(DeterminizationResult.Status.CANCELLED, cancelled.getStatus());
+    assertEquals(0, cancelled.getSubsetsExplored());
+  }
+
+  @Test
+  void testInterruptStopsTheConstruction() {
+    NDFiniteAutomaton nfa = AutomatonCorpus.nthFromLast(8);
+    Thread.currentThread().interrupt();
+    try {
+      DeterminizationResult interrupted = nfa.determinize(DeterminizationBudget.unlimited(), null);
+      assertEquals(DeterminizationResult.Status.CANCELLED, interrupted.getStatus());
+      assertTrue(Thread.currentThread().isInterrupted(), "the interrupt must not be swallowed");
+
+      // The unbudgeted conversions ignore interrupts.
+      assertEquals(512, nfa.convertEpsilonNfaToDfa().getStates().size());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package org.example.fa.impl;
+
+import java.util.Random;
+import org.example.fa.CompiledDfa;
+import org.example.regex.RegexParser;
+
+/**
+ * Compares the generated matcher with the table and the map-based automaton on one long input,
+ * where only a compiled loop keeps up. Run with {@code java -cp target/classes:target/test-classes
+ * org.example.fa.impl.DfaBytecodeBenchmark}.
+ */
+public class DfaBytecodeBenchmark {
+  private static final int LENGTH = 1_000_000;
+  private static final int REPEATS = 20;
+
+  public static void main(String[] args) {
+    Random random = new Random(1);
+    StringBuilder input = new StringBuilder(LENGTH);
+    for (int i = 0; i < LENGTH; i++) {
+      input.append(random.nextBoolean() ? 'a' : 'b');
+    }
+    String text = input.toString();
+
+    DFiniteAutomaton dfa = RegexParser.compile("(a|b)*abb(a|b)*");
+    DfaTable table = DfaTable.of(dfa);
+    CompiledDfa generated = DfaBytecodeCompiler.compile(dfa);
+
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      int accepted = 0;
+      for (int r = 0; r < REPEATS; r++) {
+        accepted += dfa.isStringAccepted(text) ? 1 : 0;
+      }
+      long map = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int r = 0; r < REPEATS; r++) {
+        accepted += table.matches(text) ? 1 : 0;
+      }
+      long interpreted = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int r = 0; r < REPEATS; r++) {
+        accepted += generated.matches(text) ? 1 : 0;
+      }
+      long compiled = System.nanoTime() - start;
+
+      double chars = (double) LENGTH * REPEATS * 1e3;
+      System.out.printf(
+          "round %d: map %.0f, table %.0f, bytecode %.0f Mchars/s (%d accepted)%n",
+          round, chars / map, chars / interpreted, chars / compiled, accepted);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.example.fa.CompiledDfa;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class DfaBytecodeCompilerTest {
+
+  private static final String[] INPUTS = {"", "ab", "abb", "babb", "aabbabb", "abba", "c", "abbx"};
+
+  @Test
+  void testGeneratedClassMatchesTable() {
+    DfaTable table = DfaTable.of(RegexParser.compile("(a|b)*abb"));
+    CompiledDfa generated = DfaBytecodeCompiler.compile(table, 16);
+    assertTrue(DfaBytecodeCompiler.isGenerated(generated));
+    assertEquals(table.getStartState(), generated.getStartState());
+    assertEquals(table.getStateCount(), generated.getStateCount());
+    for (String input : INPUTS) {
+      assertEquals(table.matches(input), generated.matches(input), input);
+    }
+    for (int s = 0; s < table.getStateCount(); s++) {
+      assertEquals(table.isAccepting(s), generated.isAccepting(s));
+      for (char symbol : new char[] {'a', 'b', 'c'}) {
+        assertEquals(table.next(s, symbol), generated.next(s, symbol));
+      }
+    }
+  }
+
+  @Test
+  void testMatchesLongInputs() {
+    // Long enough for the matching loop to be compiled while it runs.
+    DfaTable table = DfaTable.of(RegexParser.compile("(a|b)*abb(a|b)*"));
+    CompiledDfa generated = DfaBytecodeCompiler.compile(table, 16);
+    StringBuilder input = new StringBuilder("abb");
+    Random random = new Random(7);
+    for (int i = 0; i < 200_000; i++) {
+      input.append(random.nextBoolean() ? 'a' : 'b');
+    }
+    assertTrue(generated.matches(input) && table.matches(input));
+    input.append('c');
+    assertFalse(generated.matches(input));
+  }
+
+  @Test
+  void testFallsBackToTableAboveThreshold() {
+    DfaTable table = DfaTable.of(RegexParser.compile("(a|b)*abb"));
+    assertSame(table, DfaBytecodeCompiler.compile(table, 2));
+  }
+}
@@ -0,0 +1,72 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class DfaTableFormatTest {
+
+  private static final String[] INPUTS = {"", "ab", "abb", "babb", "aabbabb", "abba", "c"};
+
+  @Test
+  void testRoundTripThroughMappedFile() throws IOException {
+    DfaTable table = DfaTable.of(RegexParser.compile("(a|b)*abb"));
+    Path file = Files.createTempFile("dfa", ".bin");
+    try {
+      DfaTableFormat.write(table, file);
+      MappedDfaTable mapped = DfaTableFormat.map(file);
+      assertEquals(table.getStateCount(), mapped.getStateCount());
+      for (String input : INPUTS) {
+        assertEquals(table.matches(input), mapped.matches(input), input);
+      }
+      for (int s = 0; s < table.getStateCount(); s++) {
+        assertEquals(table.getStateName(s), mapped.getStateName(s));
+      }
+      DfaTable copy = mapped.toHeap();
+      for (String input : INPUTS) {
+        assertEquals(table.matches(input), copy.matches(input), input);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void testRejectsForeignAndTruncatedData() {
+    assertThrows(IOException.class, () -> DfaTableFormat.wrap(ByteBuffer.allocate(64)));
+    ByteBuffer encoded = DfaTableFormat.encode(DfaTable.of(RegexParser.compile("a+")));
+    ByteBuffer truncated = ByteBuffer.allocate(encoded.capacity() - 1);
+    truncated.put(0, encoded, 0, truncated.capacity());
+    assertThrows(IOException.class, () -> DfaTableFormat.wrap(truncated));
+  }
+
+  @Test
+  void testRejectsInconsistentHeaders() throws IOException {
+    ByteBuffer encoded = DfaTableFormat.encode(DfaTable.of(RegexParser.compile("(a|b)*abb")));
+    DfaTableFormat.wrap(encoded);
+    int n = encoded.getInt(8);
+    // State and symbol counts, start state, then the four section offsets.
+    int[][] corruptions = {
+      {8, -1}, {8, n + 1000}, {12, 1 << 20}, {16, n}, {16, -2},
+      {20, 0}, {20, encoded.capacity()}, {24, encoded.capacity() - 2}, {28, -1}, {32, 1 << 30}
+    };
+    for (int[] corruption : corruptions) {
+      ByteBuffer corrupt = ByteBuffer.allocate(encoded.capacity()).order(encoded.order());
+      corrupt.put(0, encoded, 0, encoded.capacity());
+      corrupt.putInt(corruption[0], corruption[1]);
+      assertThrows(
+          IOException.class,
+          () -> DfaTableFormat.wrap(corrupt),
+          "offset " + corruption[0] + " = " + corruption[1]);
+    }
+    ByteBuffer badName = ByteBuffer.allocate(encoded.capacity()).order(encoded.order());
+    badName.put(0, encoded, 0, encoded.capacity());
+    badName.putInt(encoded.getInt(32), encoded.capacity() + 1);
+    assertThrows(IOException.class, () -> DfaTableFormat.wrap(badName));
+  }
+}
@@ -0,0 +1,54 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+import java.util.Set;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class EquivalenceCheckerTest {
+
+  @Test
+  void testEquivalentAutomataWithDifferentShapes() {
+    DFiniteAutomaton unminimized = RegexParser.parse("(a|b)*abb").convertEpsilonNfaToDfa();
+    DFiniteAutomaton minimal = RegexParser.compile("(a|b)*abb");
+    assertTrue(unminimized.isEquivalent(minimal));
+    assertTrue(minimal.isEquivalent(unminimized));
+    assertTrue(RegexParser.compile("(a*b*)*").isEquivalent(RegexParser.compile("(a|b)*")));
+  }
+
+  @Test
+  void testShortestCounterexample() {
+    DFiniteAutomaton plus = RegexParser.compile("a+");
+    DFiniteAutomaton star = RegexParser.compile("a*");
+    assertEquals(Optional.of(""), plus.findCounterexample(star));
+    DFiniteAutomaton upToTwo = RegexParser.compile("a|aa");
+    assertEquals(Optional.of("aaa"), upToTwo.findCounterexample(RegexParser.compile("a+")));
+  }
+
+  @Test
+  void testPartialTransitionsUseDeadState() {
+    DFiniteAutomaton partial = new DFiniteAutomaton(Set.of('a', 'b'));
+    partial.addState("S", false);
+    partial.addState("A", true);
+    partial.setStartState("S");
+    partial.addTransition("S", 'a', "A");
+
+    DFiniteAutomaton complete = new DFiniteAutomaton(Set.of('a', 'b'));
+    complete.addState("S", false);
+    complete.addState("A", true);
+    complete.addState("D", false);
+    complete.setStartState("S");
+    complete.addTransition("S", 'a', "A");
+    complete.addTransition("S", 'b', "D");
+    complete.addTransition("A", 'a', "D");
+    complete.addTransition("A", 'b', "D");
+    complete.addTransition("D", 'a', "D");
+    complete.addTransition("D", 'b', "D");
+
+    assertTrue(partial.isEquivalent(complete));
+    complete.addState("D", true);
+    assertEquals(Optional.of("b"), partial.findCounterexample(complete));
+  }
+}
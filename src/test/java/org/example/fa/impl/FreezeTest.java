@@ -0,0 +1,66 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class FreezeTest {
+
+  private static final List<String> INPUTS =
+      List.of("", "a", "ab", "abb", "babb", "aabbabb", "abba", "bbbbabb");
+
+  @Test
+  void testFrozenNfaMatchesConvertedDfa() {
+    NDFiniteAutomaton nfa = RegexParser.parse("(a|b)*abb");
+    DFiniteAutomaton dfa = nfa.convertEpsilonNfaToDfa();
+    NfaTable frozen = nfa.freeze();
+    for (String input : INPUTS) {
+      assertEquals(dfa.isStringAccepted(input), frozen.matches(input), input);
+    }
+  }
+
+  @Test
+  void testSnapshotIsIndependentOfBuilder() {
+    DFiniteAutomaton dfa = new DFiniteAutomaton(Set.of('a'));
+    dfa.addState("S", false);
+    dfa.addState("A", true);
+    dfa.setStartState("S");
+    dfa.addTransition("S", 'a', "A");
+    DfaTable frozen = dfa.freeze();
+    dfa.addTransition("A", 'a', "A");
+    assertFalse(frozen.matches("aa"));
+    assertTrue(dfa.isStringAccepted("aa"));
+  }
+
+  @Test
+  void testGettersAreReadOnly() {
+    DFiniteAutomaton dfa = RegexParser.parse("ab").convertEpsilonNfaToDfa();
+    assertThrows(UnsupportedOperationException.class, () -> dfa.getStates().clear());
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> dfa.getTransitions().get(dfa.getStartState()).clear());
+    NDFiniteAutomaton nfa = RegexParser.parse("ab");
+    Set<String> targets = nfa.getNfaTransitions().get("q0").get('a');
+    assertThrows(UnsupportedOperationException.class, targets::clear);
+  }
+
+  @Test
+  void testConcurrentMatchingOnSharedSnapshot() {
+    DfaTable dfa = RegexParser.compile("(a|b)*abb").freeze();
+    NfaTable nfa = RegexParser.parse("(a|b)*abb").freeze();
+    long mismatches =
+        IntStream.range(0, 20_000)
+            .parallel()
+            .filter(
+                i -> {
+                  String input = INPUTS.get(i % INPUTS.size());
+                  return dfa.matches(input) != nfa.matches(input);
+                })
+            .count();
+    assertEquals(0, mismatches);
+  }
+}
@@ -0,0 +1,59 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.Set;
+import org.example.corpus.AutomatonCorpus;
+import org.junit.jupiter.api.Test;
+
+class IncrementalDeterminizerTest {
+
+  @Test
+  void testRandomEditsMatchFullConversion() {
+    Random random = new Random(7);
+    NDFiniteAutomaton nfa = AutomatonCorpus.randomNfa(8, 2, 0.1, 7);
+    try (IncrementalDeterminizer determinizer = nfa.determinizeIncrementally()) {
+      for (int edit = 0; edit < 200; edit++) {
+        String from = "q" + random.nextInt(10);
+        String to = "q" + random.nextInt(10);
+        switch (random.nextInt(4)) {
+          case 0 -> nfa.addTransition(from, 'ε', to);
+          case 1 -> nfa.addState(to, true);
+          default -> nfa.addTransition(from, random.nextBoolean() ? 'a' : 'b', to);
+        }
+        if (edit % 5 == 0) {
+          DFiniteAutomaton expected = nfa.convertEpsilonNfaToDfa();
+          assertTrue(determinizer.getDfa().isEquivalent(expected), "after edit " + edit);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testSmallEditsOnlyExpandAffectedStates() {
+    NDFiniteAutomaton nfa = AutomatonCorpus.nthFromLast(8);
+    nfa.addState("x", false);
+    try (IncrementalDeterminizer determinizer = nfa.determinizeIncrementally()) {
+      assertEquals(512, determinizer.getDfa().getStates().size());
+
+      // Only subsets containing q8 see the new transition.
+      nfa.addTransition("q8", 'a', "x");
+      int expanded = determinizer.update();
+      assertTrue(expanded > 0 && expanded < 512, "expanded " + expanded);
+      assertTrue(determinizer.getDfa().isEquivalent(nfa.convertToDFA()));
+      assertEquals(0, determinizer.update());
+    }
+  }
+
+  @Test
+  void testClosedDeterminizerStopsFollowing() {
+    NDFiniteAutomaton nfa = new NDFiniteAutomaton(Set.of('a'));
+    nfa.setStartState("s");
+    nfa.addState("f", true);
+    IncrementalDeterminizer determinizer = nfa.determinizeIncrementally();
+    determinizer.close();
+    nfa.addTransition("s", 'a', "f");
+    assertFalse(determinizer.getDfa().isStringAccepted("a"));
+  }
+}
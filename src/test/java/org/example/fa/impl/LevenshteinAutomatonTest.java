@@ -0,0 +1,95 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class LevenshteinAutomatonTest {
+
+  @Test
+  void testMatchesAgreeWithEditDistance() {
+    Random random = new Random(11);
+    for (int k = 1; k <= LevenshteinAutomaton.MAX_DISTANCE; k++) {
+      for (int round = 0; round < 2000; round++) {
+        String word = randomWord(random, 7);
+        String input = randomWord(random, 9);
+        LevenshteinAutomaton automaton = LevenshteinAutomaton.of(word, k);
+        assertEquals(distance(word, input) <= k, automaton.matches(input), word + " / " + input);
+      }
+    }
+  }
+
+  @Test
+  void testDistanceOfState() {
+    LevenshteinAutomaton automaton = LevenshteinAutomaton.of("kitten", 3);
+    LevenshteinAutomaton.State state = automaton.getStartState();
+    for (char c : "sitting".toCharArray()) {
+      state = automaton.step(state, c);
+    }
+    assertEquals(3, automaton.getDistance(state));
+    assertThrows(IllegalArgumentException.class, () -> LevenshteinAutomaton.of("kitten", 4));
+  }
+
+  @Test
+  void testFuzzyLookupInDictionary() {
+    List<String> words = List.of("bat", "cat", "cats", "coat", "dog", "doge");
+    DFiniteAutomaton dictionary = new DawgBuilder().addAll(words).toDFA();
+
+    assertTrue(dictionary.acceptsWithinDistance("cst", 1));
+    assertFalse(dictionary.acceptsWithinDistance("xyz", 2));
+    assertEquals(
+        List.of("bat", "cat", "cats", "coat"), dictionary.findWithinDistance("cat", 1, 10));
+    assertEquals(List.of("dog"), dictionary.findWithinDistance("dg", 1, 10));
+    assertEquals(List.of("bat", "cat"), dictionary.findWithinDistance("cat", 1, 2));
+  }
+
+  @Test
+  void testFuzzyLookupMatchesBruteForce() {
+    Random random = new Random(5);
+    TreeSet<String> words = new TreeSet<>();
+    while (words.size() < 300) {
+      words.add(randomWord(random, 6));
+    }
+    DFiniteAutomaton dictionary = new DawgBuilder().addAll(words).toDFA();
+    for (int round = 0; round < 50; round++) {
+      String query = randomWord(random, 6);
+      List<String> expected = new ArrayList<>();
+      for (String word : words) {
+        if (distance(word, query) <= 2) {
+          expected.add(word);
+        }
+      }
+      assertEquals(expected, dictionary.findWithinDistance(query, 2, Integer.MAX_VALUE), query);
+    }
+  }
+
+  private static String randomWord(Random random, int maxLength) {
+    StringBuilder word = new StringBuilder();
+    for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+      word.append((char) ('a' + random.nextInt(3)));
+    }
+    return word.toString();
+  }
+
+  private static int distance(String a, String b) {
+    int[] row = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      row[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      int diagonal = row[0];
+      row[0] = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int above = row[j];
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        row[j] = Math.min(Math.min(row[j] + 1, row[j - 1] + 1), diagonal + cost);
+        diagonal = above;
+      }
+    }
+    return row[b.length()];
+  }
+}
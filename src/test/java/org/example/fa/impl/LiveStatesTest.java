@@ -0,0 +1,51 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class LiveStatesTest {
+
+  @Test
+  void testDeadStatesAreNotLive() {
+    DFiniteAutomaton dfa = new DFiniteAutomaton(Set.of('a', 'b'));
+    dfa.addState("S", false);
+    dfa.addState("A", true);
+    dfa.addState("D", false);
+    dfa.setStartState("S");
+    dfa.addTransition("S", 'a', "A");
+    dfa.addTransition("S", 'b', "D");
+    dfa.addTransition("D", 'a', "D");
+    dfa.addTransition("D", 'b', "D");
+    assertEquals(Set.of("S", "A"), dfa.getLiveStates());
+    assertFalse(dfa.isStringAccepted("ba"));
+
+    dfa.addTransition("D", 'a', "A");
+    assertEquals(Set.of("S", "A", "D"), dfa.getLiveStates());
+    assertTrue(dfa.isStringAccepted("ba"));
+  }
+
+  @Test
+  void testCanStillAccept() {
+    DFiniteAutomaton dfa = RegexParser.parse("ab(c|d)").convertEpsilonNfaToDfa();
+    assertTrue(dfa.canStillAccept(""));
+    assertTrue(dfa.canStillAccept("ab"));
+    assertTrue(dfa.canStillAccept("abd"));
+    assertFalse(dfa.canStillAccept("b"));
+    assertFalse(dfa.canStillAccept("abcd"));
+  }
+
+  @Test
+  void testFrozenTableDropsDeadStates() {
+    DFiniteAutomaton dfa = new DFiniteAutomaton(Set.of('a'));
+    dfa.addState("S", false);
+    dfa.addState("D", false);
+    dfa.setStartState("S");
+    dfa.addTransition("S", 'a', "D");
+    DfaTable table = dfa.freeze();
+    assertEquals(1, table.getStateCount());
+    assertEquals(-1, table.next(table.getStartState(), 'a'));
+  }
+}
@@ -0,0 +1,49 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class ProductAutomatonTest {
+
+  private final DFiniteAutomaton endsWithB = RegexParser.compile("(a|b)*b");
+  private final DFiniteAutomaton evenLength = RegexParser.compile("((a|b)(a|b))*");
+
+  @Test
+  void testBooleanOperations() {
+    assertTrue(endsWithB.intersect(evenLength).isStringAccepted("ab"));
+    assertFalse(endsWithB.intersect(evenLength).isStringAccepted("b"));
+    assertTrue(endsWithB.union(evenLength).isStringAccepted("b"));
+    assertTrue(endsWithB.union(evenLength).isStringAccepted("aa"));
+    assertFalse(endsWithB.union(evenLength).isStringAccepted("a"));
+    assertTrue(endsWithB.difference(evenLength).isStringAccepted("aab"));
+    assertFalse(endsWithB.difference(evenLength).isStringAccepted("ab"));
+  }
+
+  @Test
+  void testPairsAreMaterializedLazily() {
+    ProductAutomaton product = endsWithB.intersect(evenLength);
+    assertEquals(1, product.getMaterializedStates());
+    product.isStringAccepted("a");
+    assertEquals(2, product.getMaterializedStates());
+  }
+
+  @Test
+  void testEmptinessAndWitness() {
+    assertEquals(Optional.of("b"), endsWithB.difference(evenLength).findShortestAccepted());
+    assertTrue(endsWithB.difference(endsWithB).isEmpty());
+    assertTrue(RegexParser.compile("a+").intersect(RegexParser.compile("b+")).isEmpty());
+  }
+
+  @Test
+  void testEagerProductMatchesLazyProduct() {
+    ProductAutomaton product = endsWithB.difference(evenLength);
+    DFiniteAutomaton dfa = product.toDFA();
+    for (String input : new String[] {"", "b", "ab", "aab", "abab", "bbb"}) {
+      assertEquals(product.isStringAccepted(input), dfa.isStringAccepted(input), input);
+    }
+    assertEquals(4, dfa.getStates().size());
+  }
+}
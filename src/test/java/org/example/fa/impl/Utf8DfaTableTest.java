@@ -0,0 +1,70 @@
+package org.example.fa.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class Utf8DfaTableTest {
+
+  @Test
+  void testEquivalentSymbolsShareAClass() {
+    DfaTable table = RegexParser.compile("[a-z]+[0-9]?").freeze();
+    AlphabetPartition alphabet = table.getAlphabetPartition();
+
+    assertEquals(3, alphabet.getClassCount());
+    assertTrue(alphabet.isCompact());
+    assertEquals(alphabet.classOf('a'), alphabet.classOf('q'));
+    assertNotEquals(alphabet.classOf('a'), alphabet.classOf('5'));
+    assertEquals(0, alphabet.classOf('A'));
+    assertEquals(26, alphabet.getMembers(alphabet.classOf('m')).length);
+    assertTrue(table.matches("abc7"));
+    assertFalse(table.matches("abc77"));
+    assertFalse(table.matches("Abc"));
+  }
+
+  @Test
+  void testWideAlphabetUsesFullMap() {
+    AlphabetPartition alphabet = RegexParser.compile("é+€").freeze().getAlphabetPartition();
+    assertFalse(alphabet.isCompact());
+    assertNotEquals(alphabet.classOf('é'), alphabet.classOf('€'));
+  }
+
+  @Test
+  void testByteMatchingAgreesWithCharacterMatching() {
+    String pattern = "(a|é|€|😀)*(b|ж)";
+    DfaTable table = RegexParser.compile(pattern).freeze();
+    Utf8DfaTable bytes = Utf8DfaTable.of(table);
+    assertTrue(bytes.getByteClassCount() < 256);
+
+    String[] pieces = {"a", "b", "é", "ж", "€", "😀", "😁", "c"};
+    Random random = new Random(23);
+    for (int round = 0; round < 2000; round++) {
+      StringBuilder input = new StringBuilder();
+      for (int i = random.nextInt(6); i > 0; i--) {
+        input.append(pieces[random.nextInt(pieces.length)]);
+      }
+      String text = input.toString();
+      byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+      assertEquals(table.matches(text), bytes.matches(encoded), text);
+      assertEquals(table.matches(text), bytes.matches(ByteBuffer.wrap(encoded)), text);
+    }
+  }
+
+  @Test
+  void testRejectsMalformedInput() {
+    Utf8DfaTable bytes = Utf8DfaTable.of(RegexParser.compile("é"));
+    assertTrue(bytes.matches(new byte[] {(byte) 0xC3, (byte) 0xA9}));
+    assertFalse(bytes.matches(new byte[] {(byte) 0xC3}));
+    // An overlong encoding of 'é'.
+    assertFalse(bytes.matches(new byte[] {(byte) 0xE0, (byte) 0x83, (byte) 0xA9}));
+
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {'x', (byte) 0xC3, (byte) 0xA9});
+    buffer.position(1);
+    assertTrue(bytes.matches(buffer));
+    assertEquals(1, buffer.position());
+  }
+}
@@ -0,0 +1,46 @@
+package org.example.fuzz;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.example.fa.impl.DfaTable;
+import org.junit.jupiter.api.Test;
+
+class DifferentialFuzzerTest {
+
+  @Test
+  void testEnginesAgreeWithReference() throws InterruptedException {
+    DifferentialFuzzer.Report report = new DifferentialFuzzer().run(7, 300, 4);
+
+    assertTrue(report.isClean(), report.toString());
+    assertEquals(300 * 64, report.inputs());
+    assertEquals(DifferentialFuzzer.defaultEngines().size() + 1, report.throughput().size());
+    for (DifferentialFuzzer.Throughput engine : report.throughput()) {
+      assertEquals(300, engine.automata(), engine.engine());
+    }
+  }
+
+  @Test
+  void testShrinksDisagreements() throws InterruptedException {
+    // Wrongly accepts every input of length two or more.
+    DifferentialFuzzer.Engine broken =
+        new DifferentialFuzzer.Engine(
+            "broken",
+            subject -> {
+              DfaTable table = DfaTable.of(subject.dfa());
+              return input -> input.length() > 1 || table.matches(input);
+            });
+    DifferentialFuzzer fuzzer = new DifferentialFuzzer(List.of(broken), 32);
+    DifferentialFuzzer.Report report = fuzzer.run(11, 50, 2);
+
+    assertFalse(report.isClean());
+    for (DifferentialFuzzer.Failure failure : report.failures()) {
+      assertEquals("broken", failure.engine());
+      assertEquals(2, failure.input().length(), failure.toString());
+      assertEquals(Boolean.FALSE, failure.expected());
+      assertEquals(1, failure.fuzzCase().getStateCount(), failure.toString());
+      assertEquals(0, failure.fuzzCase().getEdgeCount(), failure.toString());
+      assertEquals(failure.engine(), fuzzer.replay(failure.seed()).get(0).engine());
+    }
+  }
+}
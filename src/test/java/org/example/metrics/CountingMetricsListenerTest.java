@@ -0,0 +1,141 @@
+package org.example.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.corpus.AutomatonCorpus;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.lexer.Lexer;
+import org.example.lexer.enums.Type;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class CountingMetricsListenerTest {
+
+  @Test
+  void testCountsTokensByType() {
+    CountingMetricsListener counters = new CountingMetricsListener();
+    withListener(counters, () -> new Lexer("x + (12 * y)").tokenize());
+
+    assertEquals(1, counters.getTokenizeCalls());
+    assertEquals(7, counters.getTokenizedTokens());
+    assertEquals(2, counters.getTokenCount(Type.IDENTIFIER));
+    assertEquals(1, counters.getTokenCount(Type.NUMBER));
+    assertEquals(2, counters.getTokenCount(Type.OPERATOR));
+    assertEquals(2, counters.getTokenCount(Type.PARENTHESIS));
+  }
+
+  @Test
+  void testBucketsInputLengths() {
+    DFiniteAutomaton dfa = RegexParser.compile("a*");
+    CountingMetricsListener counters = new CountingMetricsListener();
+    withListener(
+        counters,
+        () -> {
+          for (String input : List.of("", "a", "aa", "aaa", "aaaa", "ab")) {
+            dfa.isStringAccepted(input);
+          }
+        });
+
+    assertEquals(6, counters.getMatchCalls());
+    assertEquals(5, counters.getAcceptedMatches());
+    long[] histogram = counters.getInputLengthHistogram();
+    assertEquals(CountingMetricsListener.HISTOGRAM_BUCKETS + 1, histogram.length);
+    assertEquals(1, histogram[0]);
+    assertEquals(1, histogram[1]);
+    assertEquals(3, histogram[2]);
+    assertEquals(1, histogram[3]);
+  }
+
+  @Test
+  void testRecordsDeterminizations() {
+    CountingMetricsListener counters = new CountingMetricsListener();
+    DFiniteAutomaton[] dfa = new DFiniteAutomaton[1];
+    withListener(counters, () -> dfa[0] = AutomatonCorpus.nthFromLast(3).convertToDFA());
+
+    assertEquals(1, counters.getDeterminizations());
+    assertEquals(dfa[0].getStates().size(), counters.getStatesCreated());
+    assertEquals(2L * dfa[0].getStates().size(), counters.getSubsetsExplored());
+    assertTrue(counters.getDeterminizationNanos() > 0);
+  }
+
+  @Test
+  void testNoListenerMeansNoCallbacks() {
+    AutomatonMetricsListener previous = Metrics.listener();
+    CountingMetricsListener counters = new CountingMetricsListener();
+    Metrics.setListener(counters);
+    Metrics.setListener(null);
+    try {
+      new Lexer("1 + 2").tokenize();
+      RegexParser.compile("a*").isStringAccepted("aa");
+      AutomatonCorpus.nthFromLast(2).convertToDFA();
+    } finally {
+      Metrics.setListener(previous);
+    }
+    assertEquals(0, counters.getTokenizeCalls());
+    assertEquals(0, counters.getMatchCalls());
+    assertEquals(0, counters.getDeterminizations());
+  }
+
+  @Test
+  void testJfrEventsSpanTheOperation() throws IOException {
+    Path file = Files.createTempFile("metrics", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable("org.example.Determinization").withThreshold(Duration.ZERO);
+        recording.start();
+        withListener(
+            new JfrMetricsListener(), () -> AutomatonCorpus.nthFromLast(8).convertToDFA());
+        recording.stop();
+        recording.dump(file);
+      }
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      assertEquals(1, events.size());
+      assertEquals(512, events.get(0).getInt("statesCreated"));
+      assertFalse(events.get(0).getDuration().isZero());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void testJfrDropsEventsOfOperationsThatThrew() throws IOException {
+    JfrMetricsListener listener = new JfrMetricsListener();
+    try (Recording earlier = new Recording()) {
+      earlier.enable("org.example.Match").withThreshold(Duration.ZERO);
+      earlier.start();
+      listener.beforeMatch(); // the match throws, so onMatch never comes
+    }
+    listener.beforeMatch(); // no recording, nothing to begin
+    Path file = Files.createTempFile("metrics", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable("org.example.Match").withThreshold(Duration.ZERO);
+        recording.start();
+        listener.onMatch(3, true, 0);
+        recording.stop();
+        recording.dump(file);
+      }
+      assertEquals(List.of(), RecordingFile.readAllEvents(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static void withListener(AutomatonMetricsListener listener, Runnable action) {
+    AutomatonMetricsListener previous = Metrics.listener();
+    Metrics.setListener(listener);
+    try {
+      action.run();
+    } finally {
+      Metrics.setListener(previous);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package org.example.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ExpressionParserTest {
+
+  @Test
+  void testEvaluatesWithPrecedenceAndVariables() {
+    CompiledExpression expression = ExpressionParser.compile("12 + 24.5 / (3 - 4) * varNam");
+    double[] slots = new double[1];
+    slots[expression.slotOf("varNam")] = 2;
+    assertEquals(-37.0, expression.evaluate(slots), 1e-9);
+    slots[expression.slotOf("varNam")] = -1;
+    assertEquals(36.5, expression.evaluate(slots), 1e-9);
+  }
+
+  @Test
+  void testOperatorsAreLeftAssociative() {
+    assertEquals(3.0, ExpressionParser.compile("10 - 4 - 3").evaluate(new double[0]), 1e-9);
+    assertEquals(2.0, ExpressionParser.compile("16 / 4 / 2").evaluate(new double[0]), 1e-9);
+  }
+
+  @Test
+  void testUnaryMinusAndSharedSlots() {
+    CompiledExpression expression = ExpressionParser.compile("-x * (x + -2)");
+    assertEquals(1, expression.getVariables().size());
+    assertEquals(-3.0, expression.evaluate(new double[] {3}), 1e-9);
+    double[] stack = new double[expression.getStackSize()];
+    assertEquals(-3.0, expression.evaluate(new double[] {3}, stack), 1e-9);
+  }
+
+  @Test
+  void testRejectsMalformedExpressions() {
+    assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("(1 + 2"));
+    assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("1 2"));
+    assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("1.2.3"));
+    assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("3 *"));
+  }
+}
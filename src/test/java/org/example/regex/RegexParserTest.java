@@ -0,0 +1,92 @@
+package org.example.regex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import java.util.stream.Stream;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class RegexParserTest {
+
+  static Stream<Arguments> cases() {
+    return Stream.of(
+        Arguments.of("ab|c", "ab", true),
+        Arguments.of("ab|c", "c", true),
+        Arguments.of("ab|c", "abc", false),
+        Arguments.of("(a|b)*abb", "babaabb", true),
+        Arguments.of("(a|b)*abb", "abab", false),
+        Arguments.of("a+b?", "aaab", true),
+        Arguments.of("a+b?", "b", false),
+        Arguments.of("[a-c]x*", "cxx", true),
+        Arguments.of("[a-c]x*", "dx", false),
+        Arguments.of("\\(a\\)", "(a)", true),
+        Arguments.of("a(|b)", "a", true),
+        Arguments.of("()", "", true));
+  }
+
+  @ParameterizedTest
+  @MethodSource("cases")
+  void testCompiledPatternMatches(String pattern, String input, boolean expected) {
+    DFiniteAutomaton dfa = RegexParser.compile(pattern);
+    assertEquals(expected, dfa.isStringAccepted(input), () -> pattern + " on \"" + input + "\"");
+    assertEquals(
+        expected,
+        RegexParser.parse(pattern).convertEpsilonNfaToDfa().isStringAccepted(input),
+        () -> "unminimized " + pattern + " on \"" + input + "\"");
+  }
+
+  @Test
+  void testMinimizedAutomatonIsSmall() {
+    // (a|b)*abb needs exactly four states in its minimal DFA.
+    assertEquals(4, RegexParser.compile("(a|b)*abb").getStates().size());
+  }
+
+  @Test
+  void testNegatedClassUsesAlphabet() {
+    DFiniteAutomaton dfa =
+        new RegexParser("[^a]+", Set.of('a', 'b', 'c')).toNfa().convertEpsilonNfaToDfa();
+    assertTrue(dfa.isStringAccepted("bcb"));
+    assertFalse(dfa.isStringAccepted("bab"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("[^a]"));
+  }
+
+  @Test
+  void testRejectsMalformedPatterns() {
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("(ab"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("ab)"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("*a"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("[ab"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("aεb"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("a\\εb"));
+    assertThrows(IllegalArgumentException.class, () -> RegexParser.parse("[α-ω]"));
+  }
+
+  @Test
+  void testCacheCompilesOnceAndEvicts() {
+    PatternCache cache = new PatternCache(2);
+    DFiniteAutomaton first = cache.get("a*");
+    assertSame(first, cache.get("a*"));
+    cache.get("b*");
+    cache.get("c*");
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  void testCacheSealsAutomataAndSkipsFailures() {
+    PatternCache cache = new PatternCache(4);
+    DFiniteAutomaton dfa = cache.get("ab");
+    assertTrue(dfa.isSealed());
+    assertThrows(IllegalStateException.class, () -> dfa.addTransition("q0", 'b', "q0"));
+    assertTrue(dfa.isStringAccepted("ab"));
+
+    assertThrows(IllegalArgumentException.class, () -> cache.get("(a"));
+    assertThrows(IllegalArgumentException.class, () -> cache.get("(a"));
+    assertEquals(1, cache.size());
+  }
+}
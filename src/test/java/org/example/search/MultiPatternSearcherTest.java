@@ -0,0 +1,148 @@
+package org.example.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.example.fa.CompiledDfa;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.Dawg;
+import org.example.fa.impl.DawgBuilder;
+import org.example.fa.impl.DfaTable;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class MultiPatternSearcherTest {
+
+  private static final MultiPatternSearcher.Mode OVERLAPPING =
+      MultiPatternSearcher.Mode.OVERLAPPING;
+
+  @Test
+  void testReportsOverlappingLiteralsLikeAhoCorasick() {
+    MultiPatternSearcher searcher = MultiPatternSearcher.compile("he", "she", "his", "hers");
+    assertEquals(
+        List.of(new Match(0, 2, 4), new Match(1, 1, 4), new Match(3, 2, 6)),
+        searcher.findAll("ushers", OVERLAPPING));
+  }
+
+  @Test
+  void testReportsLeftmostStartForEachEnd() {
+    MultiPatternSearcher searcher = MultiPatternSearcher.compile("ab+");
+    assertEquals(
+        List.of(new Match(0, 1, 3), new Match(0, 1, 4), new Match(0, 5, 7)),
+        searcher.findAll("xabbxab", OVERLAPPING));
+  }
+
+  @Test
+  void testSkipsEmptyMatchesAndTagsPatterns() {
+    MultiPatternSearcher searcher = MultiPatternSearcher.compile("a*", "ERROR|WARN");
+    List<Match> matches = searcher.findAll("a WARN ERROR", OVERLAPPING);
+    assertEquals(List.of(new Match(0, 0, 1), new Match(1, 2, 6), new Match(1, 7, 12)), matches);
+    assertEquals(matches, searcher.findAll("a WARN ERROR"));
+  }
+
+  @Test
+  void testReportsLeftmostLongestMatchesByDefault() {
+    assertEquals(
+        List.of(new Match(0, 0, 3)), MultiPatternSearcher.compile("a+").findAll("aaab"));
+    assertEquals(
+        List.of(new Match(0, 6, 15)),
+        MultiPatternSearcher.compile("error[0-9]+").findAll("fatal error1234."));
+    // The leftmost start wins over an earlier end, and the longer match over a lower id.
+    assertEquals(
+        List.of(new Match(1, 0, 6)),
+        MultiPatternSearcher.compile("he", "ushers", "hers").findAll("ushers"));
+    assertEquals(
+        List.of(new Match(0, 1, 3), new Match(1, 3, 6)),
+        MultiPatternSearcher.compile("ab", "abc|b+").findAll("xabbbb"));
+  }
+
+  @Test
+  void testLeftmostLongestAgreesWithBruteForce() {
+    Random random = new Random(5);
+    String[] atoms = {"a", "b", "c", "ab", "(a|c)", "b*", "(bc)+", "a?"};
+    for (int round = 0; round < 100; round++) {
+      List<DFiniteAutomaton> dfas = new ArrayList<>();
+      List<DfaTable> tables = new ArrayList<>();
+      for (int p = 1 + random.nextInt(3); p > 0; p--) {
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+          pattern.append(atoms[random.nextInt(atoms.length)]);
+        }
+        dfas.add(RegexParser.compile(pattern.toString()));
+        tables.add(DfaTable.of(dfas.get(dfas.size() - 1)));
+      }
+      MultiPatternSearcher.Builder builder = new MultiPatternSearcher.Builder();
+      dfas.forEach(builder::add);
+      MultiPatternSearcher searcher = builder.build();
+      MultiPatternSearcher fromTables = new MultiPatternSearcher(tables);
+
+      for (int t = 0; t < 10; t++) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(30); i > 0; i--) {
+          text.append("abcx".charAt(random.nextInt(4)));
+        }
+        List<Match> expected = bruteForce(tables, text.toString());
+        assertEquals(expected, searcher.findAll(text), dfas + " in " + text);
+        assertEquals(expected, fromTables.findAll(text), dfas + " in " + text);
+      }
+    }
+  }
+
+  @Test
+  void testLeftmostLongestNeedsTheAlphabetOfOtherAutomata() {
+    Dawg words = new DawgBuilder().addAll(List.of("tap", "taps", "top")).freeze();
+    MultiPatternSearcher unknown = new MultiPatternSearcher.Builder().add(words).build();
+    assertThrows(IllegalStateException.class, () -> unknown.findAll("taps"));
+    assertEquals(2, unknown.findAll("taps", OVERLAPPING).size());
+
+    MultiPatternSearcher known =
+        new MultiPatternSearcher.Builder().add(words, List.of('a', 'o', 'p', 's', 't')).build();
+    assertEquals(List.of(new Match(0, 0, 4), new Match(0, 5, 8)), known.findAll("taps top"));
+  }
+
+  @Test
+  void testLeftmostLongestStepsLinearlyAfterOverrunningMatches() {
+    // Every run from an "a" continues to the end of the text hoping for "a*b", then reports "a".
+    MultiPatternSearcher searcher = MultiPatternSearcher.compile("a", "a*b");
+    CombinedDfa dfa =
+        CombinedDfa.of(
+            new CompiledDfa[] {
+              DfaTable.of(RegexParser.compile("a")), DfaTable.of(RegexParser.compile("a*b"))
+            },
+            new char[][] {{'a'}, {'a', 'b'}});
+    for (int n : new int[] {1_000, 40_000}) {
+      String text = "a".repeat(n);
+      List<Match> matches = new ArrayList<>();
+      MatchListener collect = (id, start, end) -> matches.add(new Match(id, start, end));
+      long steps = dfa.reportMatches(text, dfa.matchStarts(text), collect);
+      assertEquals(n, matches.size());
+      assertEquals(new Match(0, n - 1, n), matches.get(n - 1));
+      assertTrue(steps <= 3L * n, steps + " steps for " + n + " characters");
+      assertEquals(matches, searcher.findAll(text));
+    }
+  }
+
+  private static List<Match> bruteForce(List<DfaTable> patterns, String text) {
+    List<Match> matches = new ArrayList<>();
+    int i = 0;
+    while (i < text.length()) {
+      Match best = null;
+      for (int end = text.length(); end > i && best == null; end--) {
+        for (int p = 0; p < patterns.size() && best == null; p++) {
+          if (patterns.get(p).matches(text.substring(i, end))) {
+            best = new Match(p, i, end);
+          }
+        }
+      }
+      if (best == null) {
+        i++;
+      } else {
+        matches.add(best);
+        i = best.end();
+      }
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,79 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.DfaTable;
+import org.example.regex.RegexParser;
+
+/**
+ * Compares matching and searching with and without prefilters on inputs where few lines hit. Run
+ * with {@code java -cp target/classes:target/test-classes org.example.search.PrefilterBenchmark}.
+ */
+public class PrefilterBenchmark {
+  private static final int LINES = 200_000;
+  private static final double HIT_RATE = 0.001;
+
+  public static void main(String[] args) {
+    Random random = new Random(1);
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < LINES; i++) {
+      StringBuilder line = new StringBuilder();
+      for (int j = 40 + random.nextInt(80); j > 0; j--) {
+        line.append("abcdefghijklmnopqrstuvwxyz ".charAt(random.nextInt(27)));
+      }
+      if (random.nextDouble() < HIT_RATE) {
+        line.insert(random.nextInt(line.length()), "error" + random.nextInt(100));
+      }
+      lines.add(line.toString());
+    }
+    String text = String.join("\n", lines);
+
+    DFiniteAutomaton anchored = RegexParser.compile("[a-z ]*error[0-9]+[a-z0-9 ]*");
+    DfaTable table = anchored.freeze();
+    Prefilter prefilter = Prefilter.of(anchored);
+    System.out.println("anchored: " + prefilter);
+
+    DFiniteAutomaton unanchored = RegexParser.compile("error[0-9]+");
+    MultiPatternSearcher filtered = new MultiPatternSearcher.Builder().add(unanchored).build();
+    MultiPatternSearcher plain = new MultiPatternSearcher(List.of(DfaTable.of(unanchored)));
+    System.out.println("search: " + Prefilter.of(unanchored));
+
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      int hits = 0;
+      for (String line : lines) {
+        hits += table.matches(line) ? 1 : 0;
+      }
+      long matchPlain = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int filteredHits = 0;
+      for (String line : lines) {
+        filteredHits += prefilter.mayMatch(line) && table.matches(line) ? 1 : 0;
+      }
+      long matchFiltered = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int found = plain.findAll(text, MultiPatternSearcher.Mode.OVERLAPPING).size();
+      long searchPlain = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int filteredFound = filtered.findAll(text, MultiPatternSearcher.Mode.OVERLAPPING).size();
+      long searchFiltered = System.nanoTime() - start;
+
+      System.out.printf(
+          "round %d: match %d/%d hits %.1f -> %.1f ms, search %d/%d hits %.1f -> %.1f ms%n",
+          round,
+          hits,
+          filteredHits,
+          matchPlain / 1e6,
+          matchFiltered / 1e6,
+          found,
+          filteredFound,
+          searchPlain / 1e6,
+          searchFiltered / 1e6);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package org.example.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.fa.impl.DfaTable;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class PrefilterTest {
+
+  @Test
+  void testExtractsRequiredLiterals() {
+    Prefilter prefix = Prefilter.of(RegexParser.compile("ab(c|d)e"));
+    assertEquals("ab", prefix.getLiteral());
+    assertEquals(0, prefix.getMaxOffset());
+
+    Prefilter inner = Prefilter.of(RegexParser.compile("(a|b)*needle(x|y)"));
+    assertEquals("needle", inner.getLiteral());
+    assertEquals(-1, inner.getMaxOffset());
+
+    Prefilter bounded = Prefilter.of(RegexParser.compile("(a|bb)?error[0-9]+"));
+    assertEquals("error", bounded.getLiteral());
+    assertEquals(2, bounded.getMaxOffset());
+    assertFalse(bounded.mayMatch("warning 42"));
+    assertTrue(bounded.mayMatch("error 42"));
+
+    Prefilter overlapping = Prefilter.of(RegexParser.compile("[a-z]*error[0-9]"));
+    assertEquals("error", overlapping.getLiteral());
+  }
+
+  @Test
+  void testFallsBackToCharacterSets() {
+    Prefilter prefilter = Prefilter.of(RegexParser.compile("x*[abc][0-9]"));
+    assertNull(prefilter.getLiteral());
+    assertEquals("abc", new String(prefilter.getRequiredCharacters()));
+    assertEquals(3, prefilter.indexIn("xx9b1", 0));
+
+    assertFalse(Prefilter.of(RegexParser.compile("a*")).isSelective());
+  }
+
+  @Test
+  void testSearchWithPrefiltersMatchesPlainSearch() {
+    Random random = new Random(17);
+    String[] atoms = {"a", "b", "c", "ab", "(a|c)", "b*", "(bc)+", "a?"};
+    for (int round = 0; round < 200; round++) {
+      StringBuilder pattern = new StringBuilder();
+      for (int i = 1 + random.nextInt(5); i > 0; i--) {
+        pattern.append(atoms[random.nextInt(atoms.length)]);
+      }
+      DFiniteAutomaton dfa = RegexParser.compile(pattern.toString());
+      Prefilter prefilter = Prefilter.of(dfa);
+      MultiPatternSearcher filtered = new MultiPatternSearcher.Builder().add(dfa).build();
+      MultiPatternSearcher plain = new MultiPatternSearcher(List.of(DfaTable.of(dfa)));
+
+      for (int t = 0; t < 20; t++) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(40); i > 0; i--) {
+          text.append("abcx".charAt(random.nextInt(4)));
+        }
+        String input = text.toString();
+        assertEquals(plain.findAll(input), filtered.findAll(input), pattern + " in " + input);
+        MultiPatternSearcher.Mode overlapping = MultiPatternSearcher.Mode.OVERLAPPING;
+        assertEquals(
+            plain.findAll(input, overlapping),
+            filtered.findAll(input, overlapping),
+            pattern + " in " + input);
+        if (!prefilter.mayMatch(input)) {
+          assertFalse(dfa.isStringAccepted(input), pattern + " on " + input);
+        }
+      }
+    }
+  }
+}
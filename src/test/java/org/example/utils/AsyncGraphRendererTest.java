@@ -0,0 +1,64 @@
+package org.example.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.example.regex.RegexParser;
+import org.junit.jupiter.api.Test;
+
+class AsyncGraphRendererTest {
+
+  @Test
+  void testCanonicalKeyIgnoresInsertionOrder() {
+    DFiniteAutomaton first = new DFiniteAutomaton(new LinkedHashSet<>(List.of('a', 'b')));
+    first.addState("S", false);
+    first.addState("A", true);
+    first.setStartState("S");
+    first.addTransition("S", 'a', "A");
+    first.addTransition("S", 'b', "S");
+
+    DFiniteAutomaton second = new DFiniteAutomaton(new LinkedHashSet<>(List.of('b', 'a')));
+    second.addState("A", true);
+    second.addState("S", false);
+    second.setStartState("S");
+    second.addTransition("S", 'b', "S");
+    second.addTransition("S", 'a', "A");
+
+    assertEquals(AsyncGraphRenderer.canonicalKey(first), AsyncGraphRenderer.canonicalKey(second));
+    second.addTransition("A", 'a', "A");
+    assertNotEquals(
+        AsyncGraphRenderer.canonicalKey(first), AsyncGraphRenderer.canonicalKey(second));
+  }
+
+  @Test
+  void testUnchangedAutomataAreRenderedOnce() throws IOException {
+    Path directory = Files.createTempDirectory("render-test");
+    DFiniteAutomaton dfa = RegexParser.compile("(a|b)*abb");
+    try (AsyncGraphRenderer renderer = new AsyncGraphRenderer(directory.resolve("cache"), 2)) {
+      CompletableFuture<Path> first = renderer.render(dfa, directory.resolve("first.png"));
+      CompletableFuture<Path> second = renderer.render(dfa, directory.resolve("second.png"));
+      CompletableFuture.allOf(first, second).join();
+      renderer.render(dfa, directory.resolve("third.png")).join();
+
+      assertEquals(1, renderer.getMisses());
+      assertTrue(renderer.getHits() >= 1);
+      assertTrue(Files.exists(directory.resolve("first.png")));
+      assertTrue(Files.exists(directory.resolve("second.png")));
+      assertTrue(Files.exists(directory.resolve("third.png")));
+    } finally {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+}
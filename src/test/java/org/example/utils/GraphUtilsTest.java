@@ -0,0 +1,54 @@
+package org.example.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Set;
+import org.example.fa.impl.DFiniteAutomaton;
+import org.junit.jupiter.api.Test;
+
+class GraphUtilsTest {
+
+  private static DFiniteAutomaton cycle() {
+    DFiniteAutomaton dfa = new DFiniteAutomaton(Set.of('a', 'b', 'c'));
+    dfa.addState("S", false);
+    dfa.addState("A", false);
+    dfa.addState("B", true);
+    dfa.setStartState("S");
+    dfa.addTransition("S", 'a', "A");
+    dfa.addTransition("S", 'b', "A");
+    dfa.addTransition("A", 'a', "B");
+    dfa.addTransition("B", 'a', "A");
+    return dfa;
+  }
+
+  @Test
+  void testWriteDotMergesParallelEdges() throws IOException {
+    StringWriter out = new StringWriter();
+    GraphUtils.writeDot(cycle(), out);
+    String dot = out.toString();
+    assertTrue(dot.contains("\"S\" -> \"A\" [label=\"a,b\"];"));
+    assertTrue(dot.contains("\"S\" -> \"Ø\" [label=\"c\"];"));
+    assertTrue(dot.contains("\"A\" -> \"Ø\" [label=\"b,c\"];"));
+    assertTrue(dot.contains("\"B\" [shape=doublecircle];"));
+    assertTrue(dot.endsWith("}\n"));
+  }
+
+  @Test
+  void testSummaryAndCondensedViews() throws IOException {
+    StringWriter summary = new StringWriter();
+    GraphUtils.writeDotSummary(cycle(), summary, 1);
+    assertFalse(summary.toString().contains("\"B\""));
+    assertTrue(summary.toString().contains("label=\"+1\""));
+    // S reaches the hidden A over both 'a' and 'b', which is still one hidden state.
+    StringWriter startOnly = new StringWriter();
+    GraphUtils.writeDotSummary(cycle(), startOnly, 0);
+    assertTrue(startOnly.toString().contains("label=\"+1\""));
+
+    StringWriter condensed = new StringWriter();
+    GraphUtils.writeDotCondensed(cycle(), condensed);
+    assertTrue(condensed.toString().contains("\"A (+1)\" [shape=doublecircle];"));
+    assertTrue(condensed.toString().contains("\"S\" -> \"A (+1)\" [label=\"a,b\"];"));
+  }
+}